@@ -3,6 +3,7 @@ package com.chimaenono.dearmind.config;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -38,21 +39,28 @@ public class SecurityConfig {
                 // Swagger 관련 경로 (가장 먼저 설정)
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/v3/api-docs", "/swagger-resources/**", "/webjars/**", "/api-docs/**", "/swagger-config").permitAll()
                 
+                // 공개 경로 아래의 관리 기능 (permitAll보다 먼저 매칭되어야 함)
+                .requestMatchers(HttpMethod.POST, "/api/gpt/prompts/reload").hasRole("ADMIN")
+                
                 // 공개 API (인증 불필요)
                 .requestMatchers(
                     "/api/auth/kakao/**",           // 카카오 로그인 관련
                     "/api/users/check-*",           // 중복 확인 API
                     "/api/gpt/**",                  // GPT API (테스트용)
+                    "/api/tts/audio/**",            // 턴 응답 오디오 URL (<audio>는 인증 헤더를 보낼 수 없음, 링크마다 무작위 토큰)
                     "/static/**",                   // 정적 리소스
 
                     "/*.html",                      // 모든 HTML 파일
                     "/favicon.ico",                  // 파비콘
-                    "/ws/**"                        // WebSocket 연결
+                    "/ws/**",                       // WebSocket 연결
+                    "/stub/**"                      // 외부 제공자 대역 (loadtest.stubs.enabled일 때만 존재)
 
                 ).permitAll()
                 
                 // 관리자 API (ADMIN 권한 필요)
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .requestMatchers("/loadtest/**").hasRole("ADMIN")   // 부하 테스트 드라이버 (loadtest.driver.enabled일 때만 존재)
+                .requestMatchers(HttpMethod.POST, "/api/conversations/openers/refresh").hasRole("ADMIN")   // 첫 인사말 풀 전체 재생성 (LLM·TTS 호출)
                 
                 // 나머지 모든 요청은 인증 필요
                 .anyRequest().authenticated()
@@ -1,12 +1,16 @@
 package com.chimaenono.dearmind.conversation;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import com.chimaenono.dearmind.gpt.DiaryBundle;
 import com.chimaenono.dearmind.gpt.GPTService;
+import com.chimaenono.dearmind.gpt.LlmBatchService;
+import com.chimaenono.dearmind.music.MusicRecommendationService;
 
 @Service
 @Tag(name = "Async Service", description = "비동기 처리 서비스")
@@ -18,6 +22,16 @@ public class AsyncService {
     @Autowired
     private GPTService gptService;
     
+    @Autowired
+    private LlmBatchService llmBatchService;
+    
+    @Autowired
+    private MusicRecommendationService musicRecommendationService;
+    
+    // serial: 요약 → 일기 순차 호출 (음악은 첫 일기 조회 시 생성), bundle: 요약+일기+음악을 한 번의 호출로 생성
+    @Value("${llm.diary.mode:serial}")
+    private String diaryMode;
+    
     @Operation(summary = "대화 요약 및 일기 생성", description = "백그라운드에서 대화 요약과 일기를 생성합니다")
     @Async
     public void generateSummaryAndDiary(Long conversationId) {
@@ -25,6 +39,20 @@ public class AsyncService {
             // 처리 상태를 PROCESSING으로 변경
             conversationService.updateProcessingStatus(conversationId, Conversation.ProcessingStatus.PROCESSING);
             
+            // 배치 모드: 다음 배치 창에 제출 (결과는 LlmBatchService가 저장하고 상태를 갱신)
+            if (llmBatchService.isEnabled()) {
+                llmBatchService.enqueue(conversationId);
+                return;
+            }
+            
+            // 번들 모드: 한 번의 LLM 호출로 요약/일기/음악 생성
+            if ("bundle".equals(diaryMode)) {
+                DiaryBundle bundle = gptService.generateAndSaveDiaryBundle(conversationId);
+                musicRecommendationService.saveRecommendationsIfAbsent(conversationId, bundle.getMusic());
+                conversationService.updateProcessingStatus(conversationId, Conversation.ProcessingStatus.COMPLETED);
+                return;
+            }
+            
             // 1. 대화 내용 요약 생성 및 저장
             String summary = gptService.generateAndSaveConversationSummary(conversationId, 50);
             
@@ -90,6 +90,10 @@ public class Conversation {
     @Schema(description = "대화 앵커 텍스트", example = "작은 집")
     private String targetAnchorText;            // "작은 집", "어머니" 등
     
+    @Column(name = "memory", columnDefinition = "JSON")
+    @Schema(description = "턴 프롬프트용 요약 메모리 JSON", example = "{\"anchors\":[...], \"facetsCovered\":[...], \"keyFacts\":[...]}")
+    private String memoryJson;                  // ConversationMemory 전체 JSON
+    
     public enum ConversationStatus {
         ACTIVE, COMPLETED, PAUSED
     }
@@ -147,4 +151,29 @@ public class Conversation {
             this.targetAnchorText = anchor.get("text");
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 요약 메모리를 ConversationMemory로 반환 (없으면 빈 메모리)
+     */
+    public ConversationMemory getMemory() {
+        if (memoryJson == null || memoryJson.trim().isEmpty()) {
+            return new ConversationMemory();
+        }
+        try {
+            return objectMapper.readValue(memoryJson, ConversationMemory.class);
+        } catch (Exception e) {
+            return new ConversationMemory();
+        }
+    }
+    
+    /**
+     * 요약 메모리를 JSON 문자열로 저장
+     */
+    public void setMemory(ConversationMemory memory) {
+        try {
+            this.memoryJson = objectMapper.writeValueAsString(memory);
+        } catch (Exception e) {
+            this.memoryJson = null;
+        }
+    }
+}
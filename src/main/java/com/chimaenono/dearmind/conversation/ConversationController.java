@@ -48,6 +48,9 @@ public class ConversationController {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private ConversationOpenerCache openerCache;
+    
     @PostMapping("/start")
     @Operation(summary = "대화 시작 (통합)", description = "카메라 세션, 마이크 세션, 대화방을 통합으로 생성합니다")
     @ApiResponses(value = {
@@ -71,6 +74,24 @@ public class ConversationController {
         }
     }
     
+    @GetMapping("/openers/stats")
+    @Operation(summary = "첫 인사말 풀 현황", description = "질문별로 미리 생성한 첫 인사말 수, 오디오 합성 수, 적중/미스 횟수를 조회합니다")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "조회 성공")
+    })
+    public ResponseEntity<Map<String, Object>> getOpenerStats() {
+        return ResponseEntity.ok(openerCache.stats());
+    }
+    
+    @PostMapping("/openers/refresh")
+    @Operation(summary = "첫 인사말 풀 갱신", description = "새 질문이나 내용이 바뀐 질문의 첫 인사말을 백그라운드에서 다시 생성합니다")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "갱신 시작")
+    })
+    public ResponseEntity<Map<String, Object>> refreshOpeners() {
+        openerCache.refreshChanged();
+        return ResponseEntity.ok(openerCache.stats());
+    }
     
     @GetMapping("/{conversationId}")
     @Operation(summary = "대화 세션 조회", description = "ID로 대화 세션을 조회합니다")
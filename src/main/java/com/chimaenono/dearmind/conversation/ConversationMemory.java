@@ -0,0 +1,72 @@
+package com.chimaenono.dearmind.conversation;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 대화 턴 프롬프트용 요약 메모리 (Conversation.memory에 JSON으로 저장)
+ * 이전 턴 원문 대신 앵커·다룬 facet·핵심 사실만 누적하며, 항목 수 상한이 있어 대화가 길어져도 크기가 일정합니다.
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "대화 요약 메모리")
+public class ConversationMemory {
+    
+    private static final int MAX_ANCHORS = 5;
+    private static final int MAX_FACTS = 6;
+    private static final int MAX_FACT_LENGTH = 40;
+    
+    @Schema(description = "언급된 앵커 (type:text)", example = "[\"place:작은 집\"]")
+    private List<String> anchors = new ArrayList<>();
+    
+    @Schema(description = "지금까지 다룬 facet 키 (중복 없음)", example = "[\"where\", \"who\"]")
+    private List<String> facetsCovered = new ArrayList<>();
+    
+    @Schema(description = "사용자가 말한 핵심 사실 (최근 순으로 최대 6개)", example = "[\"어머니와 시장에 감\"]")
+    private List<String> keyFacts = new ArrayList<>();
+    
+    @Schema(description = "반영된 턴 수", example = "4")
+    private int turns;
+    
+    /**
+     * 한 턴의 결과를 메모리에 반영합니다.
+     */
+    public void recordTurn(Map<String, String> anchor, String facetKeyUsed, String fact) {
+        turns++;
+        if (anchor != null && anchor.get("type") != null && anchor.get("text") != null) {
+            addBounded(anchors, anchor.get("type") + ":" + anchor.get("text"), MAX_ANCHORS);
+        }
+        if (facetKeyUsed != null && !facetKeyUsed.isBlank() && !facetsCovered.contains(facetKeyUsed)) {
+            facetsCovered.add(facetKeyUsed);
+        }
+        if (fact != null && !fact.isBlank()) {
+            String trimmed = fact.trim();
+            if (trimmed.length() > MAX_FACT_LENGTH) {
+                trimmed = trimmed.substring(0, MAX_FACT_LENGTH);
+            }
+            addBounded(keyFacts, trimmed, MAX_FACTS);
+        }
+    }
+    
+    @JsonIgnore
+    public boolean isEmpty() {
+        return anchors.isEmpty() && facetsCovered.isEmpty() && keyFacts.isEmpty();
+    }
+    
+    /**
+     * 중복이면 맨 뒤로 옮기고, 상한을 넘으면 가장 오래된 항목을 버립니다.
+     */
+    private static void addBounded(List<String> list, String value, int max) {
+        list.remove(value);
+        list.add(value);
+        while (list.size() > max) {
+            list.remove(0);
+        }
+    }
+}
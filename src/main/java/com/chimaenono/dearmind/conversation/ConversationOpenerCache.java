@@ -0,0 +1,230 @@
+package com.chimaenono.dearmind.conversation;
+
+import com.chimaenono.dearmind.gpt.GPTService;
+import com.chimaenono.dearmind.question.Question;
+import com.chimaenono.dearmind.question.QuestionService;
+import com.chimaenono.dearmind.tts.TTSResponse;
+import com.chimaenono.dearmind.tts.TTSService;
+import com.chimaenono.dearmind.tts.TtsAudioLinks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 질문별 첫 인사말 풀
+ * - 질문마다 LLM으로 첫 인사말 몇 개를 미리 만들고 TTS까지 합성해 둠
+ * - QuestionService의 질문 목록을 주기적으로 확인해 새 질문이나 내용이 바뀐 질문만 다시 생성 (삭제된 질문은 풀 제거)
+ * - 대화 시작 시 풀에서 하나를 순서대로 꺼내므로 첫 응답에 LLM/TTS 대기가 없음
+ * 풀이 아직 없거나 질문 내용과 맞지 않으면 비어 있는 결과를 돌려주고 해당 질문만 바로 다시 생성합니다.
+ * LLM 또는 TTS 실패로 만든 대체 풀(질문 원문, 오디오 없음)은 사용은 하되 degraded로 표시해 다음 갱신 때 다시 생성합니다.
+ */
+@Slf4j
+@Component
+public class ConversationOpenerCache {
+
+    @Value("${conversation.opener.enabled:true}")
+    private boolean enabled;
+
+    @Value("${conversation.opener.pool-size:3}")
+    private int poolSize;
+
+    @Value("${conversation.opener.refresh-interval-seconds:300}")
+    private long refreshIntervalSeconds;
+
+    @Value("${conversation.opener.initial-delay-seconds:5}")
+    private long initialDelaySeconds;
+
+    // 동시에 생성할 질문 수 (LLM 호출은 BACKGROUND 우선순위라 대화 턴을 밀어내지 않음)
+    @Value("${conversation.opener.concurrency:4}")
+    private int concurrency;
+
+    // 턴 응답 TTS와 같은 목소리
+    @Value("${conversation.opener.voice:ko-KR-Wavenet-A}")
+    private String voice;
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private GPTService gptService;
+
+    @Autowired
+    private TTSService ttsService;
+
+    @Autowired
+    private TtsAudioLinks audioLinks;
+
+    /**
+     * 미리 만든 첫 인사말 (audioBase64는 TTS 실패 시 null)
+     */
+    public record Opener(String text, String audioBase64) {}
+
+    private record Pool(String content, List<Opener> openers, AtomicInteger next, boolean degraded) {}
+
+    private final Map<Long, Pool> pools = new ConcurrentHashMap<>();
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore permits;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(Math.max(1, concurrency));
+        if (enabled && refreshIntervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::refreshChanged, initialDelaySeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdown();
+        executor.shutdown();
+    }
+
+    /**
+     * 질문의 첫 인사말 하나를 꺼냅니다. 풀이 없거나 질문 내용이 바뀌었으면 비어 있는 결과입니다.
+     */
+    public Optional<Opener> take(Question question) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Pool pool = pools.get(question.getId());
+        if (pool == null || !pool.content().equals(question.getContent()) || pool.openers().isEmpty()) {
+            misses.incrementAndGet();
+            refreshAsync(question);
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        int index = Math.floorMod(pool.next().getAndIncrement(), pool.openers().size());
+        return Optional.of(pool.openers().get(index));
+    }
+
+    /**
+     * 새 질문이나 내용이 바뀐 질문의 풀을 다시 만들고, 없어진 질문의 풀은 지웁니다.
+     */
+    public void refreshChanged() {
+        try {
+            List<Question> questions = questionService.getAllQuestions();
+            Set<Long> ids = new HashSet<>();
+            for (Question question : questions) {
+                ids.add(question.getId());
+                Pool pool = pools.get(question.getId());
+                if (pool == null || !pool.content().equals(question.getContent()) || pool.degraded()) {
+                    refreshAsync(question);
+                }
+            }
+            pools.keySet().retainAll(ids);
+        } catch (Exception e) {
+            log.warn("첫 인사말 풀 갱신 확인 실패: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("questions", pools.size());
+        stats.put("openers", pools.values().stream().mapToInt(pool -> pool.openers().size()).sum());
+        stats.put("withAudio", pools.values().stream()
+                .flatMap(pool -> pool.openers().stream())
+                .filter(opener -> opener.audioBase64() != null)
+                .count());
+        stats.put("degraded", pools.values().stream().filter(Pool::degraded).count());
+        stats.put("refreshing", refreshing.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("generated", generated.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    private void refreshAsync(Question question) {
+        if (!refreshing.add(question.getId())) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                permits.acquire();
+                try {
+                    refresh(question);
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                log.warn("첫 인사말 생성 실패: questionId={}, error={}", question.getId(), e.getMessage());
+            } finally {
+                refreshing.remove(question.getId());
+            }
+        });
+    }
+
+    private void refresh(Question question) {
+        String content = question.getContent();
+        List<String> texts;
+        try {
+            texts = gptService.generateOpeners(content, poolSize);
+        } catch (Exception e) {
+            // LLM을 쓸 수 없으면 질문 자체를 첫 인사말로 사용 (TTS는 미리 합성)
+            failures.incrementAndGet();
+            log.warn("첫 인사말 LLM 생성 실패, 질문으로 대체: questionId={}, error={}", question.getId(), e.getMessage());
+            texts = List.of();
+        }
+        boolean degraded = texts.isEmpty();
+        if (degraded) {
+            texts = List.of(content);
+        }
+
+        List<Opener> openers = new ArrayList<>();
+        for (String text : texts.subList(0, Math.min(poolSize, texts.size()))) {
+            Opener opener = new Opener(text, synthesize(text));
+            degraded |= opener.audioBase64() == null;
+            openers.add(opener);
+        }
+        pools.put(question.getId(), new Pool(content, List.copyOf(openers), new AtomicInteger(), degraded));
+        generated.addAndGet(openers.size());
+        log.info("첫 인사말 풀 생성: questionId={}, count={}, degraded={}", question.getId(), openers.size(), degraded);
+    }
+
+    /**
+     * 첫 인사말 오디오 URL (미리 합성한 오디오와 같은 음성 설정이라 캐시에서 바로 나감)
+     */
+    public String audioUrlOf(Opener opener) {
+        return audioLinks.register(opener.text(), voice, "1.0", "0.0", "0.0", "mp3");
+    }
+
+    private String synthesize(String text) {
+        try {
+            TTSResponse response = ttsService.synthesizeSpeech(text, voice, "1.0", "0.0", "0.0", "mp3");
+            return response.isSuccess() ? response.getAudioData() : null;
+        } catch (Exception e) {
+            log.warn("첫 인사말 TTS 실패: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -51,6 +51,10 @@ public class ConversationService {
     @Autowired
     private GuardianSeniorRelationshipService relationshipService;
     
+    @Autowired
+    @Lazy
+    private ConversationOpenerCache openerCache;
+    
     @Operation(summary = "통합 대화 시작", description = "카메라 세션, 마이크 세션, 대화방을 통합으로 생성합니다")
     public ConversationStartResponse startConversation(ConversationStartRequest request, Long userId) {
         // 입력 검증
@@ -81,7 +85,7 @@ public class ConversationService {
             );
             
             // 4. 응답 생성
-            return ConversationStartResponse.success(
+            ConversationStartResponse response = ConversationStartResponse.success(
                 conversation.getId(),
                 cameraSessionId,
                 microphoneSessionId,
@@ -89,6 +93,19 @@ public class ConversationService {
                 question
             );
             
+            // 5. 미리 만든 첫 인사말이 있으면 AI 메시지로 저장하고 오디오 URL(호환 모드면 Base64)과 함께 바로 반환
+            openerCache.take(question).ifPresent(opener -> {
+                ConversationMessage openerMessage = saveAIMessage(conversation.getId(), opener.text());
+                response.setOpenerText(opener.text());
+                if (Boolean.TRUE.equals(request.getIncludeAudioBase64())) {
+                    response.setOpenerAudioBase64(opener.audioBase64());
+                } else {
+                    response.setOpenerAudioUrl(openerCache.audioUrlOf(opener));
+                }
+                response.setOpenerMessageId(openerMessage.getId());
+            });
+            return response;
+            
         } catch (Exception e) {
             throw new RuntimeException("대화 시작 중 오류가 발생했습니다: " + e.getMessage(), e);
         }
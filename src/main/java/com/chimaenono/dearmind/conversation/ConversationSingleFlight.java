@@ -0,0 +1,65 @@
+package com.chimaenono.dearmind.conversation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 대화별 생성 작업의 single-flight 조정기
+ * 같은 (conversationId, stage)로 동시에 들어온 호출은 먼저 도착한 호출의 작업 하나만 실행하고,
+ * 나머지는 그 결과(또는 예외)를 함께 받습니다.
+ */
+@Slf4j
+@Component
+public class ConversationSingleFlight {
+
+    public static final String STAGE_SUMMARY = "summary";
+    public static final String STAGE_DIARY = "diary";
+    public static final String STAGE_MUSIC = "music";
+    public static final String STAGE_DIARY_BUNDLE = "diary_bundle";
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 진행 중인 동일 작업이 있으면 그 결과를 기다리고, 없으면 work를 실행합니다.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T run(Long conversationId, String stage, Callable<T> work) throws Exception {
+        String key = conversationId + ":" + stage;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            log.info("진행 중인 작업에 합류합니다: key={}", key);
+            try {
+                return (T) existing.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T result = work.call();
+            future.complete(result);
+            return result;
+        } catch (Throwable t) {
+            // Error도 공유 future에 전달해야 합류한 호출이 영원히 기다리지 않음
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+}
@@ -12,6 +12,9 @@ public class ConversationStartRequest {
     @Schema(description = "선택한 질문 ID", example = "5", required = true)
     private Long questionId;
     
+    @Schema(description = "첫 인사말 오디오를 Base64로 응답에 포함할지 여부 (호환 모드). 기본은 openerAudioUrl로 바이너리 스트리밍", example = "false")
+    private Boolean includeAudioBase64;
+    
     // 기본 생성자
     public ConversationStartRequest() {}
     
@@ -29,10 +32,19 @@ public class ConversationStartRequest {
         this.questionId = questionId;
     }
     
+    public Boolean getIncludeAudioBase64() {
+        return includeAudioBase64;
+    }
+    
+    public void setIncludeAudioBase64(Boolean includeAudioBase64) {
+        this.includeAudioBase64 = includeAudioBase64;
+    }
+    
     @Override
     public String toString() {
         return "ConversationStartRequest{" +
                 "questionId=" + questionId +
+                ", includeAudioBase64=" + includeAudioBase64 +
                 '}';
     }
 }
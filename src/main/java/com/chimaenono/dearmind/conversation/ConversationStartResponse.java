@@ -28,6 +28,18 @@ public class ConversationStartResponse {
     @Schema(description = "응답 메시지", example = "대화가 성공적으로 시작되었습니다.")
     private String message;
     
+    @Schema(description = "미리 생성된 첫 인사말 (준비 전이면 null)", example = "안녕하세요. 어릴 적 살던 동네를 떠올리면 어떤 풍경이 먼저 생각나세요?")
+    private String openerText;
+    
+    @Schema(description = "첫 인사말 TTS 오디오 URL (audio/mpeg 스트리밍, 인증 불필요, includeAudioBase64=true면 null)", example = "/api/tts/audio/3f2a...")
+    private String openerAudioUrl;
+    
+    @Schema(description = "첫 인사말 TTS 오디오 (Base64, includeAudioBase64=true일 때만, 합성 실패 시 null)")
+    private String openerAudioBase64;
+    
+    @Schema(description = "첫 인사말로 저장된 AI 메시지 ID", example = "10")
+    private Long openerMessageId;
+    
     // 기본 생성자
     public ConversationStartResponse() {}
     
@@ -109,6 +121,38 @@ public class ConversationStartResponse {
         this.message = message;
     }
     
+    public String getOpenerText() {
+        return openerText;
+    }
+    
+    public void setOpenerText(String openerText) {
+        this.openerText = openerText;
+    }
+    
+    public String getOpenerAudioUrl() {
+        return openerAudioUrl;
+    }
+    
+    public void setOpenerAudioUrl(String openerAudioUrl) {
+        this.openerAudioUrl = openerAudioUrl;
+    }
+    
+    public String getOpenerAudioBase64() {
+        return openerAudioBase64;
+    }
+    
+    public void setOpenerAudioBase64(String openerAudioBase64) {
+        this.openerAudioBase64 = openerAudioBase64;
+    }
+    
+    public Long getOpenerMessageId() {
+        return openerMessageId;
+    }
+    
+    public void setOpenerMessageId(Long openerMessageId) {
+        this.openerMessageId = openerMessageId;
+    }
+    
     @Override
     public String toString() {
         return "ConversationStartResponse{" +
@@ -118,6 +162,9 @@ public class ConversationStartResponse {
                 ", status='" + status + '\'' +
                 ", question=" + question +
                 ", message='" + message + '\'' +
+                ", openerText='" + openerText + '\'' +
+                ", openerAudioUrl='" + openerAudioUrl + '\'' +
+                ", openerMessageId=" + openerMessageId +
                 '}';
     }
 }
@@ -0,0 +1,57 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * chat/completions SSE 응답 파서 (OpenAI와 llama.cpp 서버가 같은 형식을 씀)
+ */
+final class ChatCompletionStreamReader {
+
+    private ChatCompletionStreamReader() {
+    }
+
+    /**
+     * "data: {...}" ... "data: [DONE]" 줄을 읽으며 content delta를 onDelta로 전달하고,
+     * 완성된 전체 텍스트와 (제공되면) 토큰 사용량을 응답으로 돌려줍니다.
+     */
+    static GPTResponse read(BufferedReader reader, ObjectMapper objectMapper, Consumer<String> onDelta) throws IOException {
+        StringBuilder content = new StringBuilder();
+        GPTResponse result = new GPTResponse();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring(5).trim();
+            if ("[DONE]".equals(data)) {
+                break;
+            }
+            JsonNode chunk = objectMapper.readTree(data);
+            JsonNode delta = chunk.path("choices").path(0).path("delta").path("content");
+            if (delta.isTextual() && !delta.asText().isEmpty()) {
+                content.append(delta.asText());
+                onDelta.accept(delta.asText());
+            }
+            // include_usage 사용 시 마지막 청크에 usage가 담겨 옴
+            JsonNode usage = chunk.path("usage");
+            if (usage.isObject()) {
+                result.setUsage(objectMapper.treeToValue(usage, GPTResponse.GPTUsage.class));
+            }
+            if (result.getModel() == null && chunk.hasNonNull("model")) {
+                result.setModel(chunk.get("model").asText());
+            }
+        }
+
+        GPTResponse.GPTChoice choice = new GPTResponse.GPTChoice();
+        choice.setIndex(0);
+        choice.setMessage(new GPTMessage("assistant", content.toString()));
+        result.setChoices(List.of(choice));
+        return result;
+    }
+}
@@ -30,4 +30,7 @@ public class ConversationGenerateRequest {
     
     @Schema(description = "현재 사용자 발화", example = "공부한 만큼 결과가 안 나와서 실망이 커요.")
     private String currUser;
+    
+    @Schema(description = "TTS 오디오를 Base64로 응답에 포함할지 여부 (호환 모드). 기본은 audioUrl로 바이너리 스트리밍", example = "false")
+    private Boolean includeAudioBase64;
 }
@@ -23,9 +23,12 @@ public class ConversationGenerateResponse {
     @Schema(description = "저장된 AI 메시지 ID", example = "456")
     private Long savedAIMessageId;
     
-    @Schema(description = "TTS 오디오 데이터 (Base64 인코딩)", example = "UklGRnoGAABXQVZFZm10IBAAAAABAAEA...")
+    @Schema(description = "TTS 오디오 데이터 (Base64 인코딩, includeAudioBase64=true일 때만)", example = "UklGRnoGAABXQVZFZm10IBAAAAABAAEA...")
     private String audioBase64;
     
+    @Schema(description = "TTS 오디오 URL (audio/mpeg 청크 스트리밍, 인증 불필요)", example = "/api/tts/audio/3f2a...")
+    private String audioUrl;
+    
     @Schema(description = "성공 여부", example = "true")
     private Boolean success;
     
@@ -0,0 +1,28 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.chimaenono.dearmind.music.MusicRecommendation;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 한 번의 LLM 호출로 생성한 요약 + 일기 + 음악 추천 묶음
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "일기 번들 생성 결과")
+public class DiaryBundle {
+    
+    @Schema(description = "대화 요약 (JSON 문자열)")
+    private String summary;
+    
+    @Schema(description = "일기 (제목 1줄 + 본문)")
+    private String diary;
+    
+    @Schema(description = "음악 추천 (YouTube 링크 미포함)")
+    private List<MusicRecommendation> music;
+}
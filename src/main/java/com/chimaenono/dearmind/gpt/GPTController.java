@@ -1,10 +1,12 @@
 package com.chimaenono.dearmind.gpt;
 
 import com.chimaenono.dearmind.conversation.ConversationContextService;
+import com.chimaenono.dearmind.conversation.ConversationMemory;
 import com.chimaenono.dearmind.conversationMessage.ConversationMessageResponse;
 import com.chimaenono.dearmind.conversationMessage.ConversationMessageService;
 import com.chimaenono.dearmind.tts.TTSRequest;
 import com.chimaenono.dearmind.tts.TTSService;
+import com.chimaenono.dearmind.tts.TtsAudioLinks;
 import com.chimaenono.dearmind.userEmotionAnalysis.UserEmotionAnalysis;
 import com.chimaenono.dearmind.userEmotionAnalysis.UserEmotionAnalysisRepository;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,8 +17,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import java.util.Map;
 import java.util.HashMap;
@@ -24,6 +31,11 @@ import java.util.Optional;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/gpt")
@@ -31,6 +43,10 @@ import java.util.Arrays;
 @CrossOrigin(origins = "*", allowCredentials = "false")
 public class GPTController {
     
+    private static final long STREAM_TIMEOUT_MS = 120_000L;
+    
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
     @Autowired
     private GPTService gptService;
     
@@ -49,12 +65,30 @@ public class GPTController {
     @Autowired
     private TTSService ttsService;
     
+    @Autowired
+    private TtsAudioLinks audioLinks;
+    
     @Autowired
     private com.chimaenono.dearmind.conversation.ConversationService conversationService;
     
     @Autowired
     private com.chimaenono.dearmind.question.QuestionRepository questionRepository;
     
+    @Autowired
+    private LlmResponseCache llmResponseCache;
+    
+    @Autowired
+    private LlmBatchService llmBatchService;
+    
+    @Autowired
+    private OpenAiRateLimiter rateLimiter;
+    
+    @Autowired
+    private PromptTemplateRegistry promptTemplates;
+    
+    @Autowired
+    private LlmProviderRouter providerRouter;
+    
     @PostMapping("/generate")
     @Operation(summary = "감정 기반 대화 생성", 
                description = "사용자의 감정 분석 결과를 바탕으로 GPT API를 통해 공감적인 대화 응답을 생성합니다.")
@@ -67,126 +101,304 @@ public class GPTController {
     public ResponseEntity<ConversationGenerateResponse> generateConversation(
             @Valid @RequestBody ConversationGenerateRequest request) {
         try {
-            // 1. 대화 컨텍스트 조회
-            var contextResponse = conversationContextService.getConversationContext(request.getConversationMessageId());
-            if (!contextResponse.getSuccess()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(ConversationGenerateResponse.error("대화 컨텍스트를 찾을 수 없습니다: " + contextResponse.getMessage()));
-            }
-            
-            // 2. Conversation 조회
-            Long conversationId = contextResponse.getConversationId();
-            Optional<com.chimaenono.dearmind.conversation.Conversation> conversationOpt = 
-                    conversationService.getConversationById(conversationId);
-            
-            if (conversationOpt.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(ConversationGenerateResponse.error("대화 세션을 찾을 수 없습니다"));
-            }
-            
-            com.chimaenono.dearmind.conversation.Conversation conversation = conversationOpt.get();
-            
-            // 3. topicRoot 조회 (Question에서)
-            String topicRoot = "";
-            Optional<com.chimaenono.dearmind.question.Question> questionOpt = 
-                    questionRepository.findById(conversation.getQuestionId());
-            if (questionOpt.isPresent()) {
-                topicRoot = questionOpt.get().getContent();
-            }
-            
-            // 4. stepIndex 계산 (해당 conversation의 사용자 메시지 수)
-            int stepIndex = conversationMessageService.countUserMessagesByConversationId(conversationId);
-            if (stepIndex == 0) stepIndex = 1; // 최소 1
-            
-            // 5. ruleStep 계산
-            int ruleStep = ((stepIndex - 1) % 3) + 1;
-            
-            // 6. facetHistory 조회
-            List<String> facetHistory = conversation.getFacetHistory();
-            
-            // 7. targetAnchor 조회
-            Map<String, String> targetAnchor = conversation.getTargetAnchor();
-            
-            // 8. 감정 분석 데이터 조회
-            Optional<UserEmotionAnalysis> emotionAnalysisOpt = userEmotionAnalysisRepository
-                    .findByConversationMessageId(request.getConversationMessageId());
-            
-            String emotion = "neutral";
-            Double confidence = 0.5;
-            
-            if (emotionAnalysisOpt.isPresent()) {
-                UserEmotionAnalysis analysis = emotionAnalysisOpt.get();
-                emotion = analysis.getCombinedEmotion() != null ? analysis.getCombinedEmotion() : "neutral";
-                confidence = analysis.getCombinedConfidence() != null ? analysis.getCombinedConfidence() : 0.5;
-            }
+            // 1~8. 대화 컨텍스트/세션/감정 조회
+            TurnState turn = prepareTurn(request.getConversationMessageId());
             
             // 9. GPT API 호출 (새로운 서비스 사용)
             Map<String, Object> gptResponse = gptServiceNew.generateEmotionBasedResponse(
-                    emotion,
-                    confidence,
-                    contextResponse.getPrevUser(),
-                    contextResponse.getPrevSys(),
-                    contextResponse.getCurrUser(),
-                    topicRoot,
-                    stepIndex,
-                    ruleStep,
-                    facetHistory,
-                    targetAnchor
+                    turn.emotion,
+                    turn.confidence,
+                    turn.prevUser,
+                    turn.prevSys,
+                    turn.currUser,
+                    turn.topicRoot,
+                    turn.stepIndex,
+                    turn.ruleStep,
+                    turn.facetHistory,
+                    turn.targetAnchor,
+                    turn.memory,
+                    LlmCallContext.of(LlmCallContext.TURN, turn.conversation.getUserId())
             );
             
-            // 10. 응답에서 데이터 추출
+            // 10~14. 응답 반영 및 AI 메시지 저장
             String aiResponse = (String) gptResponse.get("text");
-            @SuppressWarnings("unchecked")
-            List<String> updatedFacetHistory = (List<String>) gptResponse.get("facet_history");
+            ConversationMessageResponse savedAIMessage = applyTurnResult(turn, gptResponse);
             
-            // 11. step_index=1일 때만 target_anchor 저장
-            if (stepIndex == 1 && gptResponse.containsKey("target_anchor")) {
-                @SuppressWarnings("unchecked")
-                Map<String, String> extractedAnchor = (Map<String, String>) gptResponse.get("target_anchor");
-                conversation.setTargetAnchor(extractedAnchor);
+            // 15. TTS: 기본은 오디오 URL만 돌려주고 클라이언트가 열 때 청크 스트리밍, 호환 모드는 Base64 포함
+            ConversationGenerateResponse response = ConversationGenerateResponse.success(
+                    aiResponse, turn.emotionInfo(), request.getConversationMessageId(), 
+                    savedAIMessage.getId());
+            if (Boolean.TRUE.equals(request.getIncludeAudioBase64())) {
+                response.setAudioBase64(synthesizeAudioBase64(aiResponse));
+            } else {
+                response.setAudioUrl(audioUrlOf(aiResponse));
             }
             
-            // 12. facetHistory 업데이트
-            conversation.setFacetHistory(updatedFacetHistory);
-            
-            // 13. Conversation 저장
-            conversationService.saveConversation(conversation);
-            
-            // 14. AI 응답을 ConversationMessage에 저장
-            ConversationMessageResponse savedAIMessage = conversationMessageService.saveAIMessage(
-                    conversationId, aiResponse);
+            return ResponseEntity.ok(response);
             
-            // 15. TTS 변환 (파일 저장 없이 Base64로 반환)
-            String audioBase64 = null;
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ConversationGenerateResponse.error(e.getMessage()));
+        } catch (LlmBudgetExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(ConversationGenerateResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ConversationGenerateResponse.error("대화 생성 중 오류가 발생했습니다: " + e.getMessage()));
+        }
+    }
+    
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "감정 기반 대화 생성 (SSE 스트리밍)", 
+               description = "GPT 응답을 토큰 단위로 text/event-stream으로 전달합니다. " +
+                             "이벤트: delta(text 조각) → text(완성된 text) → audio(audioUrl, text 직후 전송) → done(facet/anchor 최종 상태) 또는 error. " +
+                             "includeAudioBase64=true면 audio 이벤트는 text 시점에 시작한 TTS의 Base64입니다 (실패 시 생략).")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "스트림 시작"),
+        @ApiResponse(responseCode = "400", description = "잘못된 요청 데이터")
+    })
+    public SseEmitter generateConversationStream(
+            @Valid @RequestBody ConversationGenerateRequest request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        boolean includeAudioBase64 = Boolean.TRUE.equals(request.getIncludeAudioBase64());
+        
+        streamExecutor.execute(() -> {
             try {
-                TTSRequest ttsRequest = new TTSRequest();
-                ttsRequest.setText(aiResponse);
-                ttsRequest.setLanguageCode("ko-KR");
-                ttsRequest.setVoiceName("ko-KR-Wavenet-A");
-                ttsRequest.setAudioEncoding("MP3");
+                TurnState turn = prepareTurn(request.getConversationMessageId());
                 
-                var ttsResponse = ttsService.convertToSpeech(ttsRequest);
-                if (ttsResponse.isSuccess() && ttsResponse.getAudioData() != null) {
-                    // TTSResponse의 audioData는 이미 Base64로 인코딩된 데이터
-                    audioBase64 = ttsResponse.getAudioData();
+                // text 조각을 도착 즉시 전달하고, text가 완성되면 나머지 필드를 기다리지 않고 오디오 URL 전송 (호환 모드는 TTS 시작)
+                AtomicReference<CompletableFuture<String>> audioFuture = new AtomicReference<>();
+                Map<String, Object> gptResponse = gptServiceNew.streamEmotionBasedResponse(
+                        turn.emotion,
+                        turn.confidence,
+                        turn.prevUser,
+                        turn.prevSys,
+                        turn.currUser,
+                        turn.topicRoot,
+                        turn.stepIndex,
+                        turn.ruleStep,
+                        turn.facetHistory,
+                        turn.targetAnchor,
+                        turn.memory,
+                        LlmCallContext.of(LlmCallContext.TURN, turn.conversation.getUserId()),
+                        delta -> sendEvent(emitter, "delta", Map.of("text", delta)),
+                        text -> {
+                            sendEvent(emitter, "text", Map.of("text", text));
+                            if (includeAudioBase64) {
+                                audioFuture.set(CompletableFuture.supplyAsync(
+                                        () -> synthesizeAudioBase64(text), streamExecutor));
+                            } else {
+                                // 나머지 필드를 기다리지 않고 URL을 보내 클라이언트가 바로 재생을 시작하도록 함
+                                sendEvent(emitter, "audio", Map.of("audioUrl", audioUrlOf(text)));
+                                audioFuture.set(CompletableFuture.completedFuture(null));
+                            }
+                        }
+                );
+                
+                String aiResponse = (String) gptResponse.get("text");
+                ConversationMessageResponse savedAIMessage = applyTurnResult(turn, gptResponse);
+                
+                if (audioFuture.get() == null) {
+                    // text 완료 콜백 없이 끝난 경우 (템플릿 응답 등)
+                    if (includeAudioBase64) {
+                        String audioBase64 = synthesizeAudioBase64(aiResponse);
+                        if (audioBase64 != null) {
+                            sendEvent(emitter, "audio", Map.of("audioBase64", audioBase64));
+                        }
+                    } else {
+                        sendEvent(emitter, "audio", Map.of("audioUrl", audioUrlOf(aiResponse)));
+                    }
+                } else if (includeAudioBase64) {
+                    String audioBase64 = audioFuture.get().join();
+                    if (audioBase64 != null) {
+                        sendEvent(emitter, "audio", Map.of("audioBase64", audioBase64));
+                    }
                 }
+                
+                // 마지막 이벤트: facet/anchor 최종 상태
+                Map<String, Object> done = new HashMap<>();
+                done.put("success", true);
+                done.put("aiResponse", aiResponse);
+                done.put("emotionInfo", turn.emotionInfo());
+                done.put("conversationMessageId", request.getConversationMessageId());
+                done.put("savedAIMessageId", savedAIMessage.getId());
+                done.put("stepIndex", turn.stepIndex);
+                done.put("ruleStep", turn.ruleStep);
+                done.put("facet_key_used", gptResponse.get("facet_key_used"));
+                done.put("facet_history", gptResponse.get("facet_history"));
+                done.put("target_anchor", turn.conversation.getTargetAnchor());
+                done.put("next_step_index", gptResponse.get("next_step_index"));
+                sendEvent(emitter, "done", done);
+                
+                emitter.complete();
+                
             } catch (Exception e) {
-                System.err.println("TTS 변환 실패: " + e.getMessage());
-                // TTS 실패해도 GPT 응답은 정상 반환
+                try {
+                    Map<String, Object> error = new HashMap<>();
+                    error.put("success", false);
+                    error.put("message", "대화 생성 중 오류가 발생했습니다: " + e.getMessage());
+                    sendEvent(emitter, "error", error);
+                    emitter.complete();
+                } catch (Exception sendException) {
+                    // 클라이언트 연결이 이미 끊긴 경우
+                    emitter.completeWithError(e);
+                }
+            }
+        });
+        
+        return emitter;
+    }
+    
+    /**
+     * 한 턴 생성에 필요한 상태를 조회합니다 (컨텍스트, 세션, 주제, 스텝, facet/anchor, 감정).
+     * @throws NoSuchElementException 컨텍스트 또는 대화 세션이 없을 때
+     */
+    private TurnState prepareTurn(Long conversationMessageId) {
+        TurnState turn = new TurnState();
+        
+        // 1. 대화 컨텍스트 조회
+        var contextResponse = conversationContextService.getConversationContext(conversationMessageId);
+        if (!contextResponse.getSuccess()) {
+            throw new NoSuchElementException("대화 컨텍스트를 찾을 수 없습니다: " + contextResponse.getMessage());
+        }
+        turn.prevUser = contextResponse.getPrevUser();
+        turn.prevSys = contextResponse.getPrevSys();
+        turn.currUser = contextResponse.getCurrUser();
+        
+        // 2. Conversation 조회
+        Long conversationId = contextResponse.getConversationId();
+        turn.conversation = conversationService.getConversationById(conversationId)
+                .orElseThrow(() -> new NoSuchElementException("대화 세션을 찾을 수 없습니다"));
+        
+        // 3. topicRoot 조회 (Question에서)
+        turn.topicRoot = questionRepository.findById(turn.conversation.getQuestionId())
+                .map(com.chimaenono.dearmind.question.Question::getContent)
+                .orElse("");
+        
+        // 4. stepIndex 계산 (해당 conversation의 사용자 메시지 수)
+        int stepIndex = conversationMessageService.countUserMessagesByConversationId(conversationId);
+        if (stepIndex == 0) stepIndex = 1; // 최소 1
+        turn.stepIndex = stepIndex;
+        
+        // 5. ruleStep 계산
+        turn.ruleStep = ((stepIndex - 1) % 3) + 1;
+        
+        // 6. facetHistory 조회
+        turn.facetHistory = turn.conversation.getFacetHistory();
+        
+        // 7. targetAnchor 조회
+        turn.targetAnchor = turn.conversation.getTargetAnchor();
+        
+        // 7-1. 요약 메모리 조회 (이전 턴 원문 대신 프롬프트에 주입)
+        turn.memory = turn.conversation.getMemory();
+        
+        // 8. 감정 분석 데이터 조회
+        Optional<UserEmotionAnalysis> emotionAnalysisOpt = userEmotionAnalysisRepository
+                .findByConversationMessageId(conversationMessageId);
+        
+        if (emotionAnalysisOpt.isPresent()) {
+            UserEmotionAnalysis analysis = emotionAnalysisOpt.get();
+            turn.emotion = analysis.getCombinedEmotion() != null ? analysis.getCombinedEmotion() : "neutral";
+            turn.confidence = analysis.getCombinedConfidence() != null ? analysis.getCombinedConfidence() : 0.5;
+        }
+        
+        return turn;
+    }
+    
+    /**
+     * GPT 응답을 Conversation(facet/anchor)에 반영하고 AI 메시지를 저장합니다.
+     */
+    private ConversationMessageResponse applyTurnResult(TurnState turn, Map<String, Object> gptResponse) {
+        // 10. 응답에서 데이터 추출
+        String aiResponse = (String) gptResponse.get("text");
+        @SuppressWarnings("unchecked")
+        List<String> updatedFacetHistory = (List<String>) gptResponse.get("facet_history");
+        
+        // 11. step_index=1일 때만 target_anchor 저장
+        if (turn.stepIndex == 1 && gptResponse.containsKey("target_anchor")) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> extractedAnchor = (Map<String, String>) gptResponse.get("target_anchor");
+            turn.conversation.setTargetAnchor(extractedAnchor);
+        }
+        
+        // 12. facetHistory 업데이트
+        turn.conversation.setFacetHistory(updatedFacetHistory);
+        
+        // 12-1. 요약 메모리 갱신 (앵커, 이번 턴 facet, 핵심 사실)
+        ConversationMemory memory = turn.conversation.getMemory();
+        memory.recordTurn(turn.conversation.getTargetAnchor(),
+                (String) gptResponse.get("facet_key_used"),
+                (String) gptResponse.get("memory_fact"));
+        turn.conversation.setMemory(memory);
+        
+        // 13. Conversation 저장
+        conversationService.saveConversation(turn.conversation);
+        
+        // 14. AI 응답을 ConversationMessage에 저장
+        return conversationMessageService.saveAIMessage(turn.conversation.getId(), aiResponse);
+    }
+    
+    /**
+     * AI 응답을 TTS로 변환해 Base64 오디오를 반환합니다. 실패 시 null.
+     */
+    private String synthesizeAudioBase64(String aiResponse) {
+        try {
+            TTSRequest ttsRequest = new TTSRequest();
+            ttsRequest.setText(aiResponse);
+            ttsRequest.setLanguageCode("ko-KR");
+            ttsRequest.setVoiceName("ko-KR-Wavenet-A");
+            ttsRequest.setAudioEncoding("MP3");
+            
+            var ttsResponse = ttsService.convertToSpeech(ttsRequest);
+            if (ttsResponse.isSuccess() && ttsResponse.getAudioData() != null) {
+                // TTSResponse의 audioData는 이미 Base64로 인코딩된 데이터
+                return ttsResponse.getAudioData();
             }
-            
-            String emotionInfo = emotion + " (" + (int)(confidence * 100) + "%)";
-            
-            ConversationGenerateResponse response = ConversationGenerateResponse.success(
-                    aiResponse, emotionInfo, request.getConversationMessageId(), 
-                    savedAIMessage.getId(), audioBase64);
-            
-            return ResponseEntity.ok(response);
-            
         } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ConversationGenerateResponse.error("대화 생성 중 오류가 발생했습니다: " + e.getMessage()));
+            System.err.println("TTS 변환 실패: " + e.getMessage());
+            // TTS 실패해도 GPT 응답은 정상 반환
+        }
+        return null;
+    }
+    
+    /**
+     * AI 응답의 오디오 URL을 발급합니다 (합성은 클라이언트가 URL을 열 때 수행, Base64 경로와 같은 음성 설정).
+     */
+    private String audioUrlOf(String aiResponse) {
+        return audioLinks.register(aiResponse, "ko-KR-Wavenet-A", "1.0", "0.0", "0.0", "mp3");
+    }
+    
+    /**
+     * SSE 이벤트를 전송합니다. 클라이언트 연결이 끊기면 UncheckedIOException으로 생성을 중단합니다.
+     */
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * 한 턴 생성에 필요한 조회 결과
+     */
+    private static class TurnState {
+        private com.chimaenono.dearmind.conversation.Conversation conversation;
+        private String prevUser;
+        private String prevSys;
+        private String currUser;
+        private String topicRoot;
+        private int stepIndex;
+        private int ruleStep;
+        private List<String> facetHistory;
+        private Map<String, String> targetAnchor;
+        private ConversationMemory memory;
+        private String emotion = "neutral";
+        private Double confidence = 0.5;
+        
+        private String emotionInfo() {
+            return emotion + " (" + (int)(confidence * 100) + "%)";
         }
     }
     
@@ -199,6 +411,7 @@ public class GPTController {
     })
     public ResponseEntity<GPTResponse> testGPT(@Valid @RequestBody GPTRequest request) {
         try {
+            request.setCallContext(LlmCallContext.of(LlmCallContext.TEST));
             GPTResponse response = gptService.generateResponse(request);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -238,7 +451,8 @@ public class GPTController {
             // generateEmotionBasedResponse 함수 직접 호출 (테스트용 - 더미 값 사용)
             Map<String, Object> gptResponseMap = gptService.generateEmotionBasedResponse(
                 emotion, confidence, prevUser, prevSys, userText,
-                "테스트 주제", 1, 1, new ArrayList<>(), new HashMap<>()
+                "테스트 주제", 1, 1, new ArrayList<>(), new HashMap<>(), null,
+                LlmCallContext.of(LlmCallContext.TEST)
             );
             String aiResponse = (String) gptResponseMap.get("text");
             
@@ -275,60 +489,11 @@ public class GPTController {
             String summaryJson = (String) request.get("summaryJson");
             String diaryPlanJson = (String) request.get("diaryPlanJson");
             
-            // 프롬프트 구성 (generateAndSaveDiary와 동일한 로직)
-            StringBuilder promptBuilder = new StringBuilder();
-            promptBuilder.append("당신은 회상요법을 돕는 공감형 '일기 작가'입니다.\n");
-            promptBuilder.append("목표: 제공된 요약(JSON)과 DiaryPlan만을 근거로, 한국어 1인칭 과거형 일기를 작성합니다.\n");
-            promptBuilder.append("규칙:\n");
-            promptBuilder.append("- 사실 준수: 요약에 없는 새로운 사실을 만들지 마세요.\n");
-            promptBuilder.append("- 문체: 쉬운 단어, 짧은 문장(한 문장 10~15단어), 과장·훈계 금지.\n");
-            promptBuilder.append("- 구조: 3단락(각 3~4문장). 시작-전환-마무리의 정서 흐름을 DiaryPlan에 맞게 구성.\n");
-            promptBuilder.append("- 정서: DiaryPlan.styleHints(toneStart/mid/end)에 맞는 어조 사용.\n\n");
-            
-            promptBuilder.append("출력 형식:\n");
-            promptBuilder.append("- 제목 1줄 + 본문. JSON 금지, 추가 설명 금지.\n\n");
-            
-            promptBuilder.append("다음 입력으로 일기를 작성하세요.\n\n");
-            
-            promptBuilder.append("[요약(JSON)]\n");
-            promptBuilder.append(summaryJson).append("\n");
-            promptBuilder.append("// 스키마 예시:\n");
-            promptBuilder.append("// {\"meta\":{\"date\":\"2025-09-16\",\"locale\":\"ko-KR\"},\n");
-            promptBuilder.append("//  \"situation\":\"...\",\n");
-            promptBuilder.append("//  \"events\":[\"...\",\"...\",\"...\"],\n");
-            promptBuilder.append("//  \"anchors\":{\"people\":[\"가족\"],\"place\":[\"동네 골목\"],\"era\":\"초등학교 시절\",\"objects\":[\"라디오\"]},\n");
-            promptBuilder.append("//  \"highlights\":{\"best_moment\":\"...\",\"hard_moment\":\"...\",\"insight\":\"...\"},\n");
-            promptBuilder.append("//  \"quotes\":[\"사용자 원문 1문장\"]}\n\n");
-            
-            promptBuilder.append("[DiaryPlan(JSON)]\n");
-            promptBuilder.append(diaryPlanJson).append("\n");
-            promptBuilder.append("// 예시 키: \n");
-            promptBuilder.append("// {\"flowPattern\":\"U-shape\",\n");
-            promptBuilder.append("//  \"opening\":{\"dominant\":\"슬픔\",\"valenceMean\":-0.8},\n");
-            promptBuilder.append("//  \"turningPoint\":{\"turn\":6,\"dominant\":\"불안\"},\n");
-            promptBuilder.append("//  \"closing\":{\"dominant\":\"기쁨\",\"valenceMean\":+0.7},\n");
-            promptBuilder.append("//  \"styleHints\":{\"toneStart\":\"차분·다독임\",\"toneMid\":\"긴장 완화\",\"toneEnd\":\"안도·감사\"}}\n\n");
-            
-            promptBuilder.append("[작성 지침]\n");
-            promptBuilder.append("1) 1단락(시작): summary.situation과 DiaryPlan.opening에 맞춰 사실을 짧게 회고하고 toneStart로 말하세요.\n");
-            promptBuilder.append("2) 2단락(전환): turningPoint 근처 사건/생각을 events·anchors에서 골라 연결하세요. toneMid로 부드럽게 전환을 표현하세요.\n");
-            promptBuilder.append("3) 3단락(마무리): closing에 맞춰 오늘의 깨달음/감사(= summary.highlights.insight/best_moment 활용)를 한두 문장으로 정리하고 toneEnd로 마치세요.\n\n");
-            
-            promptBuilder.append("추가 규칙:\n");
-            promptBuilder.append("- quotes가 있으면 한 문장만 자연스럽게 녹여 쓰되 따옴표는 생략해도 됩니다.\n");
-            promptBuilder.append("- 시대/장소/사람/물건(anchors)은 1~3개만 가볍게 언급.\n");
-            promptBuilder.append("- 감정 용어를 나열하지 말고, 어조로만 드러내세요.\n");
-            
-            // GPT 요청 생성
-            GPTRequest gptRequest = new GPTRequest();
-            gptRequest.setModel("gpt-4o-mini"); // 현재 기본 모델 사용
-            gptRequest.setMax_tokens(600);
-            gptRequest.setTemperature(0.4);
-            gptRequest.setStream(false);
-            
-            // 메시지 구성
-            GPTMessage userMessage = new GPTMessage("user", promptBuilder.toString());
-            gptRequest.setMessages(List.of(userMessage));
+            // 일기 생성과 같은 템플릿으로 요청 구성 (호출 지점만 테스트로 구분)
+            GPTRequest gptRequest = gptService.composeDiaryRequest(null, summaryJson, diaryPlanJson);
+            gptRequest.setCallContext(LlmCallContext.of(LlmCallContext.TEST)
+                    .withPrompt(gptRequest.getCallContext().getPrompt()));
+            String fullPrompt = gptRequest.getMessages().get(0).getContent();
             
             // GPT API 호출
             GPTResponse gptResponse = gptService.generateResponse(gptRequest);
@@ -344,7 +509,8 @@ public class GPTController {
             response.put("diary", diary);
             response.put("summaryJson", summaryJson);
             response.put("diaryPlanJson", diaryPlanJson);
-            response.put("fullPrompt", promptBuilder.toString());
+            response.put("fullPrompt", fullPrompt);
+            response.put("prompt", gptRequest.getCallContext().getPrompt());
             
             return ResponseEntity.ok(response);
             
@@ -377,7 +543,8 @@ public class GPTController {
         try {
             Map<String, Object> gptResponseMap = gptService.generateEmotionBasedResponse(
                 emotion, confidence, prevUser, prevSys, currUser,
-                "테스트 주제", 1, 1, new ArrayList<>(), new HashMap<>()
+                "테스트 주제", 1, 1, new ArrayList<>(), new HashMap<>(), null,
+                LlmCallContext.of(LlmCallContext.TEST)
             );
             String aiResponse = (String) gptResponseMap.get("text");
             
@@ -502,7 +669,9 @@ public class GPTController {
                 stepIndex,
                 ruleStep,
                 facetHistoryList,
-                targetAnchor
+                targetAnchor,
+                null,
+                LlmCallContext.of(LlmCallContext.TEST)
             );
             
             String aiResponse = (String) gptResponseMap.get("text");
@@ -543,4 +712,74 @@ public class GPTController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+    
+    @GetMapping("/cache/stats")
+    @Operation(summary = "LLM 응답 캐시 통계", 
+               description = "요약/음악 추천 등 결정적 LLM 호출 캐시의 계층별 적중/미스 통계를 조회합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "조회 성공")
+    })
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(llmResponseCache.stats());
+    }
+    
+    @GetMapping("/batch/stats")
+    @Operation(summary = "LLM 배치 처리 현황", 
+               description = "배치 모드로 대기/진행 중인 요약·일기 생성 요청 수를 조회합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "조회 성공")
+    })
+    public ResponseEntity<Map<String, Object>> getBatchStats() {
+        return ResponseEntity.ok(llmBatchService.stats());
+    }
+    
+    @GetMapping("/rate-limit/stats")
+    @Operation(summary = "OpenAI 속도 제한 현황", 
+               description = "모델별 RPM/TPM 잔량, 429로 인한 중지 시간, 우선순위별 대기 요청 수를 조회합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "조회 성공")
+    })
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.stats());
+    }
+    
+    @GetMapping("/prompts")
+    @Operation(summary = "프롬프트 템플릿 현황", 
+               description = "템플릿별 버전 목록, 활성 버전, A/B 변형 배정 비율, 슬롯 타입을 조회합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "조회 성공")
+    })
+    public ResponseEntity<Map<String, Object>> getPromptTemplates() {
+        return ResponseEntity.ok(promptTemplates.stats());
+    }
+    
+    @GetMapping("/providers")
+    @Operation(summary = "LLM 제공자 라우팅 현황", 
+               description = "등록된 제공자, 호출 지점별 라우팅, 제공자별 배정 수, 로컬 토큰 한도 초과 및 OpenAI 대체 횟수를 조회합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "조회 성공")
+    })
+    public ResponseEntity<Map<String, Object>> getProviderStats() {
+        return ResponseEntity.ok(providerRouter.stats());
+    }
+    
+    @PostMapping("/prompts/reload")
+    @Operation(summary = "프롬프트 템플릿 다시 읽기", 
+               description = "classpath와 llm.prompts.dir의 템플릿을 즉시 다시 파싱합니다. 오류가 있으면 기존 템플릿을 유지합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "다시 읽기 성공"),
+        @ApiResponse(responseCode = "500", description = "템플릿 오류 (기존 템플릿 유지)")
+    })
+    public ResponseEntity<Map<String, Object>> reloadPromptTemplates() {
+        try {
+            return ResponseEntity.ok(promptTemplates.reload());
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "프롬프트 템플릿 다시 읽기 실패");
+            errorResponse.put("message", e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
 }
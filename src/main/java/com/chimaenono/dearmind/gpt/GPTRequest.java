@@ -1,5 +1,7 @@
 package com.chimaenono.dearmind.gpt;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -8,6 +10,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -31,4 +34,16 @@ public class GPTRequest {
     
     @Schema(description = "스트리밍 여부", example = "false")
     private Boolean stream;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "스트리밍 옵션 (include_usage: 마지막 청크에 토큰 사용량 포함)")
+    private Map<String, Object> stream_options;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "응답 형식 (예: {\"type\": \"json_object\"})")
+    private Map<String, Object> response_format;
+    
+    @JsonIgnore
+    @Schema(hidden = true)
+    private LlmCallContext callContext;
 }
@@ -1,6 +1,7 @@
 package com.chimaenono.dearmind.gpt;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -55,13 +56,41 @@ public class GPTResponse {
     @JsonIgnoreProperties(ignoreUnknown = true)
     @Schema(description = "GPT 사용량 정보")
     public static class GPTUsage {
+        @JsonProperty("prompt_tokens")
         @Schema(description = "프롬프트 토큰 수", example = "10")
         private Integer promptTokens;
         
+        @JsonProperty("completion_tokens")
         @Schema(description = "완료 토큰 수", example = "20")
         private Integer completionTokens;
         
+        @JsonProperty("total_tokens")
         @Schema(description = "총 토큰 수", example = "30")
         private Integer totalTokens;
+        
+        @JsonProperty("prompt_tokens_details")
+        @Schema(description = "프롬프트 토큰 상세 (캐시 적중 토큰 포함)")
+        private PromptTokensDetails promptTokensDetails;
+        
+        /**
+         * 프롬프트 캐시에서 재사용된 토큰 수 (정보가 없으면 0)
+         */
+        public int cachedTokens() {
+            if (promptTokensDetails == null || promptTokensDetails.getCachedTokens() == null) {
+                return 0;
+            }
+            return promptTokensDetails.getCachedTokens();
+        }
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @Schema(description = "프롬프트 토큰 상세")
+    public static class PromptTokensDetails {
+        @JsonProperty("cached_tokens")
+        @Schema(description = "프롬프트 캐시 적중 토큰 수", example = "1024")
+        private Integer cachedTokens;
     }
 }
@@ -4,40 +4,41 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
+import com.chimaenono.dearmind.conversation.ConversationMemory;
 import com.chimaenono.dearmind.conversation.ConversationService;
+import com.chimaenono.dearmind.conversation.ConversationSingleFlight;
 import com.chimaenono.dearmind.conversation.EmotionFlowService;
 import com.chimaenono.dearmind.conversationMessage.ConversationMessage;
 import com.chimaenono.dearmind.userEmotionAnalysis.UserEmotionAnalysis;
 import com.chimaenono.dearmind.userEmotionAnalysis.UserEmotionAnalysisRepository;
 import com.chimaenono.dearmind.music.MusicRecommendation;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import java.net.URI;
-import java.net.http.HttpClient;
 import lombok.extern.slf4j.Slf4j;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.Optional;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 public class GPTService {
     
-    @Value("${openai.api.key}")
-    private String apiKey;
-    
-    @Value("${openai.api.url}")
-    private String apiUrl;
-    
     @Value("${openai.api.model:gpt-4o-mini}")
     private String defaultModel;
     
@@ -47,31 +48,209 @@ public class GPTService {
     @Value("${openai.api.temperature:0.7}")
     private Double defaultTemperature;
     
-    private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
     
+    @Value("${llm.cache.summary-ttl-hours:24}")
+    private long summaryCacheTtlHours;
+    
+    @Value("${llm.cache.music-ttl-hours:168}")
+    private long musicCacheTtlHours;
+    
+    // 대화 기록이 이 토큰 수를 넘으면 구간별 요약 후 병합(map-reduce)
+    @Value("${llm.summary.map-reduce-threshold-tokens:3000}")
+    private int mapReduceThresholdTokens;
+    
+    // map 단계 구간 하나의 최대 토큰 수
+    @Value("${llm.summary.window-tokens:1500}")
+    private int summaryWindowTokens;
+    
+    // 구간 요약 실패 시 재시도 횟수 (모두 실패하면 요약 전체를 실패 처리)
+    @Value("${llm.summary.window-retries:1}")
+    private int summaryWindowRetries;
+    
+    private final ExecutorService summaryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    @Autowired
+    private LlmProviderRouter providerRouter;
+    
+    @Autowired
+    private LlmResponseCache llmResponseCache;
+    
+    @Autowired
+    private LlmTelemetry llmTelemetry;
+    
+    @Autowired
+    private PromptBudgeter promptBudgeter;
+    
+    @Autowired
+    private LlmJsonNormalizer jsonNormalizer;
+    
+    @Autowired
+    private PromptTemplateRegistry promptTemplates;
+    
     @Autowired
     private ConversationService conversationService;
     
     @Autowired
     private EmotionFlowService emotionFlowService;
     
+    @Autowired
+    private ConversationSingleFlight singleFlight;
+    
     @Autowired
     private com.chimaenono.dearmind.diary.DiaryPlanService diaryPlanService;
     
     
     public GPTService() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
         this.objectMapper = new ObjectMapper();
     }
     
     /**
-     * GPT API를 호출하여 응답을 생성합니다.
+     * LLM을 호출하여 응답을 생성합니다 (호출 지점별로 배정된 제공자 사용, 로컬 실패 시 OpenAI로 대체).
      */
     public GPTResponse generateResponse(GPTRequest request) throws Exception {
-        // 기본값 설정
+        applyDefaults(request);
+        if (request.getStream() == null) {
+            request.setStream(false);
+        }
+        LlmProvider provider = providerRouter.assign(request);
+        LlmTelemetry.BudgetReservation budget = llmTelemetry.reserveBudget(request);
+        
+        GPTResponse response = null;
+        try {
+            response = sendWithFallback(provider, request);
+            return response;
+        } finally {
+            // 예약한 추정치를 실제 사용량으로 정산 (실패하면 예약분 반환)
+            llmTelemetry.settleBudget(budget, response);
+        }
+    }
+    
+    /**
+     * 배정된 제공자로 보내고, 실패하면 대체 제공자(OpenAI)로 한 번 더 보냅니다.
+     */
+    private GPTResponse sendWithFallback(LlmProvider provider, GPTRequest request) throws Exception {
+        long startNanos = System.nanoTime();
+        try {
+            GPTResponse response = provider.send(request);
+            llmTelemetry.recordSuccess(request, response, startNanos);
+            return response;
+        } catch (Exception e) {
+            llmTelemetry.recordFailure(request, startNanos);
+            LlmProvider fallback = providerRouter.fallbackFor(request);
+            if (fallback == null) {
+                throw e;
+            }
+            log.warn("{} 제공자 호출 실패, OpenAI로 대체: {}", provider.getName(), e.getMessage());
+            long fallbackStartNanos = System.nanoTime();
+            try {
+                GPTResponse response = fallback.send(request);
+                llmTelemetry.recordSuccess(request, response, fallbackStartNanos);
+                return response;
+            } catch (Exception fallbackError) {
+                llmTelemetry.recordFailure(request, fallbackStartNanos);
+                throw fallbackError;
+            }
+        }
+    }
+    
+    /**
+     * LLM을 스트리밍 모드(stream=true)로 호출합니다.
+     * 토큰 단위 delta가 도착할 때마다 onDelta로 전달하고, 완성된 전체 응답 텍스트를 반환합니다.
+     * 로컬 제공자가 delta를 하나도 보내기 전에 실패한 경우에만 OpenAI로 대체합니다 (중복 출력 방지).
+     */
+    public String streamResponse(GPTRequest request, Consumer<String> onDelta) throws Exception {
+        applyDefaults(request);
+        request.setStream(true);
+        request.setStream_options(Map.of("include_usage", true));
+        LlmProvider provider = providerRouter.assign(request);
+        LlmTelemetry.BudgetReservation budget = llmTelemetry.reserveBudget(request);
+        
+        GPTResponse response = null;
+        try {
+            response = streamWithFallback(provider, request, onDelta);
+            return response.getChoices().get(0).getMessage().getContent();
+        } finally {
+            llmTelemetry.settleBudget(budget, response);
+        }
+    }
+    
+    /**
+     * 배정된 제공자로 스트리밍하고, delta를 하나도 보내기 전에 실패했을 때만 대체 제공자로 다시 스트리밍합니다.
+     */
+    private GPTResponse streamWithFallback(LlmProvider provider, GPTRequest request, Consumer<String> onDelta)
+            throws Exception {
+        boolean[] emitted = {false};
+        Consumer<String> trackingDelta = delta -> {
+            emitted[0] = true;
+            onDelta.accept(delta);
+        };
+        long startNanos = System.nanoTime();
+        try {
+            GPTResponse response = provider.stream(request, trackingDelta);
+            llmTelemetry.recordSuccess(request, response, startNanos);
+            return response;
+        } catch (Exception e) {
+            llmTelemetry.recordFailure(request, startNanos);
+            LlmProvider fallback = emitted[0] ? null : providerRouter.fallbackFor(request);
+            if (fallback == null) {
+                throw e;
+            }
+            log.warn("{} 제공자 스트리밍 실패, OpenAI로 대체: {}", provider.getName(), e.getMessage());
+            long fallbackStartNanos = System.nanoTime();
+            try {
+                GPTResponse response = fallback.stream(request, onDelta);
+                llmTelemetry.recordSuccess(request, response, fallbackStartNanos);
+                return response;
+            } catch (Exception fallbackError) {
+                llmTelemetry.recordFailure(request, fallbackStartNanos);
+                throw fallbackError;
+            }
+        }
+    }
+    
+    /**
+     * 결정적 호출(낮은 temperature)용: 응답 캐시를 먼저 확인하고, 없으면 GPT를 호출한 뒤 캐시에 저장합니다.
+     * @return 첫 번째 선택지의 메시지 내용
+     */
+    public String generateCachedContent(GPTRequest request, String callSite, Duration ttl) throws Exception {
+        applyDefaults(request);
+        request.setStream(false);
+        // 캐시 키가 제공자를 구분하도록 먼저 배정 (generateResponse는 배정된 제공자를 그대로 씀)
+        providerRouter.assign(request);
+        
+        String cacheKey = llmResponseCache.keyOf(request);
+        Optional<String> cached = llmResponseCache.get(cacheKey);
+        if (cached.isPresent()) {
+            log.info("LLM 응답 캐시 적중: callSite={}, key={}", callSite, cacheKey);
+            return cached.get();
+        }
+        
+        GPTResponse gptResponse = generateResponse(request);
+        
+        if (gptResponse.getChoices() == null || gptResponse.getChoices().isEmpty()) {
+            throw new RuntimeException("GPT API 응답에 선택지가 없습니다.");
+        }
+        
+        String content = gptResponse.getChoices().get(0).getMessage().getContent();
+        // 로컬 실패로 OpenAI가 답했으면 요청의 제공자가 바뀌어 있으므로, 실제로 답한 제공자의 키로 저장
+        llmResponseCache.put(llmResponseCache.keyOf(request), callSite, request.getModel(), content, ttl);
+        return content;
+    }
+    
+    /**
+     * 대화 세션의 사용자 ID를 조회합니다 (토큰 예산 적용용, 없으면 null).
+     */
+    private Long userIdOf(Long conversationId) {
+        return conversationService.getConversationById(conversationId)
+                .map(com.chimaenono.dearmind.conversation.Conversation::getUserId)
+                .orElse(null);
+    }
+    
+    /**
+     * 요청에 기본 모델/토큰/온도 값을 채웁니다.
+     */
+    private void applyDefaults(GPTRequest request) {
         if (request.getModel() == null) {
             request.setModel(defaultModel);
         }
@@ -81,31 +260,6 @@ public class GPTService {
         if (request.getTemperature() == null) {
             request.setTemperature(defaultTemperature);
         }
-        if (request.getStream() == null) {
-            request.setStream(false);
-        }
-        
-        // JSON 변환
-        String requestBody = objectMapper.writeValueAsString(request);
-        
-        // HTTP 요청 생성
-        HttpRequest httpRequest = HttpRequest.newBuilder()
-                .uri(URI.create(apiUrl + "/chat/completions"))
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                .timeout(Duration.ofSeconds(60))
-                .build();
-        
-        // API 호출
-        HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() != 200) {
-            throw new RuntimeException("GPT API 호출 실패: " + response.statusCode() + " - " + response.body());
-        }
-        
-        // 응답 파싱
-        return objectMapper.readValue(response.body(), GPTResponse.class);
     }
     
     @Autowired
@@ -127,12 +281,14 @@ public class GPTService {
             int stepIndex,
             int ruleStep,
             List<String> facetHistory,
-            Map<String, String> targetAnchor) throws Exception {
+            Map<String, String> targetAnchor,
+            ConversationMemory memory,
+            LlmCallContext callContext) throws Exception {
         
         // GPTServiceNew에 위임
         return gptServiceNew.generateEmotionBasedResponse(
             emotion, confidence, prevUser, prevSys, currUser,
-            topicRoot, stepIndex, ruleStep, facetHistory, targetAnchor
+            topicRoot, stepIndex, ruleStep, facetHistory, targetAnchor, memory, callContext
         );
     }
     
@@ -140,59 +296,220 @@ public class GPTService {
      * 대화 내용을 요약합니다.
      */
     public String generateConversationSummary(Long conversationId, Integer summaryLength) throws Exception {
-        // 대화 메시지 조회
         List<ConversationMessage> messages = conversationService.getMessagesByConversationId(conversationId);
+        String transcript = buildTranscript(conversationId, messages);
         
-        if (messages.isEmpty()) {
-            throw new RuntimeException("대화 메시지를 찾을 수 없습니다: " + conversationId);
+        // 긴 대화는 구간별 요약 → 병합 → 최종 정리
+        if (promptBudgeter.countTokens(defaultModel, transcript) > mapReduceThresholdTokens) {
+            return generateMapReduceSummary(conversationId, messages);
         }
         
-        // 대화 내용 구성
-        StringBuilder conversationBuilder = new StringBuilder();
+        GPTRequest gptRequest = buildSummaryRequest(conversationId, transcript);
+        
+        // GPT API 호출 (동일 대화 재처리 시 캐시 재사용)
+        return generateCachedSummary(gptRequest);
+    }
+    
+    /**
+     * 요약을 캐시를 거쳐 생성합니다. JSON 객체로 읽히지 않는 응답은 다음 요청이 같은 응답을 받지 않도록 캐시에서 제거합니다.
+     */
+    private String generateCachedSummary(GPTRequest gptRequest) throws Exception {
+        String content = generateCachedContent(gptRequest, "summary", Duration.ofHours(summaryCacheTtlHours));
+        JsonNode summary = jsonNormalizer.parseLenient(content);
+        if (summary == null || !summary.isObject()) {
+            log.warn("요약 응답 JSON을 읽을 수 없어 캐시에서 제거합니다");
+            llmResponseCache.invalidate(llmResponseCache.keyOf(gptRequest));
+        }
+        return content;
+    }
+    
+    /**
+     * 긴 대화를 토큰 구간으로 나눠 병렬로 요약(map)하고, 부분 요약 JSON을 병합(reduce)한 뒤
+     * 짧은 최종 호출로 요약 스키마에 맞게 정리합니다. 구간 수와 무관하게 지연시간은 구간 하나 + 최종 호출 수준입니다.
+     */
+    private String generateMapReduceSummary(Long conversationId, List<ConversationMessage> messages) throws Exception {
+        // 1. 메시지 단위로 구간 분할
+        List<String> windows = new ArrayList<>();
+        StringBuilder window = new StringBuilder();
+        int windowTokens = 0;
         for (ConversationMessage message : messages) {
-            String sender = message.getSenderType() == ConversationMessage.SenderType.USER ? "사용자" : "시스템";
-            conversationBuilder.append(sender).append(": ").append(message.getContent()).append("\n");
-        }
-        
-        // 프롬프트 구성
-        StringBuilder promptBuilder = new StringBuilder();
-        promptBuilder.append("당신은 회상요법을 돕는 '대화 요약가'입니다.\n");
-        promptBuilder.append("목표: 사용자와 AI의 대화 내용을 사실 그대로, 짧고 쉬운 한국어로 요약합니다.\n");
-        promptBuilder.append("금지: 새로운 사실 창작, 평가/훈계, 의학적 조언, 감정 해석·추측, 과장 표현.\n");
-        promptBuilder.append("출력은 지정한 JSON 스키마만 반환합니다(추가 텍스트 금지).\n\n");
-        
-        promptBuilder.append("다음 대화 기록을 요약하세요.\n\n");
-        
-        promptBuilder.append("[요약 규칙]\n");
-        promptBuilder.append("- 길이: 250~350자(한국어), 문장 3~4개.\n");
-        promptBuilder.append("- 시간순 서술(처음→중간→끝).\n");
-        promptBuilder.append("- 사용자가 직접 말한 핵심 사건/생각 3~5개를 선택.\n");
-        promptBuilder.append("- 회상 단서(사람/장소/시대/물건)를 추출.\n");
-        promptBuilder.append("- 대표 인용문은 사용자 발화 중 1문장 이내 1개(없으면 빈 배열).\n");
-        promptBuilder.append("- 감정 흐름이나 해석은 쓰지 말 것(패턴, 분위기, 긍/부정 등 금지).\n\n");
-        
-        promptBuilder.append("[입력]\n");
-        promptBuilder.append("- 대화 기록(최신이 맨 아래):\n");
-        promptBuilder.append(conversationBuilder.toString());
-        promptBuilder.append("\n");
-        
-        promptBuilder.append("[출력 스키마(JSON만)]\n");
-        promptBuilder.append("{\n");
-        promptBuilder.append("  \"situation\": \"대화 주제를 1~2문장으로 사실 위주 요약\",\n");
-        promptBuilder.append("  \"events\": [\"핵심 사건/생각 3~5개(사실만)\"],\n");
-        promptBuilder.append("  \"anchors\": {\n");
-        promptBuilder.append("    \"people\": [\"사람(치환어)\"],\n");
-        promptBuilder.append("    \"place\": [\"장소(치환어)\"],\n");
-        promptBuilder.append("    \"era\": \"연대/시기(가능하면)\",\n");
-        promptBuilder.append("    \"objects\": [\"물건/음식/노래 등(선택)\"]\n");
-        promptBuilder.append("  },\n");
-        promptBuilder.append("  \"highlights\": {\n");
-        promptBuilder.append("    \"best_moment\": \"좋았던 순간(사실 한 줄, 없으면 빈 문자열)\",\n");
-        promptBuilder.append("    \"hard_moment\": \"어려웠던 순간(사실 한 줄, 없으면 빈 문자열)\",\n");
-        promptBuilder.append("    \"insight\": \"사용자가 말한 깨달음/생각(없으면 빈 문자열)\"\n");
-        promptBuilder.append("  },\n");
-        promptBuilder.append("  \"quotes\": [\"사용자 원문 1문장(선택, 최대 1개)\"]\n");
-        promptBuilder.append("}");
+            String line = formatTranscriptLine(message);
+            int lineTokens = promptBudgeter.countTokens(defaultModel, line);
+            if (window.length() > 0 && windowTokens + lineTokens > summaryWindowTokens) {
+                windows.add(window.toString());
+                window.setLength(0);
+                windowTokens = 0;
+            }
+            window.append(line);
+            windowTokens += lineTokens;
+        }
+        if (window.length() > 0) {
+            windows.add(window.toString());
+        }
+        log.info("map-reduce 요약: conversationId={}, messages={}, windows={}", conversationId, messages.size(), windows.size());
+        
+        // 2. map: 구간별 부분 요약을 병렬 생성 (구간 단위로 캐시)
+        List<CompletableFuture<JsonNode>> partials = new ArrayList<>();
+        for (String windowTranscript : windows) {
+            GPTRequest partialRequest = buildSummaryRequest(conversationId, windowTranscript);
+            partials.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return generatePartialSummary(partialRequest);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, summaryExecutor));
+        }
+        
+        // 구간 하나라도 빠지면 대화 일부가 요약에서 사라지므로 재시도 후에도 실패하면 전체를 실패 처리 (상태 ERROR)
+        List<JsonNode> partialSummaries = new ArrayList<>();
+        for (int i = 0; i < partials.size(); i++) {
+            try {
+                partialSummaries.add(partials.get(i).join());
+            } catch (CompletionException e) {
+                partials.forEach(partial -> partial.cancel(true));
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw new RuntimeException("구간 요약 실패 (" + (i + 1) + "/" + partials.size() + "): "
+                        + cause.getMessage(), cause);
+            }
+        }
+        
+        // 3. reduce: 부분 요약 병합
+        String merged = objectMapper.writeValueAsString(mergeSummaries(partialSummaries));
+        
+        // 4. 최종 정리 (병합본은 원문보다 훨씬 짧음)
+        Long userId = userIdOf(conversationId);
+        PromptTemplate template = promptTemplates.select(PromptTemplateRegistry.SUMMARY_MERGE, userId);
+        
+        GPTRequest gptRequest = new GPTRequest();
+        gptRequest.setModel(defaultModel);
+        gptRequest.setMax_tokens(800);
+        gptRequest.setTemperature(0.1);
+        gptRequest.setStream(false);
+        gptRequest.setCallContext(LlmCallContext.of(LlmCallContext.SUMMARY, userId).withPrompt(template.getId()));
+        gptRequest.setMessages(List.of(new GPTMessage("user", template.render(Map.of("merged", merged)))));
+        
+        return generateCachedSummary(gptRequest);
+    }
+    
+    /**
+     * 구간 하나의 부분 요약을 생성합니다. 호출 실패나 읽을 수 없는 JSON이면 window-retries만큼 다시 시도합니다.
+     */
+    private JsonNode generatePartialSummary(GPTRequest request) throws Exception {
+        Exception lastError = null;
+        for (int attempt = 0; attempt <= summaryWindowRetries; attempt++) {
+            try {
+                String content = generateCachedContent(request, "summary", Duration.ofHours(summaryCacheTtlHours));
+                JsonNode partial = jsonNormalizer.parseLenient(content);
+                if (partial != null && partial.isObject()) {
+                    return partial;
+                }
+                // 재시도가 캐시된 같은 응답을 받지 않도록 제거
+                llmResponseCache.invalidate(llmResponseCache.keyOf(request));
+                lastError = new RuntimeException("부분 요약 JSON을 읽을 수 없습니다.");
+            } catch (LlmBudgetExceededException e) {
+                throw e;
+            } catch (Exception e) {
+                lastError = e;
+            }
+            log.warn("부분 요약 실패 ({}/{}): {}", attempt + 1, summaryWindowRetries + 1, lastError.getMessage());
+        }
+        throw lastError;
+    }
+    
+    /**
+     * 부분 요약 JSON들을 하나로 합칩니다.
+     * situation/events는 시간순으로 이어 붙이고, anchors 목록은 중복 제거, era/highlights는 처음 나온 값, quotes는 최대 1개.
+     */
+    private ObjectNode mergeSummaries(List<JsonNode> partials) {
+        List<String> situations = new ArrayList<>();
+        Set<String> events = new LinkedHashSet<>();
+        Map<String, Set<String>> anchorLists = new LinkedHashMap<>();
+        for (String key : List.of("people", "place", "objects")) {
+            anchorLists.put(key, new LinkedHashSet<>());
+        }
+        String era = "";
+        Map<String, String> highlights = new LinkedHashMap<>();
+        for (String key : List.of("best_moment", "hard_moment", "insight")) {
+            highlights.put(key, "");
+        }
+        String quote = null;
+        
+        for (JsonNode partial : partials) {
+            String situation = partial.path("situation").asText("");
+            if (!situation.isBlank()) {
+                situations.add(situation);
+            }
+            partial.path("events").forEach(event -> events.add(event.asText()));
+            
+            JsonNode anchors = partial.path("anchors");
+            for (Map.Entry<String, Set<String>> entry : anchorLists.entrySet()) {
+                anchors.path(entry.getKey()).forEach(value -> entry.getValue().add(value.asText()));
+            }
+            if (era.isBlank()) {
+                era = anchors.path("era").asText("");
+            }
+            
+            for (Map.Entry<String, String> entry : highlights.entrySet()) {
+                if (entry.getValue().isBlank()) {
+                    entry.setValue(partial.path("highlights").path(entry.getKey()).asText(""));
+                }
+            }
+            
+            if (quote == null && partial.path("quotes").size() > 0) {
+                quote = partial.path("quotes").get(0).asText();
+            }
+        }
+        
+        ObjectNode merged = objectMapper.createObjectNode();
+        merged.put("situation", String.join(" ", situations));
+        ArrayNode eventArray = merged.putArray("events");
+        events.forEach(eventArray::add);
+        ObjectNode anchorNode = merged.putObject("anchors");
+        for (Map.Entry<String, Set<String>> entry : anchorLists.entrySet()) {
+            ArrayNode values = anchorNode.putArray(entry.getKey());
+            entry.getValue().forEach(values::add);
+        }
+        anchorNode.put("era", era);
+        ObjectNode highlightNode = merged.putObject("highlights");
+        highlights.forEach(highlightNode::put);
+        ArrayNode quotes = merged.putArray("quotes");
+        if (quote != null) {
+            quotes.add(quote);
+        }
+        return merged;
+    }
+    
+    /**
+     * 대화 요약 요청을 구성합니다 (실시간 호출과 배치 제출이 같은 프롬프트를 사용).
+     */
+    GPTRequest buildSummaryRequest(Long conversationId) {
+        return buildSummaryRequest(conversationId, buildTranscript(conversationId));
+    }
+    
+    private GPTRequest buildSummaryRequest(Long conversationId, String transcript) {
+        GPTRequest gptRequest = composeSummaryRequest(conversationId, transcript);
+        return fitTranscriptToBudget(gptRequest, transcript, LlmCallContext.SUMMARY,
+                fitted -> composeSummaryRequest(conversationId, fitted));
+    }
+    
+    /**
+     * 요청이 호출 지점의 프롬프트 예산을 넘으면 대화 기록의 오래된 줄을 버리고 다시 구성합니다.
+     */
+    private GPTRequest fitTranscriptToBudget(GPTRequest gptRequest, String transcript, String callSite,
+                                             Function<String, GPTRequest> compose) {
+        int excess = promptBudgeter.overBudget(gptRequest, callSite);
+        if (excess <= 0) {
+            return gptRequest;
+        }
+        int transcriptTokens = promptBudgeter.countTokens(gptRequest.getModel(), transcript);
+        String fitted = promptBudgeter.fitTranscript(gptRequest.getModel(), transcript, transcriptTokens - excess);
+        return compose.apply(fitted);
+    }
+    
+    private GPTRequest composeSummaryRequest(Long conversationId, String transcript) {
+        Long userId = userIdOf(conversationId);
+        PromptTemplate template = promptTemplates.select(PromptTemplateRegistry.SUMMARY, userId);
         
         // GPT 요청 생성
         GPTRequest gptRequest = new GPTRequest();
@@ -200,12 +517,45 @@ public class GPTService {
         gptRequest.setMax_tokens(800); // JSON 응답을 위해 토큰 수 증가
         gptRequest.setTemperature(0.1); // 정확한 JSON 형식을 위해 낮은 온도
         gptRequest.setStream(false);
+        gptRequest.setCallContext(LlmCallContext.of(LlmCallContext.SUMMARY, userId).withPrompt(template.getId()));
         
         // 메시지 구성
-        GPTMessage userMessage = new GPTMessage("user", promptBuilder.toString());
+        GPTMessage userMessage = new GPTMessage("user", template.render(Map.of("transcript", transcript)));
         
         gptRequest.setMessages(List.of(userMessage));
         
+        return gptRequest;
+    }
+    
+    /**
+     * 대화 내용을 요약하고 데이터베이스에 저장합니다.
+     */
+    public String generateAndSaveConversationSummary(Long conversationId, Integer summaryLength) throws Exception {
+        // 같은 대화의 요약 생성이 진행 중이면 그 결과를 공유
+        return singleFlight.run(conversationId, ConversationSingleFlight.STAGE_SUMMARY, () -> {
+            // 기본 요약 생성 함수 호출
+            // 코드 펜스/후행 쉼표 등이 섞인 응답은 표준 JSON으로 정리해 저장
+            String summary = jsonNormalizer.normalizeJson(generateConversationSummary(conversationId, summaryLength));
+            
+            // 데이터베이스에 요약 저장
+            conversationService.saveConversationSummary(conversationId, summary);
+            
+            return summary;
+        });
+    }
+    
+    /**
+     * 요약된 대화 내용과 감정 분석 결과를 바탕으로 일기를 생성하고 저장합니다.
+     */
+    public String generateAndSaveDiary(Long conversationId, String summary) throws Exception {
+        // 같은 대화의 일기 생성이 진행 중이면 그 결과를 공유
+        return singleFlight.run(conversationId, ConversationSingleFlight.STAGE_DIARY,
+                () -> doGenerateAndSaveDiary(conversationId, summary));
+    }
+    
+    private String doGenerateAndSaveDiary(Long conversationId, String summary) throws Exception {
+        GPTRequest gptRequest = prepareDiaryRequest(conversationId, summary);
+        
         // GPT API 호출
         GPTResponse gptResponse = generateResponse(gptRequest);
         
@@ -213,26 +563,18 @@ public class GPTService {
             throw new RuntimeException("GPT API 응답에 선택지가 없습니다.");
         }
         
-        return gptResponse.getChoices().get(0).getMessage().getContent();
-    }
-    
-    /**
-     * 대화 내용을 요약하고 데이터베이스에 저장합니다.
-     */
-    public String generateAndSaveConversationSummary(Long conversationId, Integer summaryLength) throws Exception {
-        // 기본 요약 생성 함수 호출
-        String summary = generateConversationSummary(conversationId, summaryLength);
+        String diary = gptResponse.getChoices().get(0).getMessage().getContent();
         
-        // 데이터베이스에 요약 저장
-        conversationService.saveConversationSummary(conversationId, summary);
+        // 데이터베이스에 일기 저장
+        conversationService.saveConversationDiary(conversationId, diary);
         
-        return summary;
+        return diary;
     }
     
     /**
-     * 요약된 대화 내용과 감정 분석 결과를 바탕으로 일기를 생성하고 저장합니다.
+     * 일기 생성 요청을 구성합니다. 감정 흐름 분석 결과도 이 시점에 Conversation에 저장됩니다.
      */
-    public String generateAndSaveDiary(Long conversationId, String summary) throws Exception {
+    GPTRequest prepareDiaryRequest(Long conversationId, String summary) {
         // DiaryPlan 생성
         com.chimaenono.dearmind.diary.DiaryPlan diaryPlan = diaryPlanService.buildDiaryPlan(conversationId);
         log.info("DiaryPlan 생성 완료: conversationId={}, segments={}, pattern={}", 
@@ -241,50 +583,42 @@ public class GPTService {
         // 감정 흐름 분석 결과를 Conversation 테이블에 저장
         emotionFlowService.computeAndSaveFlow(conversationId);
         
-        // 프롬프트 구성
-        StringBuilder promptBuilder = new StringBuilder();
-        promptBuilder.append("당신은 회상요법을 돕는 공감형 '일기 작가'입니다.\n");
-        promptBuilder.append("목표: 제공된 요약(JSON)과 DiaryPlan만을 근거로, 한국어 1인칭 과거형 일기를 작성합니다.\n");
-        promptBuilder.append("규칙:\n");
-        promptBuilder.append("- 사실 준수: 요약에 없는 새로운 사실을 만들지 마세요.\n");
-        promptBuilder.append("- 문체: 쉬운 단어, 짧은 문장(한 문장 20~30단어), 과장·훈계 금지.\n");
-        promptBuilder.append("- 구조: 3단락(각 5~6문장). 시작-전환-마무리의 정서 흐름을 DiaryPlan에 맞게 구성.\n");
-        promptBuilder.append("- 정서: DiaryPlan.styleHints(toneStart/mid/end)에 맞는 어조 사용.\n\n");
-        
-        promptBuilder.append("출력 형식:\n");
-        promptBuilder.append("- 제목 1줄 + 본문. JSON 금지, 추가 설명 금지.\n\n");
-        
-        promptBuilder.append("다음 입력으로 일기를 작성하세요.\n\n");
-        
-        promptBuilder.append("[요약(JSON)]\n");
-        promptBuilder.append(summary).append("\n");
-        promptBuilder.append("// 스키마 예시:\n");
-        promptBuilder.append("// {\"meta\":{\"date\":\"2025-09-16\",\"locale\":\"ko-KR\"},\n");
-        promptBuilder.append("//  \"situation\":\"...\",\n");
-        promptBuilder.append("//  \"events\":[\"...\",\"...\",\"...\"],\n");
-        promptBuilder.append("//  \"anchors\":{\"people\":[\"가족\"],\"place\":[\"동네 골목\"],\"era\":\"초등학교 시절\",\"objects\":[\"라디오\"]},\n");
-        promptBuilder.append("//  \"highlights\":{\"best_moment\":\"...\",\"hard_moment\":\"...\",\"insight\":\"...\"},\n");
-        promptBuilder.append("//  \"quotes\":[\"사용자 원문 1문장\"]}\n\n");
-        
-        promptBuilder.append("[DiaryPlan(JSON)]\n");
-        // TODO: DiaryPlan JSON을 여기에 추가 (현재는 임시로 빈 값)
-        promptBuilder.append("{\"flowPattern\":\"안정형\",\"opening\":{\"dominant\":\"중립\"},\"closing\":{\"dominant\":\"중립\"},\"styleHints\":{\"toneStart\":\"차분한\",\"toneMid\":\"편안한\",\"toneEnd\":\"따뜻한\"}}\n");
-        promptBuilder.append("// 예시 키: \n");
-        promptBuilder.append("// {\"flowPattern\":\"U-shape\",\n");
-        promptBuilder.append("//  \"opening\":{\"dominant\":\"슬픔\",\"valenceMean\":-0.8},\n");
-        promptBuilder.append("//  \"turningPoint\":{\"turn\":6,\"dominant\":\"불안\"},\n");
-        promptBuilder.append("//  \"closing\":{\"dominant\":\"기쁨\",\"valenceMean\":+0.7},\n");
-        promptBuilder.append("//  \"styleHints\":{\"toneStart\":\"차분·다독임\",\"toneMid\":\"긴장 완화\",\"toneEnd\":\"안도·감사\"}}\n\n");
-        
-        promptBuilder.append("[작성 지침]\n");
-        promptBuilder.append("1) 1단락(시작): summary.situation과 DiaryPlan.opening에 맞춰 사실을 짧게 회고하고 toneStart로 말하세요.\n");
-        promptBuilder.append("2) 2단락(전환): turningPoint 근처 사건/생각을 events·anchors에서 골라 연결하세요. toneMid로 부드럽게 전환을 표현하세요.\n");
-        promptBuilder.append("3) 3단락(마무리): closing에 맞춰 오늘의 깨달음/감사(= summary.highlights.insight/best_moment 활용)를 한두 문장으로 정리하고 toneEnd로 마치세요.\n\n");
-        
-        promptBuilder.append("추가 규칙:\n");
-        promptBuilder.append("- quotes가 있으면 한 문장만 자연스럽게 녹여 쓰되 따옴표는 생략해도 됩니다.\n");
-        promptBuilder.append("- 시대/장소/사람/물건(anchors)은 1~3개만 가볍게 언급.\n");
-        promptBuilder.append("- 감정 용어를 나열하지 말고, 어조로만 드러내세요.\n");
+        Long userId = userIdOf(conversationId);
+        GPTRequest gptRequest = composeDiaryRequest(userId, summary, toDiaryPlanJson(diaryPlan));
+        
+        // 예산(diary)을 넘으면 세그먼트를 한 줄씩 두고 오래된 것부터 버림 (요약은 대화 전체를 압축한 것이라 유지)
+        List<com.chimaenono.dearmind.diary.DiaryPlan.DPSeg> segments =
+                diaryPlan.getSegments() != null ? diaryPlan.getSegments() : List.of();
+        return fitTranscriptToBudget(gptRequest, toSegmentLines(segments), LlmCallContext.DIARY, fitted -> {
+            int kept = fitted.isBlank() ? 0 : fitted.split("\n").length;
+            diaryPlan.setSegments(new ArrayList<>(segments.subList(segments.size() - kept, segments.size())));
+            return composeDiaryRequest(userId, summary, toDiaryPlanJson(diaryPlan));
+        });
+    }
+    
+    /**
+     * DiaryPlan 세그먼트를 한 줄에 하나씩 JSON으로 나열합니다 (예산 맞춤용 토큰 계산 단위).
+     */
+    private String toSegmentLines(List<com.chimaenono.dearmind.diary.DiaryPlan.DPSeg> segments) {
+        StringBuilder lines = new StringBuilder();
+        for (com.chimaenono.dearmind.diary.DiaryPlan.DPSeg segment : segments) {
+            try {
+                lines.append(objectMapper.writeValueAsString(segment)).append("\n");
+            } catch (Exception e) {
+                lines.append(segment.getQuote()).append("\n");
+            }
+        }
+        return lines.toString();
+    }
+    
+    /**
+     * 요약과 DiaryPlan(JSON)으로 일기 생성 요청을 구성합니다. 프롬프트 테스트 API도 같은 템플릿을 사용합니다.
+     */
+    GPTRequest composeDiaryRequest(Long userId, String summary, String diaryPlanJson) {
+        PromptTemplate template = promptTemplates.select(PromptTemplateRegistry.DIARY, userId);
+        Map<String, Object> slots = new HashMap<>();
+        slots.put("summary", summary);
+        slots.put("diary_plan", diaryPlanJson);
         
         // GPT 요청 생성
         GPTRequest gptRequest = new GPTRequest();
@@ -292,25 +626,124 @@ public class GPTService {
         gptRequest.setMax_tokens(600); // 3단락 구조의 일기를 위해 토큰 수 증가
         gptRequest.setTemperature(0.4); // 사실 기반 작성을 위해 창의성 낮춤
         gptRequest.setStream(false);
+        gptRequest.setCallContext(LlmCallContext.of(LlmCallContext.DIARY, userId).withPrompt(template.getId()));
         
         // 메시지 구성
-        GPTMessage userMessage = new GPTMessage("user", promptBuilder.toString());
+        GPTMessage userMessage = new GPTMessage("user", template.render(slots));
         
         gptRequest.setMessages(List.of(userMessage));
         
-        // GPT API 호출
+        return gptRequest;
+    }
+    
+    /**
+     * DiaryPlan을 프롬프트용 JSON으로 직렬화합니다 (실패 시 중립 기본값).
+     */
+    private String toDiaryPlanJson(com.chimaenono.dearmind.diary.DiaryPlan diaryPlan) {
+        try {
+            return objectMapper.writeValueAsString(diaryPlan);
+        } catch (Exception e) {
+            // 직렬화 실패 시 기본값 사용
+            return "{\"flowPattern\":\"안정형\",\"opening\":{\"dominant\":\"중립\"},\"closing\":{\"dominant\":\"중립\"},\"styleHints\":{\"toneStart\":\"차분한\",\"toneMid\":\"편안한\",\"toneEnd\":\"따뜻한\"}}";
+        }
+    }
+    
+    /**
+     * 대화 메시지를 "사용자: ... / 시스템: ..." 형식의 기록으로 구성합니다.
+     */
+    private String buildTranscript(Long conversationId) {
+        // 대화 메시지 조회
+        return buildTranscript(conversationId, conversationService.getMessagesByConversationId(conversationId));
+    }
+    
+    private String buildTranscript(Long conversationId, List<ConversationMessage> messages) {
+        if (messages.isEmpty()) {
+            throw new RuntimeException("대화 메시지를 찾을 수 없습니다: " + conversationId);
+        }
+        
+        StringBuilder conversationBuilder = new StringBuilder();
+        for (ConversationMessage message : messages) {
+            conversationBuilder.append(formatTranscriptLine(message));
+        }
+        return conversationBuilder.toString();
+    }
+    
+    private String formatTranscriptLine(ConversationMessage message) {
+        String sender = message.getSenderType() == ConversationMessage.SenderType.USER ? "사용자" : "시스템";
+        return sender + ": " + message.getContent() + "\n";
+    }
+    
+    /**
+     * 요약 + 일기 + 음악 추천을 한 번의 LLM 호출(JSON 출력)로 생성하고, 요약과 일기를 저장합니다.
+     * 음악 추천은 링크 검증이 필요하므로 저장하지 않고 반환만 합니다 (MusicRecommendationService에서 저장).
+     */
+    public DiaryBundle generateAndSaveDiaryBundle(Long conversationId) throws Exception {
+        return singleFlight.run(conversationId, ConversationSingleFlight.STAGE_DIARY_BUNDLE,
+                () -> doGenerateAndSaveDiaryBundle(conversationId));
+    }
+    
+    private DiaryBundle doGenerateAndSaveDiaryBundle(Long conversationId) throws Exception {
+        String transcript = buildTranscript(conversationId);
+        
+        com.chimaenono.dearmind.diary.DiaryPlan diaryPlan = diaryPlanService.buildDiaryPlan(conversationId);
+        emotionFlowService.computeAndSaveFlow(conversationId);
+        
+        String planJson = toDiaryPlanJson(diaryPlan);
+        GPTRequest gptRequest = fitTranscriptToBudget(
+                composeDiaryBundleRequest(conversationId, planJson, transcript), transcript, LlmCallContext.DIARY_BUNDLE,
+                fitted -> composeDiaryBundleRequest(conversationId, planJson, fitted));
+        
         GPTResponse gptResponse = generateResponse(gptRequest);
         
         if (gptResponse.getChoices() == null || gptResponse.getChoices().isEmpty()) {
             throw new RuntimeException("GPT API 응답에 선택지가 없습니다.");
         }
         
-        String diary = gptResponse.getChoices().get(0).getMessage().getContent();
+        String content = gptResponse.getChoices().get(0).getMessage().getContent();
+        JsonNode root = jsonNormalizer.parseLenient(content);
+        if (root == null || !root.isObject()) {
+            throw new RuntimeException("일기 번들 응답 JSON을 읽을 수 없습니다.");
+        }
         
-        // 데이터베이스에 일기 저장
+        JsonNode summaryNode = root.path("summary");
+        String diary = root.path("diary").asText("");
+        if (!summaryNode.isObject() || diary.isBlank()) {
+            throw new RuntimeException("일기 번들 응답에 summary 또는 diary가 없습니다.");
+        }
+        
+        // 분리 저장 (요약은 기존 경로와 같은 JSON 문자열 형태)
+        String summary = objectMapper.writeValueAsString(summaryNode);
+        conversationService.saveConversationSummary(conversationId, summary);
         conversationService.saveConversationDiary(conversationId, diary);
         
-        return diary;
+        List<MusicRecommendation> music = parseMusicRecommendations(content);
+        if (music == null) {
+            music = createDefaultMusicRecommendations();
+        }
+        log.info("일기 번들 생성 완료: conversationId={}, music={}", conversationId, music.size());
+        
+        return new DiaryBundle(summary, diary, music);
+    }
+    
+    private GPTRequest composeDiaryBundleRequest(Long conversationId, String diaryPlanJson, String transcript) {
+        // 프롬프트: 요약 → 일기 → 음악 순으로, 앞 결과를 뒤 단계의 근거로 사용
+        Long userId = userIdOf(conversationId);
+        PromptTemplate template = promptTemplates.select(PromptTemplateRegistry.DIARY_BUNDLE, userId);
+        Map<String, Object> slots = new HashMap<>();
+        slots.put("diary_plan", diaryPlanJson);
+        slots.put("transcript", transcript);
+        
+        // GPT 요청 생성 (요약 800 + 일기 600 + 음악 토큰 합산)
+        GPTRequest gptRequest = new GPTRequest();
+        gptRequest.setModel(defaultModel);
+        gptRequest.setMax_tokens(1600);
+        gptRequest.setTemperature(0.3);
+        gptRequest.setStream(false);
+        gptRequest.setResponse_format(Map.of("type", "json_object"));
+        gptRequest.setCallContext(LlmCallContext.of(LlmCallContext.DIARY_BUNDLE, userId).withPrompt(template.getId()));
+        gptRequest.setMessages(List.of(new GPTMessage("user", template.render(slots))));
+        
+        return gptRequest;
     }
     
     
@@ -321,56 +754,20 @@ public class GPTService {
             com.chimaenono.dearmind.diary.DiaryPlan diaryPlan, 
             com.chimaenono.dearmind.diary.Summary summary) throws Exception {
         
-        // 프롬프트 구성
-        StringBuilder promptBuilder = new StringBuilder();
-        promptBuilder.append("당신은 60–70대 사용자를 위한 '음악 큐레이터'입니다.\n");
-        promptBuilder.append("목표: 주어진 DiaryPlan(정서 아크)과 Summary(내용/시대 단서)만을 근거로, 일기를 읽는 동안 듣기 좋은 음악 1개를 추천합니다.\n\n");
-        
-        promptBuilder.append("규칙:\n");
-        promptBuilder.append("- 감정 매칭: DiaryPlan.flowPattern과 styleHints(toneStart/mid/end), closing.dominant·valenceMean을 우선 반영.\n");
-        promptBuilder.append("- 시대 매칭: \n");
-        promptBuilder.append("  1970~1990년대 국내 가요/포크/발라드/시티팝 또는 동시대 올드팝을 기본 가정.\n");
-        promptBuilder.append("- 청감 안전(시니어 친화): 과도한 고음/소음/급격한 드롭·크레센도·BPM>120 회피. 중간 이하 볼륨, 단순 리듬, 부드러운 음색(피아노·기타·현·재즈 트리오) 우선.\n");
-        promptBuilder.append("- 가사 방해 최소화: 하강/슬픔/상처·불안 톤 구간은 연주곡 우선 권장.\n");
-        promptBuilder.append("- 환각 금지: 존재하지 않는 곡/아티스트명을 만들지 마세요.\n");
-        promptBuilder.append("- 출력은 지정 JSON 스키마만. 링크/설명문 금지.\n\n");
-        
-        promptBuilder.append("감정→음악 매핑 가이드:\n");
-        promptBuilder.append("- closing.dominant가 기쁨: 메이저 감성, 90–110 BPM, 밝은 가요/올드팝.\n");
-        promptBuilder.append("- 슬픔/상처: 60–80 BPM, 피아노/스트링 중심 연주곡, 잔잔한 발라드.\n");
-        promptBuilder.append("- 불안/당황: 앰비언트/뉴에이지/재즈 트리오, 반복적이고 안정적인 패턴.\n");
-        promptBuilder.append("- 분노: 중저음 안정의 어쿠스틱/재즈 발라드(자극 최소).\n");
-        promptBuilder.append("flowPattern이 U-shape면 도입(저각성)→중간(소폭 상승)→끝(안도)로 배치합니다.\n\n");
-        
-        promptBuilder.append("[입력]\n");
-        promptBuilder.append("- DiaryPlan(JSON):\n");
+        Map<String, Object> slots = new HashMap<>();
         try {
-            String diaryPlanJson = objectMapper.writeValueAsString(diaryPlan);
-            promptBuilder.append(diaryPlanJson).append("\n\n");
+            slots.put("diary_plan", objectMapper.writeValueAsString(diaryPlan));
         } catch (Exception e) {
             // 파싱 실패 시 기본값 사용
-            promptBuilder.append("{\"flowPattern\":\"안정형\",\"closing\":{\"dominant\":\"중립\"},\"styleHints\":{\"toneStart\":\"차분한\",\"toneMid\":\"편안한\",\"toneEnd\":\"따뜻한\"}}\n\n");
+            slots.put("diary_plan", "{\"flowPattern\":\"안정형\",\"closing\":{\"dominant\":\"중립\"},\"styleHints\":{\"toneStart\":\"차분한\",\"toneMid\":\"편안한\",\"toneEnd\":\"따뜻한\"}}");
         }
-        
-        promptBuilder.append("- Summary(JSON):\n");
         try {
-            String summaryJson = objectMapper.writeValueAsString(summary);
-            promptBuilder.append(summaryJson).append("\n\n");
+            slots.put("summary", objectMapper.writeValueAsString(summary));
         } catch (Exception e) {
             // 파싱 실패 시 기본값 사용
-            promptBuilder.append("{\"situation\":\"대화 내용 요약\",\"events\":[],\"anchors\":{\"era\":\"1980년대\"},\"highlights\":{},\"quotes\":[]}\n\n");
+            slots.put("summary", "{\"situation\":\"대화 내용 요약\",\"events\":[],\"anchors\":{\"era\":\"1980년대\"},\"highlights\":{},\"quotes\":[]}");
         }
-        
-        promptBuilder.append("[출력 스키마(JSON만)]\n");
-        promptBuilder.append("{\n");
-        promptBuilder.append("  \"recommended_music\": [\n");
-        promptBuilder.append("    {\n");
-        promptBuilder.append("      \"title\": \"노래 제목\",\n");
-        promptBuilder.append("      \"artist\": \"가수 이름\",\n");
-        promptBuilder.append("      \"mood\": \"음악 분위기\"\n");
-        promptBuilder.append("    }\n");
-        promptBuilder.append("  ]\n");
-        promptBuilder.append("}");
+        PromptTemplate template = promptTemplates.get(PromptTemplateRegistry.MUSIC);
         
         // GPT API 호출
         GPTRequest gptRequest = new GPTRequest();
@@ -378,53 +775,92 @@ public class GPTService {
         gptRequest.setMax_tokens(600); // JSON 응답에 최적화
         gptRequest.setTemperature(0.3); // 정확한 아티스트/곡명을 위해 낮춤
         gptRequest.setStream(false);
+        gptRequest.setCallContext(LlmCallContext.of(LlmCallContext.MUSIC).withPrompt(template.getId()));
         
-        GPTMessage userMessage = new GPTMessage("user", promptBuilder.toString());
+        GPTMessage userMessage = new GPTMessage("user", template.render(slots));
         
         gptRequest.setMessages(List.of(userMessage));
         
-        GPTResponse gptResponse = generateResponse(gptRequest);
-        String responseText = gptResponse.getChoices().get(0).getMessage().getContent();
+        // 동일 DiaryPlan/Summary 재요청 시 캐시 재사용
+        String responseText = generateCachedContent(gptRequest, "music", Duration.ofHours(musicCacheTtlHours));
         
         System.out.println("GPT 음악 추천 응답: " + responseText);
         
         // JSON 파싱하여 MusicRecommendation 리스트로 변환
-        return parseMusicRecommendations(responseText);
+        List<MusicRecommendation> recommendations = parseMusicRecommendations(responseText);
+        if (recommendations == null || recommendations.isEmpty()) {
+            // 쓸 수 없는 응답이 캐시에 남으면 재요청해도 같은 결과가 나오므로 제거
+            llmResponseCache.invalidate(llmResponseCache.keyOf(gptRequest));
+        }
+        // 파싱 실패 시 기본 음악 추천 반환
+        return recommendations != null ? recommendations : createDefaultMusicRecommendations();
     }
     
     /**
-     * GPT 응답을 파싱하여 MusicRecommendation 리스트로 변환합니다.
+     * 회상 질문으로 대화를 여는 첫 인사말을 여러 개 생성합니다 (대화 시작 전 미리 만들어 두는 용도).
+     * 인사말 풀 자체가 캐시이므로 응답 캐시는 쓰지 않습니다 (실패한 응답이 캐시되면 재생성해도 같은 결과가 나옴).
+     * 읽을 수 있는 인사말이 없으면 빈 리스트를 반환합니다.
+     */
+    public List<String> generateOpeners(String topicRoot, int count) throws Exception {
+        PromptTemplate template = promptTemplates.get(PromptTemplateRegistry.OPENER);
+        Map<String, Object> slots = new HashMap<>();
+        slots.put("topic_root", topicRoot);
+        slots.put("count", count);
+        
+        GPTRequest gptRequest = new GPTRequest();
+        gptRequest.setModel(defaultModel);
+        gptRequest.setMax_tokens(80 * count);
+        gptRequest.setTemperature(0.9); // 풀 안의 인사말이 서로 다르도록 높게
+        gptRequest.setStream(false);
+        gptRequest.setCallContext(LlmCallContext.of(LlmCallContext.OPENER).withPrompt(template.getId()));
+        gptRequest.setMessages(List.of(new GPTMessage("user", template.render(slots))));
+        
+        GPTResponse gptResponse = generateResponse(gptRequest);
+        if (gptResponse.getChoices() == null || gptResponse.getChoices().isEmpty()) {
+            return List.of();
+        }
+        String responseText = gptResponse.getChoices().get(0).getMessage().getContent();
+        
+        List<String> openers = new ArrayList<>();
+        JsonNode rootNode = jsonNormalizer.parseLenient(responseText);
+        JsonNode openerArray = rootNode != null ? rootNode.get("openers") : null;
+        if (openerArray != null && openerArray.isArray()) {
+            for (JsonNode openerNode : openerArray) {
+                String opener = openerNode.asText("").trim();
+                if (!opener.isBlank() && !openers.contains(opener)) {
+                    openers.add(opener);
+                }
+            }
+        }
+        return openers;
+    }
+    
+    /**
+     * GPT 응답을 파싱하여 MusicRecommendation 리스트로 변환합니다. JSON을 읽을 수 없으면 null을 반환합니다.
      */
     private List<MusicRecommendation> parseMusicRecommendations(String responseText) throws Exception {
         try {
-            // JSON 부분만 추출 (```json ... ``` 형태일 수 있음)
-            String jsonText = responseText;
-            if (responseText.contains("```json")) {
-                int start = responseText.indexOf("```json") + 7;
-                int end = responseText.indexOf("```", start);
-                if (end > start) {
-                    jsonText = responseText.substring(start, end).trim();
-                }
-            } else if (responseText.contains("```")) {
-                int start = responseText.indexOf("```") + 3;
-                int end = responseText.indexOf("```", start);
-                if (end > start) {
-                    jsonText = responseText.substring(start, end).trim();
-                }
+            // 코드 펜스/설명 문구 제거, 후행 쉼표·잘린 출력 등은 로컬에서 복구
+            JsonNode rootNode = jsonNormalizer.parseLenient(responseText);
+            if (rootNode == null) {
+                throw new RuntimeException("음악 추천 JSON을 읽을 수 없습니다.");
             }
-            
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode rootNode = objectMapper.readTree(jsonText);
             JsonNode musicArray = rootNode.get("recommended_music");
             
             List<MusicRecommendation> recommendations = new ArrayList<>();
             
             if (musicArray != null && musicArray.isArray()) {
                 for (JsonNode musicNode : musicArray) {
+                    // 제목/아티스트가 빠진 항목만 버리고 나머지는 사용
+                    String title = musicNode.path("title").asText("");
+                    String artist = musicNode.path("artist").asText("");
+                    if (title.isBlank() || artist.isBlank()) {
+                        continue;
+                    }
                     MusicRecommendation music = new MusicRecommendation();
-                    music.setTitle(musicNode.get("title").asText());
-                    music.setArtist(musicNode.get("artist").asText());
-                    music.setMood(musicNode.get("mood").asText());
+                    music.setTitle(title);
+                    music.setArtist(artist);
+                    music.setMood(musicNode.path("mood").asText(""));
                     // YouTube 링크는 나중에 YouTubeSearchService에서 생성
                     music.setYoutubeLink(null);
                     recommendations.add(music);
@@ -436,9 +872,7 @@ public class GPTService {
         } catch (Exception e) {
             System.err.println("음악 추천 JSON 파싱 오류: " + e.getMessage());
             System.err.println("원본 응답: " + responseText);
-            
-            // 파싱 실패 시 기본 음악 추천 반환
-            return createDefaultMusicRecommendations();
+            return null;
         }
     }
     
@@ -1,12 +1,13 @@
 package com.chimaenono.dearmind.gpt;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.chimaenono.dearmind.conversation.ConversationMemory;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * 새로운 프롬프트 구조를 사용하는 GPT 서비스
@@ -18,13 +19,36 @@ public class GPTServiceNew {
     @Autowired
     private GPTService gptService;
 
-    @Value("${openai.api.model:gpt-4}")
-    private String defaultModel;
+    @Autowired
+    private TurnCircuitBreaker circuitBreaker;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private TurnTemplateEngine templateEngine;
+    
+    @Autowired
+    private LlmJsonNormalizer normalizer;
+    
+    @Autowired
+    private TurnModelRouter modelRouter;
+    
+    @Autowired
+    private PromptBudgeter promptBudgeter;
+    
+    // 고정 규칙(turn_rules)은 슬롯이 없어 같은 버전이면 매 턴 바이트 단위로 동일 (프롬프트 캐시 적중용 선두 메시지)
+    @Autowired
+    private PromptTemplateRegistry promptTemplates;
+    
+    // 감정 매핑 (영어 -> 한국어)
+    private static final Map<String, String> EMOTION_LABELS = Map.of(
+        "joy", "기쁨", "sadness", "슬픔", "anger", "분노",
+        "fear", "불안", "surprise", "당황", "neutral", "중립",
+        "hurt", "상처"
+    );
 
     /**
      * 새로운 프롬프트 구조로 감정 기반 대화 응답을 생성합니다.
+     * memory는 이전 턴들의 요약 메모리(없으면 null)이며, 원문 히스토리 대신 주입되어 프롬프트 크기가 일정합니다.
+     * callContext는 메트릭 태그(call_site)와 사용자별 토큰 예산에 사용됩니다.
      * @return JSON 형태의 응답 (Map<String, Object>)
      */
     public Map<String, Object> generateEmotionBasedResponse(
@@ -37,16 +61,288 @@ public class GPTServiceNew {
             int stepIndex,
             int ruleStep,
             List<String> facetHistory,
-            Map<String, String> targetAnchor) throws Exception {
+            Map<String, String> targetAnchor,
+            ConversationMemory memory,
+            LlmCallContext callContext) throws Exception {
         
-        // 감정 매핑 (영어 -> 한국어)
-        Map<String, String> emotionMapping = Map.of(
-            "joy", "기쁨", "sadness", "슬픔", "anger", "분노",
-            "fear", "불안", "surprise", "당황", "neutral", "중립",
-            "hurt", "상처"
+        GPTRequest gptRequest = buildEmotionBasedRequest(
+            emotion, confidence, prevUser, prevSys, currUser,
+            topicRoot, stepIndex, ruleStep, facetHistory, targetAnchor, memory, callContext
         );
         
-        String emotionLabel = emotionMapping.getOrDefault(emotion, "중립");
+        // 서킷 OPEN: LLM을 호출하지 않고 템플릿 응답
+        if (!circuitBreaker.allowRequest()) {
+            return templateResponse(emotion, confidence, stepIndex, ruleStep, facetHistory,
+                    currUser, targetAnchor);
+        }
+        
+        // GPTService의 generateResponse 메서드 사용
+        GPTResponse gptResponse;
+        long startNanos = System.nanoTime();
+        try {
+            gptResponse = gptService.generateResponse(gptRequest);
+            circuitBreaker.recordSuccess();
+            recordRouterOutcome(gptRequest, startNanos, true);
+        } catch (LlmBudgetExceededException e) {
+            circuitBreaker.recordIgnored(); // 제공자 장애가 아님
+            throw e;
+        } catch (Exception e) {
+            recordTurnFailure(gptRequest, startNanos, e);
+            log.warn("GPT 턴 호출 실패, 템플릿 응답으로 대체: {}", e.getMessage());
+            return templateResponse(emotion, confidence, stepIndex, ruleStep, facetHistory,
+                    currUser, targetAnchor);
+        }
+        
+        // 응답 텍스트 추출 및 JSON 파싱
+        String rawResponse = gptResponse.getChoices().get(0).getMessage().getContent();
+        
+        log.info("GPT 원본 응답: {}", rawResponse);
+        logUsage(gptResponse);
+        
+        return parseTurnResponse(rawResponse, emotion, confidence, stepIndex, ruleStep, facetHistory,
+                currUser, targetAnchor);
+    }
+    
+    /**
+     * 감정 기반 대화 응답을 스트리밍으로 생성합니다.
+     * 응답 JSON의 "text" 값을 디코딩된 조각 단위로 onTextDelta에 전달하고,
+     * "text"가 닫히는 즉시 onTextComplete를 호출합니다 (나머지 facet 필드 수신 전 TTS 시작용).
+     * 완료 후 파싱된 JSON을 반환합니다.
+     * @return JSON 형태의 응답 (Map<String, Object>)
+     */
+    public Map<String, Object> streamEmotionBasedResponse(
+            String emotion, 
+            Double confidence, 
+            String prevUser, 
+            String prevSys, 
+            String currUser,
+            String topicRoot,
+            int stepIndex,
+            int ruleStep,
+            List<String> facetHistory,
+            Map<String, String> targetAnchor,
+            ConversationMemory memory,
+            LlmCallContext callContext,
+            Consumer<String> onTextDelta,
+            Consumer<String> onTextComplete) throws Exception {
+        
+        GPTRequest gptRequest = buildEmotionBasedRequest(
+            emotion, confidence, prevUser, prevSys, currUser,
+            topicRoot, stepIndex, ruleStep, facetHistory, targetAnchor, memory, callContext
+        );
+        
+        // 서킷 OPEN: 템플릿 응답을 한 번에 전달
+        if (!circuitBreaker.allowRequest()) {
+            return emitTemplateResponse(emotion, confidence, stepIndex, ruleStep, facetHistory,
+                    currUser, targetAnchor, onTextDelta, onTextComplete);
+        }
+        
+        TurnResponseStreamParser parser = new TurnResponseStreamParser(onTextDelta, onTextComplete);
+        String rawResponse;
+        long startNanos = System.nanoTime();
+        try {
+            rawResponse = gptService.streamResponse(gptRequest, parser::feed);
+            circuitBreaker.recordSuccess();
+            recordRouterOutcome(gptRequest, startNanos, true);
+        } catch (LlmBudgetExceededException e) {
+            circuitBreaker.recordIgnored(); // 제공자 장애가 아님
+            throw e;
+        } catch (Exception e) {
+            recordTurnFailure(gptRequest, startNanos, e);
+            // 이미 일부 text를 보낸 뒤라면 템플릿을 덧붙이지 않고 실패 처리
+            if (!parser.getText().isEmpty()) {
+                throw e;
+            }
+            log.warn("GPT 턴 스트리밍 실패, 템플릿 응답으로 대체: {}", e.getMessage());
+            return emitTemplateResponse(emotion, confidence, stepIndex, ruleStep, facetHistory,
+                    currUser, targetAnchor, onTextDelta, onTextComplete);
+        }
+        
+        log.info("GPT 원본 응답(스트리밍): {}", rawResponse);
+        
+        Map<String, Object> parsed = normalizer.normalizeTurn(rawResponse, stepIndex, ruleStep, facetHistory);
+        String streamedText = parser.getText();
+        if (!streamedText.isBlank()) {
+            // 클라이언트가 받은 text(오디오 URL도 이 text로 발급)를 그대로 유지하고 나머지 필드만 복구.
+            // 템플릿으로 바꾸면 delta/text 이벤트가 두 번 나가므로 대체하지 않음
+            if (parsed == null) {
+                Map<String, Object> streamedTurn = new HashMap<>();
+                streamedTurn.put("text", streamedText);
+                return normalizer.normalizeTurn(streamedTurn, stepIndex, ruleStep, facetHistory);
+            }
+            parsed.put("text", streamedText);
+            return parsed;
+        }
+        if (parsed == null) {
+            log.warn("턴 응답을 복구할 수 없어 템플릿 응답으로 대체합니다.");
+            return emitTemplateResponse(emotion, confidence, stepIndex, ruleStep, facetHistory,
+                    currUser, targetAnchor, onTextDelta, onTextComplete);
+        }
+        // text 필드 없이 끝난 응답(산문 등)은 스트리밍된 조각이 없으므로 한 번에 전달
+        String text = (String) parsed.get("text");
+        onTextDelta.accept(text);
+        onTextComplete.accept(text);
+        return parsed;
+    }
+    
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 턴 호출 실패를 서킷/라우터에 기록합니다. 템플릿으로 대체해도 되는 실패면 그대로 반환하고, 아니면 다시 던집니다.
+     * - 제공자 장애(네트워크·타임아웃, 5xx, 429): 서킷 실패 + 라우터 오류
+     * - bulkhead/속도 제한 대기 초과: 서킷에서는 제외하지만 모델 과부하 신호이므로 라우터 오류로 기록
+     * - 인터럽트: 인터럽트 상태를 복원하고 다시 던짐
+     * - 그 밖의 예외(요청 생성 오류 등): 제공자 탓이 아니므로 서킷에서 제외하고 다시 던짐
+     */
+    private void recordTurnFailure(GPTRequest gptRequest, long startNanos, Exception e) throws Exception {
+        if (isProviderFailure(e)) {
+            circuitBreaker.recordFailure();
+            recordRouterOutcome(gptRequest, startNanos, false);
+            return;
+        }
+        circuitBreaker.recordIgnored();
+        if (e instanceof LlmSaturatedException) {
+            recordRouterOutcome(gptRequest, startNanos, false);
+            return;
+        }
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        throw e;
+    }
+    
+    private static boolean isProviderFailure(Exception e) {
+        // HttpTimeoutException·연결 실패·응답 본문 파싱 실패는 모두 IOException
+        return e instanceof IOException
+                || (e instanceof LlmProviderException providerError && providerError.isProviderFault());
+    }
+    
+    /**
+     * 모델 라우터의 지연/오류 통계는 OpenAI 모델 기준이므로 로컬 제공자가 처리한 턴은 기록하지 않습니다.
+     */
+    private void recordRouterOutcome(GPTRequest gptRequest, long startNanos, boolean success) {
+        LlmCallContext context = gptRequest.getCallContext();
+        if (context == null || context.getProvider() == null || LlmProvider.OPENAI.equals(context.getProvider())) {
+            modelRouter.recordOutcome(gptRequest.getModel(), elapsedMs(startNanos), success);
+        }
+    }
+    
+    /**
+     * 템플릿 응답을 생성해 스트리밍 콜백으로 한 번에 전달합니다.
+     */
+    private Map<String, Object> emitTemplateResponse(String emotion, Double confidence, int stepIndex, int ruleStep,
+                                                     List<String> facetHistory, String currUser,
+                                                     Map<String, String> targetAnchor,
+                                                     Consumer<String> onTextDelta, Consumer<String> onTextComplete) {
+        Map<String, Object> fallback = templateResponse(emotion, confidence, stepIndex, ruleStep, facetHistory,
+                currUser, targetAnchor);
+        String text = (String) fallback.get("text");
+        onTextDelta.accept(text);
+        onTextComplete.accept(text);
+        return fallback;
+    }
+    
+    /**
+     * 로컬 템플릿 엔진으로 턴 응답을 생성합니다 (LLM 장애/서킷 OPEN 시).
+     */
+    private Map<String, Object> templateResponse(String emotion, Double confidence, int stepIndex, int ruleStep,
+                                                 List<String> facetHistory, String currUser,
+                                                 Map<String, String> targetAnchor) {
+        String emotionLabel = EMOTION_LABELS.getOrDefault(emotion, "중립");
+        double conf = confidence != null ? confidence : 0.5;
+        log.info("템플릿 턴 응답 사용: circuit={}, emotion={}, ruleStep={}", circuitBreaker.getState(), emotionLabel, ruleStep);
+        return templateEngine.render(emotionLabel, conf, stepIndex, ruleStep, facetHistory, currUser, targetAnchor);
+    }
+    
+    /**
+     * 토큰 사용량과 프롬프트 캐시 적중 토큰(cached_tokens)을 기록합니다.
+     */
+    private void logUsage(GPTResponse gptResponse) {
+        GPTResponse.GPTUsage usage = gptResponse.getUsage();
+        if (usage == null) {
+            return;
+        }
+        log.info("턴 토큰 사용량: prompt={}, cached={}, completion={}",
+                usage.getPromptTokens(), usage.cachedTokens(), usage.getCompletionTokens());
+    }
+    
+    /**
+     * 턴 응답을 스키마에 맞게 정규화·복구합니다. 복구할 수 없으면 재호출 없이 템플릿 응답으로 대체합니다.
+     */
+    private Map<String, Object> parseTurnResponse(String rawResponse, String emotion, Double confidence,
+                                                  int stepIndex, int ruleStep, List<String> facetHistory,
+                                                  String currUser, Map<String, String> targetAnchor) {
+        Map<String, Object> parsed = normalizer.normalizeTurn(rawResponse, stepIndex, ruleStep, facetHistory);
+        if (parsed == null) {
+            log.warn("턴 응답을 복구할 수 없어 템플릿 응답으로 대체합니다.");
+            return templateResponse(emotion, confidence, stepIndex, ruleStep, facetHistory,
+                    currUser, targetAnchor);
+        }
+        return parsed;
+    }
+    
+    /**
+     * 감정 기반 대화용 GPT 요청을 구성하고, 턴 프롬프트 예산을 넘으면 이전 턴 문맥(prev_system → prev_user)을 잘라 맞춥니다.
+     */
+    private GPTRequest buildEmotionBasedRequest(
+            String emotion, 
+            Double confidence, 
+            String prevUser, 
+            String prevSys, 
+            String currUser,
+            String topicRoot,
+            int stepIndex,
+            int ruleStep,
+            List<String> facetHistory,
+            Map<String, String> targetAnchor,
+            ConversationMemory memory,
+            LlmCallContext callContext) {
+        
+        GPTRequest gptRequest = composeEmotionBasedRequest(
+            emotion, confidence, prevUser, prevSys, currUser,
+            topicRoot, stepIndex, ruleStep, facetHistory, targetAnchor, memory, callContext
+        );
+        
+        int excess = promptBudgeter.overBudget(gptRequest, LlmCallContext.TURN);
+        if (excess <= 0) {
+            return gptRequest;
+        }
+        
+        String model = gptRequest.getModel();
+        String trimmedSys = promptBudgeter.shrink(model, prevSys, excess);
+        int remaining = excess - (promptBudgeter.countTokens(model, prevSys) - promptBudgeter.countTokens(model, trimmedSys));
+        String trimmedUser = promptBudgeter.shrink(model, prevUser, remaining);
+        log.info("턴 프롬프트 예산 초과로 이전 턴 문맥을 줄입니다: excess={} tokens", excess);
+        
+        GPTRequest trimmed = composeEmotionBasedRequest(
+            emotion, confidence, trimmedUser, trimmedSys, currUser,
+            topicRoot, stepIndex, ruleStep, facetHistory, targetAnchor, memory, callContext
+        );
+        trimmed.setModel(model);
+        return trimmed;
+    }
+    
+    /**
+     * 감정 기반 대화용 GPT 요청(시스템 프롬프트 + 사용자 지시)을 구성합니다.
+     * 고정 규칙(turn_rules)과 런타임 상태(turn_state)는 템플릿 저장소에서 사용자별로 배정된 버전을 씁니다.
+     */
+    private GPTRequest composeEmotionBasedRequest(
+            String emotion, 
+            Double confidence, 
+            String prevUser, 
+            String prevSys, 
+            String currUser,
+            String topicRoot,
+            int stepIndex,
+            int ruleStep,
+            List<String> facetHistory,
+            Map<String, String> targetAnchor,
+            ConversationMemory memory,
+            LlmCallContext callContext) {
+        
+        String emotionLabel = EMOTION_LABELS.getOrDefault(emotion, "중립");
         double conf = confidence;
         
         // facetHistory가 null이면 빈 리스트로 초기화
@@ -59,170 +355,60 @@ public class GPTServiceNew {
             targetAnchor = new HashMap<>();
         }
         
-        // 새로운 프롬프트 구성
-        StringBuilder promptBuilder = new StringBuilder();
-        
-        promptBuilder.append("[역할]\n");
-        promptBuilder.append("당신은 시니어와 대화하는 \"회상 대화 코치\"이자 첫 턴의 \"소재 추출기\"입니다.\n");
-        promptBuilder.append("아주 짧고 쉬운 말로 말합니다.\n\n");
-        
-        promptBuilder.append("[주제]\n");
-        promptBuilder.append("topic_root = \"").append(topicRoot).append("\"\n\n");
-        
-        promptBuilder.append("[모드 전환]\n");
-        promptBuilder.append("- 모든 턴의 출력은 JSON 한 덩어리입니다.\n");
-        promptBuilder.append("- step_index=1에서는 소재 추출을 추가로 수행합니다.\n\n");
-        
-        promptBuilder.append("[상태 입력(런타임)]\n");
-        promptBuilder.append("- step_index: ").append(stepIndex).append("\n");
-        promptBuilder.append("- rule_step: ").append(ruleStep).append("        // 서버가 계산해 주입. LLM은 절대 추정/변경 금지.\n");
-        promptBuilder.append("- topic_root: \"").append(topicRoot).append("\"\n");
-        promptBuilder.append("- curr_user: \"").append(currUser).append("\"\n");
-        if (prevUser != null && !prevUser.trim().isEmpty()) {
-            promptBuilder.append("- prev_user: \"").append(prevUser).append("\"\n");
-        }
-        if (prevSys != null && !prevSys.trim().isEmpty()) {
-            promptBuilder.append("- prev_system: \"").append(prevSys).append("\"\n");
-        }
-        promptBuilder.append("- emotion_label: \"").append(emotionLabel).append("\"\n");
-        promptBuilder.append("- confidence: ").append(conf).append("\n");
-        if (!targetAnchor.isEmpty()) {
-            promptBuilder.append("- target_anchor: {type: \"").append(targetAnchor.get("type"))
-                    .append("\", text: \"").append(targetAnchor.get("text")).append("\"}\n");
-        }
-        promptBuilder.append("- facet_history: ").append(facetHistory.toString()).append("\n\n");
-        
-        promptBuilder.append("[스텝 매핑]\n");
-        promptBuilder.append("- rule_step 값은 입력으로 제공되며, 이 턴의 질문 규칙은 반드시 rule_step에 따릅니다.\n");
-        promptBuilder.append("  * rule_step=1 → 장면: where | who | when | activity\n");
-        promptBuilder.append("  * rule_step=2 → 하이라이트: moment | quote | object_sense | action_expr\n");
-        promptBuilder.append("  * rule_step=3 → 의미: feeling | meaning | impact\n");
-        promptBuilder.append("- LLM은 rule_step를 절대 재계산/추정하지 않습니다.\n\n");
-        
-        promptBuilder.append("[step_index=1 전용]\n");
-        promptBuilder.append("- curr_user에서 topic_root에 가장 맞는 target_anchor 1개를 추출합니다.\n");
-        promptBuilder.append("     - 우선순위(동점이면 감정 강도 높은 쪽):\n");
-        promptBuilder.append("       ① 구체명사/고유명사(사람·장소·이벤트·시간점·사물)\n");
-        promptBuilder.append("       ② 장면 복원이 쉬운 것(사람/장소/이벤트)\n");
-        promptBuilder.append("       ③ 주제와 직접 연결(키워드/의미)\n");
-        promptBuilder.append("- 같은 응답에서 rule_step=1(장면) 규칙으로 문장형을 생성합니다.\n");
-        promptBuilder.append("- 출력 JSON에 target_anchor를 포함합니다.\n");
-        promptBuilder.append("- 이 턴에서 추출한 target_anchor는 이후 턴에서 변경·재명명 금지(사용자 명시 선택/전환 단계 제외).\n\n");
-        
-        promptBuilder.append("[문장형 출력 규칙]\n");
-        promptBuilder.append("- 감정별 줄 수:\n");
-        promptBuilder.append("  * emotion_label == \"기쁨\" → 정확히 3줄\n");
-        promptBuilder.append("  * 그 외(불안·당황·분노·슬픔·상처) → 정확히 4줄\n");
-        promptBuilder.append("- 각 줄 1문장, 6~18글자 권장, 전체 100~120자 이내.\n");
-        promptBuilder.append("- 숫자/괄호/레이블/콜론 금지(예: \"1)\", \"선택지:\", \":\").\n");
-        promptBuilder.append("- 질문은 정확히 1줄(보통 2줄 또는 3줄).\n");
-        promptBuilder.append("- 존댓말만. 의학 조언/훈계/새 사실 창작 금지.\n\n");
-        
-        promptBuilder.append("[감정·신뢰도 규칙]\n");
-        promptBuilder.append("- conf ≥ 0.7: 단정 어조(\"~하셨겠어요.\")\n");
-        promptBuilder.append("- 0.4 ≤ conf < 0.7: 추정+확인(\"맞을까요?\")\n");
-        promptBuilder.append("- conf < 0.4: 중립+열어두기(\"여러 감정이 오갔을 듯해요.\")\n\n");
-        
-        promptBuilder.append("[줄 구조]\n");
-        promptBuilder.append("- emotion_label == \"기쁨\":\n");
-        promptBuilder.append("  1) 공감+지지 1문장(감정 직호명 포함·밝게)\n");
-        promptBuilder.append("  2) 공감 보강 1문장(확장 어휘: 사람/장소)\n");
-        promptBuilder.append("  3) 회상질문 1문장(앵커 하위 한 요소)\n\n");
-        promptBuilder.append("- emotion_label ∈ {불안, 당황, 분노, 슬픔, 상처}:\n");
-        promptBuilder.append("  1) 공감+지지 1문장(감정 직호명 포함)\n");
-        promptBuilder.append("  2) 공감 보강 1문장(안전/정리/존중 톤)\n");
-        promptBuilder.append("  3) 회상질문 1문장(앵커 하위 한 요소; 한 축만)\n");
-        promptBuilder.append("  4) 격려 1문장(안심·지속 의지, 멈춤/중단 뉘앙스 금지)\n\n");
-        
-        promptBuilder.append("[출력(JSON) 형태]\n");
-        promptBuilder.append("{\n");
-        promptBuilder.append("  \"text\": \"<문장형 응답>\",\n");
-        promptBuilder.append("  \"facet_key_used\": \"<enum>\",\n");
-        promptBuilder.append("  \"facet_history\": [\"...\",\"...\"],\n");
-        promptBuilder.append("  \"next_step_index\": <step_index + 1>");
-        if (stepIndex == 1) {
-            promptBuilder.append(",\n  \"target_anchor\": {\n");
-            promptBuilder.append("    \"type\": \"person|event|timepoint|place|object|activity|quote|lesson\",\n");
-            promptBuilder.append("    \"text\": \"<핵심 소재 원문>\"\n");
-            promptBuilder.append("  }");
-        }
-        promptBuilder.append("\n}\n\n");
-        
-        promptBuilder.append("**[CRITICAL: facet_key_used 선택 규칙]**\n");
-        promptBuilder.append("현재 rule_step=").append(ruleStep).append("이므로, facet_key_used는 **반드시** 아래 중 하나여야 합니다:\n");
-        if (ruleStep == 1) {
-            promptBuilder.append("→ where | who | when | activity (이 4개 중 1개만 가능)\n");
-            promptBuilder.append("→ 현재 facet_history=").append(facetHistory.toString()).append("\n");
-            promptBuilder.append("→ 이 중에서 facet_history에 **없는** 키를 우선 선택하세요.\n");
-            promptBuilder.append("→ 4개가 모두 facet_history에 있으면, 아무거나 재사용 가능 (단, 이전 질문과 다른 표현으로).\n");
-        } else if (ruleStep == 2) {
-            promptBuilder.append("→ moment | quote | object_sense | action_expr (이 4개 중 1개만 가능)\n");
-            promptBuilder.append("→ 현재 facet_history=").append(facetHistory.toString()).append("\n");
-            promptBuilder.append("→ 이 중에서 facet_history에 **없는** 키를 우선 선택하세요.\n");
-            promptBuilder.append("→ 4개가 모두 facet_history에 있으면, 아무거나 재사용 가능 (단, 이전 질문과 다른 표현으로).\n");
-        } else if (ruleStep == 3) {
-            promptBuilder.append("→ feeling | meaning | impact (이 3개 중 1개만 가능)\n");
-            promptBuilder.append("→ 현재 facet_history=").append(facetHistory.toString()).append("\n");
-            promptBuilder.append("→ 이 중에서 facet_history에 **없는** 키를 우선 선택하세요.\n");
-            promptBuilder.append("→ 3개가 모두 facet_history에 있으면, 아무거나 재사용 가능 (단, 이전 질문과 다른 표현으로).\n");
-        }
-        promptBuilder.append("**절대 rule_step에 맞지 않는 키를 사용하지 마세요!**\n\n");
-        
-        promptBuilder.append("- facet_history에는 입력받은 facet_history 배열에 이번 턴의 facet_key_used를 추가한 **최신 배열**을 넣는다.\n");
-        if (stepIndex >= 2) {
-            promptBuilder.append("- step_index ≥ 2의 모든 질문은 입력으로 받은 target_anchor만 참조합니다(재명명·교체 금지).\n");
-            promptBuilder.append("- step_index ≥ 2에서는 target_anchor 필드를 절대 출력하지 않는다(서버가 유지).\n");
-        }
-        promptBuilder.append("\n");
-        
-        promptBuilder.append("[3-스텝 질문 규칙(앵커 타입별 하위 축)]\n");
-        promptBuilder.append("- rule_step=1 (장면 잡기):\n");
-        promptBuilder.append("  - person  → 어디/언제/함께한 사람(관계) 중 1\n");
-        promptBuilder.append("  - event   → 어디/누구/언제 중 1\n");
-        promptBuilder.append("  - place   → 언제/누구/무엇(활동) 중 1\n");
-        promptBuilder.append("  - timepoint → 어디/누구/무엇 중 1\n");
-        promptBuilder.append("  - object  → 어디서 받음/누가 줌 중 1\n");
-        promptBuilder.append("  - activity→ 어디/누구와 중 1\n");
-        promptBuilder.append("  - quote   → 어디서 들음/누가 말함 중 1\n");
-        promptBuilder.append("  - lesson  → 어떤 일에서 배움 중 1\n");
-        promptBuilder.append("- rule_step=2 (하이라이트):\n");
-        promptBuilder.append("  - person/event/place/timepoint → 가장 기억 남는 순간/한마디/표정·행동 중 1\n");
-        promptBuilder.append("  - object → 가장 기억 남는 모습/색·감각/쓴 순간 중 1\n");
-        promptBuilder.append("  - activity → 가장 기억 남는 장면/느낌/함께한 사람 중 1\n");
-        promptBuilder.append("  - quote → 그 말이 남긴 장면/상황 중 1\n");
-        promptBuilder.append("  - lesson → 배움이 드러난 순간/사건 중 1\n");
-        promptBuilder.append("- rule_step=3 (의미·여운):\n");
-        promptBuilder.append("  - 모든 타입 공통 → 지금 마음에 남는 느낌/의미 1\n\n");
-        
+        if (callContext == null) {
+            callContext = LlmCallContext.of(LlmCallContext.TURN);
+        }
+        PromptTemplate rulesTemplate = promptTemplates.select(PromptTemplateRegistry.TURN_RULES, callContext.getUserId());
+        PromptTemplate stateTemplate = promptTemplates.select(PromptTemplateRegistry.TURN_STATE, callContext.getUserId());
         
+        // 런타임 상태 슬롯 (고정 규칙 블록 뒤에 붙음)
+        Map<String, Object> slots = new HashMap<>();
+        slots.put("step_index", stepIndex);
+        slots.put("rule_step", ruleStep);
+        slots.put("topic_root", topicRoot);
+        slots.put("curr_user", currUser);
+        slots.put("prev_user", prevUser);
+        slots.put("prev_system", prevSys);
+        slots.put("emotion_label", emotionLabel);
+        slots.put("confidence", conf);
+        slots.put("target_anchor", !targetAnchor.isEmpty());
+        slots.put("anchor_type", String.valueOf(targetAnchor.get("type")));
+        slots.put("anchor_text", String.valueOf(targetAnchor.get("text")));
+        slots.put("facet_history", facetHistory.toString());
+        if (memory != null && !memory.isEmpty()) {
+            slots.put("memory", true);
+            slots.put("memory_anchors", String.valueOf(memory.getAnchors()));
+            slots.put("memory_facets", String.valueOf(memory.getFacetsCovered()));
+            slots.put("memory_facts", String.valueOf(memory.getKeyFacts()));
+        }
+        if (ruleStep >= 1 && ruleStep <= 3) {
+            List<String> facets = templateEngine.facetsFor(ruleStep);
+            slots.put("facet_keys", String.join(" | ", facets));
+            slots.put("facet_count", facets.size());
+        }
+        slots.put("first_step", stepIndex == 1);
         
         // GPT 요청 생성
         GPTRequest gptRequest = new GPTRequest();
-        gptRequest.setModel(defaultModel);
         gptRequest.setMax_tokens(500);
         gptRequest.setTemperature(0.3);  // 규칙 준수를 위해 낮은 temperature 사용
         gptRequest.setStream(false);
+        gptRequest.setCallContext(callContext.withPrompt(rulesTemplate.getId() + "+" + stateTemplate.getId()));
         
-        // 메시지 구성
-        GPTMessage systemMessage = new GPTMessage("system", promptBuilder.toString());
+        // 메시지 구성: 고정 규칙(바이트 동일, 프롬프트 캐시 대상) → 런타임 상태 → 사용자 지시
+        GPTMessage rulesMessage = new GPTMessage("system", rulesTemplate.render(Map.of()));
+        GPTMessage stateMessage = new GPTMessage("system", stateTemplate.render(slots));
         GPTMessage userMessage = new GPTMessage("user", 
             "위의 [CRITICAL: facet_key_used 선택 규칙]을 반드시 지켜서 JSON 응답을 생성해주세요. " +
             "rule_step=" + ruleStep + "에 해당하는 facet_key만 사용하세요.");
         
-        gptRequest.setMessages(List.of(systemMessage, userMessage));
-        
-        // GPTService의 generateResponse 메서드 사용
-        GPTResponse gptResponse = gptService.generateResponse(gptRequest);
-        
-        // 응답 텍스트 추출 및 JSON 파싱
-        String rawResponse = gptResponse.getChoices().get(0).getMessage().getContent();
-        
-        log.info("GPT 원본 응답: {}", rawResponse);
+        gptRequest.setMessages(List.of(rulesMessage, stateMessage, userMessage));
         
-        // JSON 파싱
-        @SuppressWarnings("unchecked")
-        Map<String, Object> parsedResponse = objectMapper.readValue(rawResponse, Map.class);
+        // 감정/단계/프롬프트 크기/실시간 지연에 맞는 모델 선택
+        int promptTokens = promptBudgeter.countTokens(null,
+                rulesMessage.getContent() + stateMessage.getContent() + userMessage.getContent());
+        gptRequest.setModel(modelRouter.route(emotionLabel, conf, ruleStep, promptTokens));
         
-        return parsedResponse;
+        return gptRequest;
     }
 }
@@ -0,0 +1,168 @@
+package com.chimaenono.dearmind.gpt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 기본 턴 모델 라우터
+ * - 부정 감정(슬픔/분노/불안/상처/당황)을 충분한 신뢰도로 다루는 턴, 의미 단계(rule_step=3)의 부정 감정 턴은 강한 모델
+ * - 기쁨/중립, 낮은 신뢰도 턴, SLO를 넘기기 쉬운 긴 프롬프트는 빠른 모델
+ * - 선택한 모델의 최근 오류율이 높거나 p95가 SLO를 넘으면, 상태가 괜찮은 다른 모델로 페일오버
+ */
+@Slf4j
+@Component
+public class LatencyAwareTurnModelRouter implements TurnModelRouter {
+
+    private static final Set<String> NEGATIVE_EMOTIONS = Set.of("슬픔", "분노", "불안", "상처", "당황");
+    private static final int HISTOGRAM_SIZE = 100;
+
+    @Value("${gpt.turn.router.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gpt.turn.router.fast-model:gpt-4o-mini}")
+    private String fastModel;
+
+    @Value("${gpt.turn.router.strong-model:${openai.api.model:gpt-4}}")
+    private String strongModel;
+
+    @Value("${gpt.turn.router.slo-ms:4000}")
+    private long sloMs;
+
+    @Value("${gpt.turn.router.delicate-min-confidence:0.4}")
+    private double delicateMinConfidence;
+
+    @Value("${gpt.turn.router.max-strong-prompt-tokens:3000}")
+    private int maxStrongPromptTokens;
+
+    @Value("${gpt.turn.router.max-error-rate:0.3}")
+    private double maxErrorRate;
+
+    // 이만큼 기록이 쌓이기 전에는 페일오버 판단 안 함
+    @Value("${gpt.turn.router.min-samples:10}")
+    private int minSamples;
+
+    // 페일오버로 트래픽이 끊긴 모델은 이 시간이 지나면 기록을 버리고 다시 시도
+    @Value("${gpt.turn.router.recovery-seconds:60}")
+    private long recoverySeconds;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, ModelStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public String route(String emotionLabel, double confidence, int ruleStep, int promptTokens) {
+        if (!enabled) {
+            return strongModel;
+        }
+
+        // 1. 턴 특성으로 기본 선택
+        String model;
+        String reason;
+        boolean negative = NEGATIVE_EMOTIONS.contains(emotionLabel);
+        if (promptTokens > maxStrongPromptTokens) {
+            model = fastModel;
+            reason = "long_prompt";
+        } else if (negative && (confidence >= delicateMinConfidence || ruleStep == 3)) {
+            model = strongModel;
+            reason = "delicate";
+        } else {
+            model = fastModel;
+            reason = "simple";
+        }
+
+        // 2. 실시간 상태로 페일오버
+        String other = model.equals(fastModel) ? strongModel : fastModel;
+        if (!isHealthy(model) && isHealthy(other)) {
+            log.warn("턴 모델 페일오버(오류율): {} → {}", model, other);
+            model = other;
+            reason = "failover_error";
+        } else if (model.equals(strongModel) && exceedsSlo(strongModel) && isHealthy(fastModel)) {
+            model = fastModel;
+            reason = "failover_latency";
+        }
+
+        Counter.builder("llm.router.decision")
+                .tag("model", model)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        return model;
+    }
+
+    @Override
+    public void recordOutcome(String model, long latencyMs, boolean success) {
+        ModelStats modelStats = stats.compute(model,
+                (key, existing) -> existing == null || isStale(existing) ? new ModelStats() : existing);
+        if (success) {
+            modelStats.latencies.record(latencyMs);
+        }
+        modelStats.recordOutcome(!success);
+    }
+
+    private boolean isHealthy(String model) {
+        ModelStats modelStats = stats.get(model);
+        return modelStats == null || isStale(modelStats)
+                || modelStats.recorded() < minSamples || modelStats.errorRate() <= maxErrorRate;
+    }
+
+    private boolean exceedsSlo(String model) {
+        ModelStats modelStats = stats.get(model);
+        return modelStats != null && !isStale(modelStats)
+                && modelStats.latencies.size() >= minSamples
+                && modelStats.latencies.percentile(0.95) > sloMs;
+    }
+
+    private boolean isStale(ModelStats modelStats) {
+        return System.currentTimeMillis() - modelStats.lastRecordedAt() > recoverySeconds * 1000;
+    }
+
+    /**
+     * 모델별 최근 지연시간과 성공/실패 기록
+     */
+    private static class ModelStats {
+        private final LlmLatencyHistogram latencies = new LlmLatencyHistogram(HISTOGRAM_SIZE);
+        private final boolean[] failures = new boolean[HISTOGRAM_SIZE];
+        private int next = 0;
+        private int count = 0;
+        private long lastRecordedAt = System.currentTimeMillis();
+
+        synchronized void recordOutcome(boolean failed) {
+            lastRecordedAt = System.currentTimeMillis();
+            failures[next] = failed;
+            next = (next + 1) % failures.length;
+            if (count < failures.length) {
+                count++;
+            }
+        }
+
+        synchronized long lastRecordedAt() {
+            return lastRecordedAt;
+        }
+
+        synchronized int recorded() {
+            return count;
+        }
+
+        synchronized double errorRate() {
+            if (count == 0) {
+                return 0.0;
+            }
+            int failed = 0;
+            for (int i = 0; i < count; i++) {
+                if (failures[i]) {
+                    failed++;
+                }
+            }
+            return (double) failed / count;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.chimaenono.dearmind.gpt;
+
+import java.util.Map;
+
+/**
+ * 배치형 chat/completions 제출 클라이언트
+ * 요청 묶음을 한 번에 제출하고, 완료되면 custom_id별 결과를 돌려받습니다.
+ */
+public interface LlmBatchClient {
+
+    /**
+     * 요청 묶음을 제출하고 배치 ID를 반환합니다.
+     * @param requests custom_id → 요청
+     */
+    String submit(Map<String, GPTRequest> requests) throws Exception;
+
+    /**
+     * 배치 상태를 조회합니다. 아직 진행 중이면 status가 IN_PROGRESS인 결과를 반환합니다.
+     */
+    LlmBatchResult poll(String batchId) throws Exception;
+}
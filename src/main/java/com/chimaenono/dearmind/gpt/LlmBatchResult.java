@@ -0,0 +1,36 @@
+package com.chimaenono.dearmind.gpt;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 배치 조회 결과
+ * outputs: custom_id → 응답 content, errors: custom_id → 오류 메시지
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmBatchResult {
+
+    public enum Status {
+        IN_PROGRESS, COMPLETED, FAILED
+    }
+
+    private Status status;
+    private Map<String, String> outputs = new HashMap<>();
+    private Map<String, String> errors = new HashMap<>();
+
+    public static LlmBatchResult inProgress() {
+        return new LlmBatchResult(Status.IN_PROGRESS, new HashMap<>(), new HashMap<>());
+    }
+
+    public static LlmBatchResult failed(String message) {
+        LlmBatchResult result = new LlmBatchResult(Status.FAILED, new HashMap<>(), new HashMap<>());
+        result.getErrors().put("*", message);
+        return result;
+    }
+}
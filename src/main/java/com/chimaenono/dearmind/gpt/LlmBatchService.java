@@ -0,0 +1,256 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.chimaenono.dearmind.conversation.Conversation;
+import com.chimaenono.dearmind.conversation.ConversationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대화 종료 후 요약/일기 생성을 배치로 처리하는 서비스 (llm.batch.enabled=true)
+ * - 종료된 대화를 큐에 모았다가 window-seconds마다 하나의 배치 요청 파일로 제출
+ * - 요약 결과가 돌아오면 저장 후 일기 요청을 다음 창에 이어서 제출 (일기는 요약을 입력으로 사용)
+ * - 결과는 conversationService.saveConversationSummary / saveConversationDiary로 분배
+ * 실시간 대화 턴과 달리 LlmGateway의 bulkhead/타임아웃을 거치지 않습니다.
+ * 큐는 메모리에만 있으므로 재시작 시 대기 중이던 대화는 PROCESSING 상태로 남습니다.
+ */
+@Slf4j
+@Service
+public class LlmBatchService {
+
+    private static final String SUMMARY_PREFIX = "summary-";
+    private static final String DIARY_PREFIX = "diary-";
+
+    @Value("${llm.batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${llm.batch.window-seconds:300}")
+    private long windowSeconds;
+
+    @Value("${llm.batch.poll-interval-seconds:60}")
+    private long pollIntervalSeconds;
+
+    // 배치 하나에 담을 최대 요청 수 (큐가 이만큼 차면 창을 기다리지 않고 제출)
+    @Value("${llm.batch.max-items:500}")
+    private int maxItems;
+
+    @Autowired
+    private LlmBatchClient batchClient;
+
+    @Autowired
+    private GPTService gptService;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private LlmJsonNormalizer jsonNormalizer;
+
+    private final BlockingQueue<Long> pendingSummaries = new LinkedBlockingQueue<>();
+    private final Map<Long, String> pendingDiaries = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Long>> inFlight = new ConcurrentHashMap<>();   // batchId → custom_id → conversationId
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::flushSafely, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::pollSafely, pollIntervalSeconds, pollIntervalSeconds, TimeUnit.SECONDS);
+        log.info("LLM 배치 모드 활성화: window={}s, poll={}s, maxItems={}", windowSeconds, pollIntervalSeconds, maxItems);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 종료된 대화를 다음 배치 창에 추가합니다.
+     */
+    public void enqueue(Long conversationId) {
+        pendingSummaries.add(conversationId);
+        if (pendingSummaries.size() + pendingDiaries.size() >= maxItems) {
+            scheduler.execute(this::flushSafely);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pendingSummaries", pendingSummaries.size());
+        stats.put("pendingDiaries", pendingDiaries.size());
+        stats.put("inFlightBatches", inFlight.size());
+        stats.put("inFlightItems", inFlight.values().stream().mapToInt(Map::size).sum());
+        return stats;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("LLM 배치 제출 중 오류", e);
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.error("LLM 배치 결과 조회 중 오류", e);
+        }
+    }
+
+    /**
+     * 대기 중인 요약/일기 요청을 요청 파일로 묶어 제출합니다.
+     */
+    private void flush() {
+        Map<String, GPTRequest> requests = new LinkedHashMap<>();
+        Map<String, Long> tasks = new LinkedHashMap<>();
+
+        List<Long> summaryIds = new ArrayList<>();
+        pendingSummaries.drainTo(summaryIds);
+        for (Long conversationId : summaryIds) {
+            try {
+                requests.put(SUMMARY_PREFIX + conversationId, gptService.buildSummaryRequest(conversationId));
+                tasks.put(SUMMARY_PREFIX + conversationId, conversationId);
+            } catch (Exception e) {
+                handleSummaryFailure(conversationId, e.getMessage());
+            }
+        }
+
+        for (Long conversationId : new ArrayList<>(pendingDiaries.keySet())) {
+            String summary = pendingDiaries.remove(conversationId);
+            try {
+                requests.put(DIARY_PREFIX + conversationId, gptService.prepareDiaryRequest(conversationId, summary));
+                tasks.put(DIARY_PREFIX + conversationId, conversationId);
+            } catch (Exception e) {
+                handleDiaryFailure(conversationId, e.getMessage());
+            }
+        }
+
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        // max-items 단위로 나눠 제출
+        List<String> customIds = new ArrayList<>(requests.keySet());
+        for (int from = 0; from < customIds.size(); from += maxItems) {
+            List<String> chunk = customIds.subList(from, Math.min(from + maxItems, customIds.size()));
+            Map<String, GPTRequest> chunkRequests = new LinkedHashMap<>();
+            Map<String, Long> chunkTasks = new LinkedHashMap<>();
+            for (String customId : chunk) {
+                chunkRequests.put(customId, requests.get(customId));
+                chunkTasks.put(customId, tasks.get(customId));
+            }
+            try {
+                String batchId = batchClient.submit(chunkRequests);
+                inFlight.put(batchId, chunkTasks);
+            } catch (Exception e) {
+                // 제출 실패 시 다음 창에 다시 시도
+                log.warn("LLM 배치 제출 실패, 다음 창에 재시도합니다: items={}, error={}", chunk.size(), e.getMessage());
+                requeue(chunkTasks);
+            }
+        }
+    }
+
+    /**
+     * 진행 중인 배치의 상태를 조회하고, 완료된 결과를 대화별로 분배합니다.
+     */
+    private void poll() throws Exception {
+        for (String batchId : new ArrayList<>(inFlight.keySet())) {
+            LlmBatchResult result = batchClient.poll(batchId);
+            if (result.getStatus() == LlmBatchResult.Status.IN_PROGRESS) {
+                continue;
+            }
+            Map<String, Long> tasks = inFlight.remove(batchId);
+            log.info("LLM 배치 완료: batchId={}, status={}, outputs={}, errors={}",
+                    batchId, result.getStatus(), result.getOutputs().size(), result.getErrors().size());
+
+            for (Map.Entry<String, Long> task : tasks.entrySet()) {
+                String customId = task.getKey();
+                Long conversationId = task.getValue();
+                String content = result.getOutputs().get(customId);
+                String error = result.getErrors().getOrDefault(customId,
+                        result.getErrors().getOrDefault("*", "배치 결과에 항목이 없습니다"));
+
+                if (customId.startsWith(SUMMARY_PREFIX)) {
+                    if (content != null) {
+                        handleSummary(conversationId, content);
+                    } else {
+                        handleSummaryFailure(conversationId, error);
+                    }
+                } else {
+                    if (content != null) {
+                        handleDiary(conversationId, content);
+                    } else {
+                        handleDiaryFailure(conversationId, error);
+                    }
+                }
+            }
+        }
+    }
+
+    private void handleSummary(Long conversationId, String rawSummary) {
+        try {
+            String summary = jsonNormalizer.normalizeJson(rawSummary);
+            conversationService.saveConversationSummary(conversationId, summary);
+            // 일기는 요약을 입력으로 사용하므로 다음 창에 제출
+            pendingDiaries.put(conversationId, summary);
+        } catch (Exception e) {
+            handleSummaryFailure(conversationId, e.getMessage());
+        }
+    }
+
+    private void handleDiary(Long conversationId, String diary) {
+        try {
+            conversationService.saveConversationDiary(conversationId, diary);
+        } catch (Exception e) {
+            log.error("배치 일기 저장 실패: conversationId={}, error={}", conversationId, e.getMessage());
+        }
+        conversationService.updateProcessingStatus(conversationId, Conversation.ProcessingStatus.COMPLETED);
+    }
+
+    private void handleSummaryFailure(Long conversationId, String message) {
+        log.error("배치 요약 생성 실패: conversationId={}, error={}", conversationId, message);
+        conversationService.updateProcessingStatus(conversationId, Conversation.ProcessingStatus.ERROR);
+    }
+
+    private void handleDiaryFailure(Long conversationId, String message) {
+        // 실시간 경로와 동일하게 일기 실패 시에도 처리 완료로 표시
+        log.error("배치 일기 생성 실패: conversationId={}, error={}", conversationId, message);
+        conversationService.updateProcessingStatus(conversationId, Conversation.ProcessingStatus.COMPLETED);
+    }
+
+    private void requeue(Map<String, Long> tasks) {
+        for (Map.Entry<String, Long> task : tasks.entrySet()) {
+            if (task.getKey().startsWith(SUMMARY_PREFIX)) {
+                pendingSummaries.add(task.getValue());
+            } else {
+                // 일기 요청은 저장된 요약으로 다시 구성
+                conversationService.getConversationById(task.getValue())
+                        .map(Conversation::getSummary)
+                        .ifPresent(summary -> pendingDiaries.put(task.getValue(), summary));
+            }
+        }
+    }
+}
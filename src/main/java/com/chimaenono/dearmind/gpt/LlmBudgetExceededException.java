@@ -0,0 +1,11 @@
+package com.chimaenono.dearmind.gpt;
+
+/**
+ * 일일/사용자별 토큰 예산을 초과해 LLM 호출을 보내지 않았을 때 발생합니다.
+ */
+public class LlmBudgetExceededException extends RuntimeException {
+    
+    public LlmBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,58 @@
+package com.chimaenono.dearmind.gpt;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * LLM 호출 지점, 사용자, 프롬프트 버전 정보 (메트릭 태그 및 토큰 예산 적용용, API로 전송되지 않음)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "LLM 호출 컨텍스트")
+public class LlmCallContext {
+    
+    public static final String TURN = "turn";
+    public static final String SUMMARY = "summary";
+    public static final String DIARY = "diary";
+    public static final String MUSIC = "music";
+    public static final String DIARY_BUNDLE = "diary_bundle";
+    public static final String OPENER = "opener";
+    public static final String TEST = "test";
+    
+    @Schema(description = "호출 지점", example = "turn", allowableValues = {"turn", "summary", "diary", "music", "diary_bundle", "opener", "test"})
+    private String callSite;
+    
+    @Schema(description = "사용자 ID (없으면 사용자별 예산 미적용)", example = "1")
+    private Long userId;
+    
+    @Schema(description = "프롬프트 템플릿 버전 (A/B 변형 비교용)", example = "diary@v1")
+    private String prompt;
+    
+    @Schema(description = "요청을 처리할 LLM 제공자 (없으면 라우터가 배정)", example = "openai", allowableValues = {"openai", "local"})
+    private String provider;
+    
+    public static LlmCallContext of(String callSite, Long userId) {
+        return new LlmCallContext(callSite, userId, null, null);
+    }
+    
+    public static LlmCallContext of(String callSite) {
+        return new LlmCallContext(callSite, null, null, null);
+    }
+    
+    /**
+     * 프롬프트 템플릿 버전을 붙인 사본을 반환합니다.
+     */
+    public LlmCallContext withPrompt(String prompt) {
+        return new LlmCallContext(callSite, userId, prompt, provider);
+    }
+    
+    /**
+     * LLM 제공자를 지정한 사본을 반환합니다.
+     */
+    public LlmCallContext withProvider(String provider) {
+        return new LlmCallContext(callSite, userId, prompt, provider);
+    }
+}
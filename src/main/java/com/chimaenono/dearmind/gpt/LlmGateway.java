@@ -0,0 +1,403 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * OpenAI chat/completions 호출을 담당하는 게이트웨이
+ * - 공유 HttpClient(HTTP/2)로 커넥션 재사용
+ * - 모델별 bulkhead(동시 요청 수 제한)로 느린 호출이 전체 스레드를 점유하지 않도록 함
+ * - 응답 본문은 String으로 모으지 않고 InputStream에서 바로 파싱
+ * - 모델별 지연시간 히스토그램 기반 적응형 타임아웃과, 대화 턴에 한한 헤지 요청
+ * - 전송 전 OpenAiRateLimiter에서 호출 지점 우선순위로 RPM/TPM 한도를 확보하고, 응답 헤더로 한도를 갱신
+ * LlmProvider의 OpenAI 구현이며, 배치 대체 구현(LocalBatchClient)도 이 게이트웨이를 직접 사용합니다.
+ */
+@Slf4j
+@Component
+public class LlmGateway implements LlmProvider {
+
+    @Value("${openai.api.key}")
+    private String apiKey;
+
+    @Value("${openai.api.url}")
+    private String apiUrl;
+
+    @Value("${openai.gateway.max-in-flight:8}")
+    private int defaultMaxInFlight;
+
+    // 모델별 동시 요청 수 (예: "gpt-4=4,gpt-4o-mini=16")
+    @Value("${openai.gateway.model-limits:}")
+    private String modelLimitsConfig;
+
+    @Value("${openai.gateway.acquire-timeout-ms:10000}")
+    private long acquireTimeoutMs;
+
+    @Value("${openai.gateway.request-timeout-seconds:60}")
+    private long requestTimeoutSeconds;
+
+    @Value("${openai.gateway.min-timeout-seconds:10}")
+    private long minTimeoutSeconds;
+
+    // 적응형 타임아웃 = p99 × 배수 (min~request-timeout 범위로 제한)
+    @Value("${openai.gateway.timeout-multiplier:2.0}")
+    private double timeoutMultiplier;
+
+    // 히스토그램이 이만큼 쌓이기 전에는 고정 타임아웃/헤지 없음
+    @Value("${openai.gateway.min-samples:20}")
+    private int minSamples;
+
+    @Value("${openai.gateway.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    @Value("${openai.gateway.hedge.percentile:0.95}")
+    private double hedgePercentile;
+
+    // 1분 창 동안 전체 요청 대비 헤지 요청 비율 상한
+    @Value("${openai.gateway.hedge.max-ratio:0.1}")
+    private double hedgeMaxRatio;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OpenAiRateLimiter rateLimiter;
+
+    @Autowired
+    private LlmTokenizer tokenizer;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Integer> modelLimits = new HashMap<>();
+    private final Map<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+    // 모델 + 호출 지점별 지연 히스토그램 (일기·요약은 대화 턴보다 훨씬 오래 걸림)
+    private final Map<String, LlmLatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    private static final int HISTOGRAM_SIZE = 200;
+    private static final long HEDGE_WINDOW_MS = 60_000;
+    private final AtomicLong hedgeWindowStart = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong windowRequests = new AtomicLong();
+    private final AtomicLong windowHedges = new AtomicLong();
+
+    public LlmGateway() {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(executor)
+                .build();
+    }
+
+    @PostConstruct
+    void parseModelLimits() {
+        if (modelLimitsConfig == null || modelLimitsConfig.isBlank()) {
+            return;
+        }
+        for (String entry : modelLimitsConfig.split(",")) {
+            String[] pair = entry.split("=");
+            if (pair.length == 2) {
+                modelLimits.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+            }
+        }
+        log.info("LLM bulkhead 설정: default={}, models={}", defaultMaxInFlight, modelLimits);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String getName() {
+        return OPENAI;
+    }
+
+    /**
+     * chat/completions를 호출하고 응답을 파싱합니다 (호출 스레드에서 실행).
+     * 대화 턴은 p95를 넘기면 헤지 요청을 한 번 보내 먼저 끝나는 쪽을 사용합니다.
+     */
+    @Override
+    public GPTResponse send(GPTRequest request) throws Exception {
+        String model = request.getModel();
+        LlmLatencyHistogram histogram = latency(request);
+        long rateCost = acquireRateLimit(request);
+        Semaphore bulkhead = acquire(model);
+        long startNanos = System.nanoTime();
+        try {
+            HttpRequest httpRequest = buildHttpRequest(request, timeoutFor(histogram));
+            GPTResponse response = isHedgeable(request, histogram)
+                    ? sendHedged(httpRequest, model, rateCost, histogram)
+                    : parseResponse(httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream()), model);
+            histogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return response;
+        } catch (HttpTimeoutException e) {
+            // 타임아웃도 경과 시간으로 기록해야 제공자 지연이 늘 때 p99가 따라 올라감
+            histogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * 주 요청이 p95 안에 끝나지 않으면 동일한 헤지 요청을 보내고, 먼저 응답한 쪽을 채택합니다.
+     * 진 쪽은 취소하며, 헤지 비율 상한이나 bulkhead/속도 제한 여유가 없으면 주 요청만 기다립니다.
+     */
+    private GPTResponse sendHedged(HttpRequest httpRequest, String model, long rateCost,
+                                   LlmLatencyHistogram histogram) throws Exception {
+        CompletableFuture<HttpResponse<InputStream>> primary =
+                httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        long hedgeDelayMs = histogram.percentile(hedgePercentile);
+
+        try {
+            return parseResponse(primary.get(hedgeDelayMs, TimeUnit.MILLISECONDS), model);
+        } catch (TimeoutException e) {
+            // p95 초과: 아래에서 헤지 여부 결정
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+
+        Semaphore bulkhead = bulkheads.get(model);
+        if (!bulkhead.tryAcquire()) {
+            return parseResponse(await(primary), model);
+        }
+        if (!tryReserveHedge() || !rateLimiter.tryAcquire(model, rateCost)) {
+            bulkhead.release();
+            return parseResponse(await(primary), model);
+        }
+
+        log.info("LLM 헤지 요청 전송: model={}, delay={}ms", model, hedgeDelayMs);
+        counter("llm.hedge.sent", model).increment();
+        CompletableFuture<HttpResponse<InputStream>> hedge =
+                httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            HttpResponse<InputStream> winner = await(firstCompleted(primary, hedge));
+            boolean hedgeWon = hedge.isDone() && !hedge.isCompletedExceptionally() && hedge.getNow(null) == winner;
+            if (hedgeWon) {
+                counter("llm.hedge.won", model).increment();
+            }
+            return parseResponse(winner, model);
+        } finally {
+            bulkhead.release();
+            cancelLoser(primary);
+            cancelLoser(hedge);
+        }
+    }
+
+    /**
+     * 먼저 정상 완료된 응답을 돌려줍니다. 둘 다 실패하면 마지막 예외로 완료됩니다.
+     */
+    private CompletableFuture<HttpResponse<InputStream>> firstCompleted(
+            CompletableFuture<HttpResponse<InputStream>> first,
+            CompletableFuture<HttpResponse<InputStream>> second) {
+        CompletableFuture<HttpResponse<InputStream>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<HttpResponse<InputStream>> candidate : List.of(first, second)) {
+            candidate.whenComplete((response, error) -> {
+                if (error == null) {
+                    if (!winner.complete(response)) {
+                        closeQuietly(response);
+                    }
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return winner;
+    }
+
+    /**
+     * 진 요청을 취소합니다. 이미 응답이 도착했다면 본문 스트림을 닫아 커넥션을 돌려줍니다.
+     */
+    private void cancelLoser(CompletableFuture<HttpResponse<InputStream>> future) {
+        if (!future.cancel(true)) {
+            future.thenAccept(response -> {
+                // 채택된 응답은 parseResponse에서 이미 닫힘 (중복 close는 무해)
+                closeQuietly(response);
+            });
+        }
+    }
+
+    /**
+     * 헤지 비율 상한을 넘지 않으면 헤지 1건을 예약합니다.
+     */
+    private boolean tryReserveHedge() {
+        long now = System.currentTimeMillis();
+        long windowStart = hedgeWindowStart.get();
+        if (now - windowStart > HEDGE_WINDOW_MS && hedgeWindowStart.compareAndSet(windowStart, now)) {
+            windowRequests.set(0);
+            windowHedges.set(0);
+        }
+        if (windowHedges.get() + 1 > Math.max(1, windowRequests.get() * hedgeMaxRatio)) {
+            return false;
+        }
+        windowHedges.incrementAndGet();
+        return true;
+    }
+
+    private boolean isHedgeable(GPTRequest request, LlmLatencyHistogram histogram) {
+        if (!hedgeEnabled || request.getCallContext() == null
+                || !LlmCallContext.TURN.equals(request.getCallContext().getCallSite())) {
+            return false;
+        }
+        windowRequests.incrementAndGet();
+        return histogram.size() >= minSamples;
+    }
+
+    /**
+     * 관측된 p99 기반 타임아웃. 표본이 부족하면 고정 타임아웃을 사용합니다.
+     */
+    private Duration timeoutFor(LlmLatencyHistogram histogram) {
+        if (histogram.size() < minSamples) {
+            return Duration.ofSeconds(requestTimeoutSeconds);
+        }
+        long adaptiveMs = (long) (histogram.percentile(0.99) * timeoutMultiplier);
+        long boundedMs = Math.max(TimeUnit.SECONDS.toMillis(minTimeoutSeconds),
+                Math.min(adaptiveMs, TimeUnit.SECONDS.toMillis(requestTimeoutSeconds)));
+        return Duration.ofMillis(boundedMs);
+    }
+
+    private LlmLatencyHistogram latency(GPTRequest request) {
+        String callSite = request.getCallContext() != null && request.getCallContext().getCallSite() != null
+                ? request.getCallContext().getCallSite() : "unknown";
+        return latencies.computeIfAbsent(request.getModel() + "|" + callSite,
+                key -> new LlmLatencyHistogram(HISTOGRAM_SIZE));
+    }
+
+    private GPTResponse parseResponse(HttpResponse<InputStream> response, String model) throws Exception {
+        rateLimiter.observe(model, response.statusCode(), response.headers());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new LlmProviderException(response.statusCode(), "GPT API 호출 실패: " + response.statusCode()
+                        + " - " + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            return objectMapper.readValue(body, GPTResponse.class);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        return e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+
+    private static void closeQuietly(HttpResponse<InputStream> response) {
+        try {
+            response.body().close();
+        } catch (Exception ignored) {
+            // 이미 닫힌 스트림
+        }
+    }
+
+    private Counter counter(String name, String model) {
+        return Counter.builder(name).tag("model", model).register(meterRegistry);
+    }
+
+    /**
+     * stream=true로 호출하여 content delta를 도착 즉시 onDelta로 전달합니다.
+     * 스트림이 끝날 때까지 bulkhead 슬롯을 점유하며, 완성된 전체 텍스트와 (제공되면) 토큰 사용량을 응답으로 돌려줍니다.
+     */
+    @Override
+    public GPTResponse stream(GPTRequest request, Consumer<String> onDelta) throws Exception {
+        acquireRateLimit(request);
+        Semaphore bulkhead = acquire(request.getModel());
+        try {
+            HttpResponse<InputStream> response = httpClient.send(
+                    buildHttpRequest(request, timeoutFor(latency(request))), HttpResponse.BodyHandlers.ofInputStream());
+            rateLimiter.observe(request.getModel(), response.statusCode(), response.headers());
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                if (response.statusCode() != 200) {
+                    StringBuilder errorBody = new StringBuilder();
+                    reader.lines().forEach(errorBody::append);
+                    throw new LlmProviderException(response.statusCode(),
+                            "GPT API 호출 실패: " + response.statusCode() + " - " + errorBody);
+                }
+
+                return ChatCompletionStreamReader.read(reader, objectMapper, onDelta);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * 호출 지점 우선순위로 RPM 1건과 TPM(프롬프트 + max_tokens)을 확보합니다.
+     * @return 확보한 토큰 수 (헤지 요청도 같은 양을 씀)
+     */
+    private long acquireRateLimit(GPTRequest request) throws InterruptedException {
+        long cost = tokenizer.countPromptTokens(request)
+                + (request.getMax_tokens() != null ? request.getMax_tokens() : 0);
+        Long userId = request.getCallContext() != null ? request.getCallContext().getUserId() : null;
+        rateLimiter.acquire(request.getModel(), OpenAiRateLimiter.priorityOf(request), userId, cost);
+        return cost;
+    }
+
+    /**
+     * 모델별 bulkhead 슬롯을 확보합니다. 대기 시간을 넘기면 예외를 던집니다.
+     */
+    private Semaphore acquire(String model) throws InterruptedException {
+        Semaphore bulkhead = bulkheads.computeIfAbsent(model,
+                key -> new Semaphore(modelLimits.getOrDefault(key, defaultMaxInFlight), true));
+        if (!bulkhead.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new LlmSaturatedException("GPT API 동시 요청 한도 초과: model=" + model);
+        }
+        return bulkhead;
+    }
+
+    /**
+     * chat/completions HTTP 요청을 생성합니다.
+     */
+    private HttpRequest buildHttpRequest(GPTRequest request, Duration timeout) throws Exception {
+        // JSON 변환
+        byte[] requestBody = objectMapper.writeValueAsBytes(request);
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/chat/completions"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody))
+                .timeout(timeout)
+                .build();
+    }
+}
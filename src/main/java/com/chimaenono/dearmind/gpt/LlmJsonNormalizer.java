@@ -0,0 +1,225 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LLM JSON 출력 정규화 계층
+ * - 코드 펜스/앞뒤 설명 문구 제거, 잘린 JSON 닫기
+ * - 관대한 파싱 (주석, 후행 쉼표, 작은따옴표, 문자열 안 줄바꿈 허용)
+ * - 턴 응답 스키마 검사와 결정적 복구 (rule_step에 맞지 않는 facet_key_used, facet_history 불일치 등)
+ * 복구 가능한 응답은 재호출이나 500 없이 처리하고, 복구 불가하면 null을 돌려 호출자가 대체 응답을 쓰게 합니다.
+ */
+@Slf4j
+@Component
+public class LlmJsonNormalizer {
+
+    private static final Set<String> ANCHOR_TYPES = Set.of(
+        "person", "event", "timepoint", "place", "object", "activity", "quote", "lesson"
+    );
+
+    private static final ObjectMapper LENIENT_MAPPER = JsonMapper.builder()
+            .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_SINGLE_QUOTES)
+            .enable(JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES)
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .build();
+
+    @Autowired
+    private TurnTemplateEngine templateEngine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 응답 원문에서 첫 번째 최상위 JSON 객체(또는 배열)만 잘라냅니다.
+     * 코드 펜스나 앞뒤 설명 문구를 버리고, 출력이 중간에 끊겼으면 열린 문자열/괄호를 닫습니다.
+     * 객체를 찾지 못하면 원문을 그대로 반환합니다.
+     */
+    public static String extractJson(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        int objectStart = raw.indexOf('{');
+        int arrayStart = raw.indexOf('[');
+        int start = objectStart < 0 ? arrayStart
+                : arrayStart < 0 ? objectStart : Math.min(objectStart, arrayStart);
+        if (start < 0) {
+            return raw;
+        }
+        StringBuilder closers = new StringBuilder();
+        boolean inString = false;
+        boolean escape = false;
+        for (int i = start; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (inString) {
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                closers.append('}');
+            } else if (c == '[') {
+                closers.append(']');
+            } else if ((c == '}' || c == ']') && closers.length() > 0) {
+                closers.setLength(closers.length() - 1);
+                if (closers.length() == 0) {
+                    return raw.substring(start, i + 1);
+                }
+            }
+        }
+        // 잘린 출력: 열린 문자열과 괄호를 역순으로 닫음
+        StringBuilder repaired = new StringBuilder(raw.substring(start));
+        if (inString) {
+            repaired.append('"');
+        }
+        return repaired.append(closers.reverse()).toString();
+    }
+
+    /**
+     * 펜스 제거 후 관대한 파서로 읽습니다. 파싱할 수 없으면 null.
+     */
+    public JsonNode parseLenient(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        try {
+            return LENIENT_MAPPER.readTree(extractJson(raw));
+        } catch (Exception e) {
+            log.warn("LLM JSON 파싱 실패: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * JSON으로 읽을 수 있으면 표준 JSON 문자열로 다시 써서 반환하고, 아니면 원문을 반환합니다 (요약 저장용).
+     */
+    public String normalizeJson(String raw) {
+        JsonNode node = parseLenient(raw);
+        if (node == null || !node.isContainerNode()) {
+            return raw;
+        }
+        try {
+            return LENIENT_MAPPER.writeValueAsString(node);
+        } catch (Exception e) {
+            return raw;
+        }
+    }
+
+    /**
+     * 턴 응답을 스키마에 맞게 검사·복구합니다.
+     * - text: 필수. '{'가 전혀 없는 산문이면 원문 전체를 text로 사용 (깨진 JSON 조각은 text로 쓰지 않음)
+     * - facet_key_used: rule_step에 맞지 않으면 facet_history에 없는 키로 교체
+     * - facet_history: 입력 facet_history + facet_key_used로 재구성
+     * - next_step_index: step_index + 1
+     * - target_anchor: step_index=1에서만 유지, type/text가 유효하지 않으면 제거
+     * @return 복구된 응답, text를 얻을 수 없으면 null
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> normalizeTurn(String raw, int stepIndex, int ruleStep, List<String> facetHistory) {
+        JsonNode node = parseLenient(raw);
+
+        Map<String, Object> turn;
+        if (node != null && node.isObject()) {
+            turn = LENIENT_MAPPER.convertValue(node, Map.class);
+        } else {
+            // JSON이 전혀 없는 산문 응답만 그대로 text로 사용 ("```json\n{..." 같은 깨진 JSON은 읽어 주면 안 됨)
+            String prose = raw != null ? raw.replace("```", "").trim() : "";
+            if (prose.isEmpty() || prose.indexOf('{') >= 0) {
+                countRepair("unrecoverable");
+                return null;
+            }
+            turn = new HashMap<>();
+            turn.put("text", prose);
+            countRepair("prose");
+        }
+        return normalizeTurn(turn, stepIndex, ruleStep, facetHistory);
+    }
+
+    /**
+     * 이미 text를 확보한 턴 응답 Map의 나머지 필드를 스키마에 맞게 복구합니다 (text는 바꾸지 않음).
+     * @return 복구된 응답, text가 없으면 null
+     */
+    public Map<String, Object> normalizeTurn(Map<String, Object> turn, int stepIndex, int ruleStep,
+                                             List<String> facetHistory) {
+        List<String> history = facetHistory != null ? facetHistory : new ArrayList<>();
+        Object text = turn.get("text");
+        if (!(text instanceof String) || ((String) text).isBlank()) {
+            countRepair("unrecoverable");
+            return null;
+        }
+
+        List<String> allowed = templateEngine.facetsFor(ruleStep);
+        Object facet = turn.get("facet_key_used");
+        if (!(facet instanceof String) || !allowed.contains(facet)) {
+            String repairedFacet = templateEngine.chooseFacet(ruleStep, history);
+            log.info("facet_key_used 복구: {} → {} (rule_step={})", facet, repairedFacet, ruleStep);
+            turn.put("facet_key_used", repairedFacet);
+            countRepair("facet_key_used");
+        }
+
+        List<String> expectedHistory = new ArrayList<>(history);
+        expectedHistory.add((String) turn.get("facet_key_used"));
+        if (!expectedHistory.equals(turn.get("facet_history"))) {
+            turn.put("facet_history", expectedHistory);
+            countRepair("facet_history");
+        }
+
+        turn.put("next_step_index", stepIndex + 1);
+
+        if (stepIndex == 1) {
+            Object anchor = turn.get("target_anchor");
+            if (anchor != null && !isValidAnchor(anchor)) {
+                turn.remove("target_anchor");
+                countRepair("target_anchor");
+            }
+        } else if (turn.remove("target_anchor") != null) {
+            countRepair("target_anchor");
+        }
+
+        if (turn.containsKey("memory_fact") && !(turn.get("memory_fact") instanceof String)) {
+            turn.remove("memory_fact");
+        }
+        return turn;
+    }
+
+    private boolean isValidAnchor(Object anchor) {
+        if (!(anchor instanceof Map)) {
+            return false;
+        }
+        Map<?, ?> map = (Map<?, ?>) anchor;
+        Object type = map.get("type");
+        Object text = map.get("text");
+        return type instanceof String && ANCHOR_TYPES.contains(type)
+                && text instanceof String && !((String) text).isBlank();
+    }
+
+    private void countRepair(String field) {
+        Counter.builder("llm.output.repaired")
+                .description("로컬에서 복구한 LLM JSON 출력 수")
+                .tag("field", field)
+                .register(meterRegistry)
+                .increment();
+    }
+}
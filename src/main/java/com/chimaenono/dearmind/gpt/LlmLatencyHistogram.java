@@ -0,0 +1,46 @@
+package com.chimaenono.dearmind.gpt;
+
+import java.util.Arrays;
+
+/**
+ * 최근 N건의 LLM 호출 지연시간(ms)을 보관하는 롤링 히스토그램
+ * 헤지 지연(p95)과 적응형 타임아웃(p99) 계산에 사용합니다.
+ */
+public class LlmLatencyHistogram {
+
+    private final long[] samples;
+    private int next = 0;
+    private int count = 0;
+
+    public LlmLatencyHistogram(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * 지연시간을 기록합니다 (가장 오래된 값을 덮어씀).
+     */
+    public synchronized void record(long latencyMs) {
+        samples[next] = latencyMs;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * 백분위수(0~1) 지연시간을 반환합니다. 기록이 없으면 -1.
+     */
+    public synchronized long percentile(double quantile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+}
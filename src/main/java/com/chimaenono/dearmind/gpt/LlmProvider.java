@@ -0,0 +1,29 @@
+package com.chimaenono.dearmind.gpt;
+
+import java.util.function.Consumer;
+
+/**
+ * chat/completions 형식의 LLM 제공자
+ * GPTService는 LlmProviderRouter가 호출 지점별로 고른 제공자에 요청을 보내며,
+ * 새 백엔드가 필요하면 이 인터페이스를 구현한 빈을 등록하고 llm.providers.routes에 이름을 지정합니다.
+ */
+public interface LlmProvider {
+
+    String OPENAI = "openai";
+    String LOCAL = "local";
+
+    /**
+     * 라우팅 설정과 메트릭 태그에 쓰는 제공자 이름
+     */
+    String getName();
+
+    /**
+     * 요청을 보내고 응답을 파싱합니다 (호출 스레드에서 실행).
+     */
+    GPTResponse send(GPTRequest request) throws Exception;
+
+    /**
+     * stream=true로 호출하여 content delta를 도착 즉시 onDelta로 전달하고, 완성된 전체 응답을 반환합니다.
+     */
+    GPTResponse stream(GPTRequest request, Consumer<String> onDelta) throws Exception;
+}
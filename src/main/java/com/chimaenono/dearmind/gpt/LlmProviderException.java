@@ -0,0 +1,25 @@
+package com.chimaenono.dearmind.gpt;
+
+/**
+ * LLM 제공자가 200이 아닌 상태 코드로 응답했을 때 발생합니다.
+ */
+public class LlmProviderException extends RuntimeException {
+    
+    private final int statusCode;
+    
+    public LlmProviderException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+    
+    public int getStatusCode() {
+        return statusCode;
+    }
+    
+    /**
+     * 제공자 쪽 장애(5xx, 429)인지 반환합니다. 그 밖의 4xx는 요청 자체의 문제입니다.
+     */
+    public boolean isProviderFault() {
+        return statusCode >= 500 || statusCode == 429;
+    }
+}
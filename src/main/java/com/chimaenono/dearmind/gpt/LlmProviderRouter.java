@@ -0,0 +1,130 @@
+package com.chimaenono.dearmind.gpt;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 호출 지점별 LLM 제공자 라우터
+ * - llm.providers.routes로 호출 지점마다 제공자를 지정 (예: "turn=local"), 나머지는 llm.providers.default
+ * - 로컬 제공자는 프롬프트 토큰이 llm.local.max-prompt-tokens 이하인 요청만 받음 (긴 요약·일기는 OpenAI)
+ * - 등록되지 않은 제공자(llm.local.enabled=false 등)를 지정하면 OpenAI로 보냄
+ * - 로컬 호출이 실패하면 llm.local.fallback=true일 때 같은 요청을 OpenAI로 한 번 더 보냄
+ * 배정 결과는 요청의 LlmCallContext.provider에 기록되어 메트릭 태그와 응답 캐시 키에 쓰입니다.
+ */
+@Slf4j
+@Component
+public class LlmProviderRouter {
+
+    @Value("${llm.providers.default:openai}")
+    private String defaultProvider;
+
+    // 호출 지점별 제공자 (예: "turn=local,test=local")
+    @Value("${llm.providers.routes:}")
+    private String routesConfig;
+
+    // 로컬 제공자로 보낼 최대 프롬프트 토큰 수 (0이면 제한 없음)
+    @Value("${llm.local.max-prompt-tokens:1500}")
+    private int localMaxPromptTokens;
+
+    @Value("${llm.local.fallback:true}")
+    private boolean fallbackEnabled;
+
+    @Autowired
+    private List<LlmProvider> providerBeans;
+
+    @Autowired
+    private LlmTokenizer tokenizer;
+
+    private final Map<String, LlmProvider> providers = new HashMap<>();
+    private final Map<String, String> routes = new HashMap<>();
+    private final Map<String, AtomicLong> routed = new ConcurrentHashMap<>();
+    private final AtomicLong oversized = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        for (LlmProvider provider : providerBeans) {
+            providers.put(provider.getName(), provider);
+        }
+        if (!providers.containsKey(LlmProvider.OPENAI)) {
+            throw new IllegalStateException("OpenAI 제공자가 등록되지 않았습니다.");
+        }
+        if (routesConfig != null && !routesConfig.isBlank()) {
+            for (String entry : routesConfig.split(",")) {
+                String[] pair = entry.split("=");
+                if (pair.length == 2) {
+                    routes.put(pair[0].trim(), pair[1].trim());
+                }
+            }
+        }
+        routes.values().stream().distinct()
+                .filter(name -> !providers.containsKey(name))
+                .forEach(name -> log.warn("등록되지 않은 LLM 제공자가 지정되어 OpenAI로 대체합니다: {}", name));
+        log.info("LLM 제공자 라우팅: providers={}, default={}, routes={}", providers.keySet(), defaultProvider, routes);
+    }
+
+    /**
+     * 요청을 처리할 제공자를 고르고 요청의 호출 컨텍스트에 기록합니다.
+     * 이미 제공자가 기록된 요청(캐시 키 계산 후 전송 등)은 그 제공자를 그대로 씁니다.
+     */
+    public LlmProvider assign(GPTRequest request) {
+        LlmCallContext context = request.getCallContext();
+        if (context != null && context.getProvider() != null && providers.containsKey(context.getProvider())) {
+            return providers.get(context.getProvider());
+        }
+
+        String callSite = context != null ? context.getCallSite() : null;
+        String name = callSite != null ? routes.getOrDefault(callSite, defaultProvider) : defaultProvider;
+        if (!providers.containsKey(name)) {
+            name = LlmProvider.OPENAI;
+        }
+        if (LlmProvider.LOCAL.equals(name) && localMaxPromptTokens > 0
+                && tokenizer.countPromptTokens(request) > localMaxPromptTokens) {
+            oversized.incrementAndGet();
+            name = LlmProvider.OPENAI;
+        }
+
+        request.setCallContext(context != null ? context.withProvider(name)
+                : new LlmCallContext(null, null, null, name));
+        routed.computeIfAbsent(name, key -> new AtomicLong()).incrementAndGet();
+        return providers.get(name);
+    }
+
+    /**
+     * 실패한 요청을 다시 보낼 OpenAI 제공자를 반환하고 요청의 제공자를 바꿉니다.
+     * 이미 OpenAI였거나 대체 전송이 꺼져 있으면 null입니다.
+     */
+    public LlmProvider fallbackFor(GPTRequest request) {
+        LlmCallContext context = request.getCallContext();
+        if (!fallbackEnabled || context == null || context.getProvider() == null
+                || LlmProvider.OPENAI.equals(context.getProvider())) {
+            return null;
+        }
+        fallbacks.incrementAndGet();
+        request.setCallContext(context.withProvider(LlmProvider.OPENAI));
+        return providers.get(LlmProvider.OPENAI);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("providers", providers.keySet());
+        stats.put("default", defaultProvider);
+        stats.put("routes", routes);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        routed.forEach((name, count) -> counts.put(name, count.get()));
+        stats.put("routed", counts);
+        stats.put("oversizedForLocal", oversized.get());
+        stats.put("fallbacks", fallbacks.get());
+        return stats;
+    }
+}
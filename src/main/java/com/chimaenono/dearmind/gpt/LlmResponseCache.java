@@ -0,0 +1,237 @@
+package com.chimaenono.dearmind.gpt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 결정적(낮은 temperature) LLM 호출의 응답 캐시
+ * - 키: 모델 + 정규화된 프롬프트 + 파라미터(temperature, max_tokens)의 SHA-256
+ * - 1계층: 메모리 LRU, 2계층: DB(llm_response_cache) 영속 캐시
+ * - 항목별 TTL, 계층별 적중/미스 카운터 (llm.cache.requests{tier,result}, DB는 메모리 미스일 때만 조회)
+ */
+@Slf4j
+@Component
+public class LlmResponseCache {
+
+    @Value("${llm.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${llm.cache.memory-max-entries:500}")
+    private int memoryMaxEntries;
+
+    @Autowired
+    private LlmResponseCacheRepository cacheRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CachedContent> memory = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedContent> eldest) {
+            return size() > memoryMaxEntries;
+        }
+    };
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private Counter memoryHitCounter;
+    private Counter memoryMissCounter;
+    private Counter persistentHitCounter;
+    private Counter persistentMissCounter;
+
+    // 이 횟수만큼 저장할 때마다 만료된 DB 항목을 정리
+    private static final long EVICT_EVERY_PUTS = 100;
+
+    @PostConstruct
+    void init() {
+        memoryHitCounter = lookupCounter("memory", "hit");
+        memoryMissCounter = lookupCounter("memory", "miss");
+        persistentHitCounter = lookupCounter("persistent", "hit");
+        persistentMissCounter = lookupCounter("persistent", "miss");
+    }
+
+    /**
+     * 요청에 대한 캐시 키를 계산합니다.
+     */
+    public String keyOf(GPTRequest request) {
+        StringBuilder keySource = new StringBuilder();
+        keySource.append(request.getModel()).append('|')
+                .append(request.getTemperature()).append('|')
+                .append(request.getMax_tokens()).append('|');
+        // 로컬 모델 응답이 OpenAI 응답 자리를 차지하지 않도록 제공자를 구분 (OpenAI는 기존 키 유지)
+        LlmCallContext context = request.getCallContext();
+        if (context != null && context.getProvider() != null && !LlmProvider.OPENAI.equals(context.getProvider())) {
+            keySource.append(context.getProvider()).append('|');
+        }
+        for (GPTMessage message : request.getMessages()) {
+            keySource.append(message.getRole()).append(':')
+                    .append(normalize(message.getContent())).append('\n');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(keySource.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("캐시 키 생성 실패: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 캐시된 응답을 조회합니다. 메모리 → DB 순서로 확인하며, DB 적중 시 메모리에 올립니다.
+     */
+    public Optional<String> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        synchronized (memory) {
+            CachedContent cached = memory.get(key);
+            if (cached != null) {
+                if (cached.expiresAt.isAfter(now)) {
+                    memoryHits.incrementAndGet();
+                    memoryHitCounter.increment();
+                    return Optional.of(cached.content);
+                }
+                memory.remove(key);
+            }
+        }
+        memoryMissCounter.increment();
+
+        try {
+            Optional<LlmResponseCacheEntry> entry = cacheRepository.findById(key)
+                    .filter(e -> e.getExpiresAt().isAfter(now));
+            if (entry.isPresent()) {
+                persistentHits.incrementAndGet();
+                persistentHitCounter.increment();
+                putMemory(key, entry.get().getContent(), entry.get().getExpiresAt());
+                return Optional.of(entry.get().getContent());
+            }
+        } catch (Exception e) {
+            log.warn("LLM 응답 캐시 DB 조회 실패: {}", e.getMessage());
+        }
+
+        misses.incrementAndGet();
+        persistentMissCounter.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 응답을 두 계층 모두에 저장합니다.
+     */
+    public void put(String key, String callSite, String model, String content, Duration ttl) {
+        if (!enabled || content == null) {
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        putMemory(key, content, expiresAt);
+
+        try {
+            LlmResponseCacheEntry entry = new LlmResponseCacheEntry();
+            entry.setCacheKey(key);
+            entry.setCallSite(callSite);
+            entry.setModel(model);
+            entry.setContent(content);
+            entry.setExpiresAt(expiresAt);
+            cacheRepository.save(entry);
+
+            if (puts.incrementAndGet() % EVICT_EVERY_PUTS == 0) {
+                long evicted = evictExpired();
+                log.info("만료된 LLM 응답 캐시 {}건 정리", evicted);
+            }
+        } catch (Exception e) {
+            log.warn("LLM 응답 캐시 DB 저장 실패: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 항목을 두 계층에서 모두 제거합니다 (사용할 수 없는 응답이 캐시된 경우).
+     */
+    public void invalidate(String key) {
+        synchronized (memory) {
+            memory.remove(key);
+        }
+        try {
+            cacheRepository.deleteById(key);
+        } catch (Exception e) {
+            log.warn("LLM 응답 캐시 DB 삭제 실패: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 만료된 영속 캐시 항목을 정리합니다.
+     */
+    public long evictExpired() {
+        return cacheRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+    }
+
+    /**
+     * 계층별 적중/미스 통계
+     */
+    public Map<String, Object> stats() {
+        long memory = memoryHits.get();
+        long persistent = persistentHits.get();
+        long miss = misses.get();
+        long total = memory + persistent + miss;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memoryHits", memory);
+        stats.put("persistentHits", persistent);
+        stats.put("misses", miss);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (memory + persistent) / total);
+        synchronized (this.memory) {
+            stats.put("memoryEntries", this.memory.size());
+        }
+        return stats;
+    }
+
+    private Counter lookupCounter(String tier, String result) {
+        return Counter.builder("llm.cache.requests")
+                .description("LLM 응답 캐시 계층별 조회 결과")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void putMemory(String key, String content, LocalDateTime expiresAt) {
+        synchronized (memory) {
+            memory.put(key, new CachedContent(content, expiresAt));
+        }
+    }
+
+    /**
+     * 줄바꿈/공백 차이로 키가 달라지지 않도록 프롬프트를 정규화합니다.
+     */
+    private static String normalize(String content) {
+        if (content == null) {
+            return "";
+        }
+        return content.strip().replaceAll("\\s+", " ");
+    }
+
+    private static class CachedContent {
+        private final String content;
+        private final LocalDateTime expiresAt;
+
+        private CachedContent(String content, LocalDateTime expiresAt) {
+            this.content = content;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.chimaenono.dearmind.gpt;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "llm_response_cache")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "LLM 응답 캐시 엔티티 (영속 계층)")
+public class LlmResponseCacheEntry {
+    
+    @Id
+    @Column(name = "cache_key", length = 64)
+    @Schema(description = "캐시 키 (모델+정규화 프롬프트+파라미터의 SHA-256)", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+    private String cacheKey;
+    
+    @Column(name = "call_site", nullable = false)
+    @Schema(description = "호출 지점", example = "summary")
+    private String callSite;
+    
+    @Column(name = "model", nullable = false)
+    @Schema(description = "사용된 모델", example = "gpt-4o-mini")
+    private String model;
+    
+    @Column(name = "content", columnDefinition = "TEXT", nullable = false)
+    @Schema(description = "LLM 응답 본문")
+    private String content;
+    
+    @Column(name = "created_at", nullable = false)
+    @Schema(description = "생성 시간")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    @Schema(description = "만료 시간")
+    private LocalDateTime expiresAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
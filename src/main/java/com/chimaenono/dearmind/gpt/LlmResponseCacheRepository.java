@@ -0,0 +1,17 @@
+package com.chimaenono.dearmind.gpt;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface LlmResponseCacheRepository extends JpaRepository<LlmResponseCacheEntry, String> {
+    
+    /**
+     * 만료된 캐시 항목 삭제
+     */
+    @Transactional
+    long deleteByExpiresAtBefore(LocalDateTime time);
+}
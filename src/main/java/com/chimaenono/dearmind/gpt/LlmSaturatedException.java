@@ -0,0 +1,11 @@
+package com.chimaenono.dearmind.gpt;
+
+/**
+ * bulkhead나 속도 제한 대기열에서 정해진 시간 안에 차례를 얻지 못해 LLM 호출을 보내지 않았을 때 발생합니다.
+ */
+public class LlmSaturatedException extends RuntimeException {
+    
+    public LlmSaturatedException(String message) {
+        super(message);
+    }
+}
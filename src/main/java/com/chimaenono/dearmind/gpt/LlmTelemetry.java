@@ -0,0 +1,231 @@
+package com.chimaenono.dearmind.gpt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LLM 토큰/지연시간 텔레메트리와 토큰 예산
+ * - 호출마다 prompt/completion/cached 토큰과 지연시간을 model·call_site·provider 태그로 Micrometer에 기록
+ * - 전송 전 일일 전체 예산과 사용자별 일일 예산에서 추정 사용량을 원자적으로 예약하고, 완료 후 실제 사용량으로 정산 (0이면 무제한)
+ * - 전송 전 로컬 토크나이저로 센 프롬프트 토큰 수를 히스토그램(llm.prompt.tokens)으로 기록
+ */
+@Slf4j
+@Component
+public class LlmTelemetry {
+
+    @Value("${llm.budget.daily-tokens:0}")
+    private long dailyTokenBudget;
+
+    @Value("${llm.budget.user-daily-tokens:0}")
+    private long userDailyTokenBudget;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LlmTokenizer tokenizer;
+
+    private volatile LocalDate budgetDay = LocalDate.now();
+    private final AtomicLong dailyTokens = new AtomicLong();
+    private final Map<Long, AtomicLong> userDailyTokens = new ConcurrentHashMap<>();
+
+    /**
+     * 전송 전에 예약한 토큰 수 (settleBudget으로 정산)
+     */
+    public record BudgetReservation(LocalDate day, Long userId, long tokens) {}
+
+    /**
+     * 전송 전에 예상 사용량(프롬프트 + max_tokens)을 예산에서 예약합니다. 남은 예산이 부족하면 예외를 던집니다.
+     * 검사와 차감을 한 번에 하므로 동시 요청이 함께 한도를 넘기지 않습니다.
+     */
+    public BudgetReservation reserveBudget(GPTRequest request) {
+        rollOverIfNewDay();
+        LocalDate day = budgetDay;
+        long estimated = estimateTokens(request);
+        Long userId = contextOf(request).getUserId();
+
+        if (!tryReserve(dailyTokens, estimated, dailyTokenBudget)) {
+            countRejected(request);
+            throw new LlmBudgetExceededException("일일 LLM 토큰 예산 초과: used=" + dailyTokens.get()
+                    + ", budget=" + dailyTokenBudget);
+        }
+
+        if (userId != null) {
+            AtomicLong userTokens = userDailyTokens.computeIfAbsent(userId, id -> new AtomicLong());
+            if (!tryReserve(userTokens, estimated, userDailyTokenBudget)) {
+                dailyTokens.addAndGet(-estimated);
+                countRejected(request);
+                throw new LlmBudgetExceededException("사용자 일일 LLM 토큰 예산 초과: userId=" + userId
+                        + ", used=" + userTokens.get() + ", budget=" + userDailyTokenBudget);
+            }
+        }
+        return new BudgetReservation(day, userId, estimated);
+    }
+
+    /**
+     * 예약한 토큰을 실제 사용량으로 정산합니다.
+     * 응답이 없으면(실패) 예약분을 모두 돌려주고, 응답에 사용량이 없으면 추정치를 그대로 사용량으로 둡니다.
+     */
+    public void settleBudget(BudgetReservation reservation, GPTResponse response) {
+        long actual = reservation.tokens();
+        if (response == null) {
+            actual = 0;
+        } else if (response.getUsage() != null) {
+            GPTResponse.GPTUsage usage = response.getUsage();
+            actual = (usage.getPromptTokens() != null ? usage.getPromptTokens() : 0)
+                    + (usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0);
+        }
+        long delta = actual - reservation.tokens();
+        // 예약 후 날짜가 바뀌었으면 사용량이 이미 초기화됨
+        if (delta == 0 || !reservation.day().equals(budgetDay)) {
+            return;
+        }
+        dailyTokens.addAndGet(delta);
+        if (reservation.userId() != null) {
+            userDailyTokens.computeIfAbsent(reservation.userId(), id -> new AtomicLong()).addAndGet(delta);
+        }
+    }
+
+    /**
+     * 성공한 호출의 토큰 사용량과 지연시간을 기록합니다 (예산 반영은 settleBudget).
+     */
+    public void recordSuccess(GPTRequest request, GPTResponse response, long startNanos) {
+        String model = modelOf(request, response);
+        LlmCallContext context = contextOf(request);
+        timer(model, context, "success").record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        GPTResponse.GPTUsage usage = response != null ? response.getUsage() : null;
+        if (usage == null) {
+            return;
+        }
+        int promptTokens = usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+        int completionTokens = usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0;
+
+        tokens(model, context, "prompt").increment(promptTokens);
+        tokens(model, context, "completion").increment(completionTokens);
+        tokens(model, context, "cached").increment(usage.cachedTokens());
+    }
+
+    /**
+     * 실패한 호출의 지연시간을 기록합니다.
+     */
+    public void recordFailure(GPTRequest request, long startNanos) {
+        timer(modelOf(request, null), contextOf(request), "error")
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 전송 전 토큰 수 추정치 (토크나이저로 센 프롬프트 토큰 + 최대 완료 토큰)
+     */
+    private long estimateTokens(GPTRequest request) {
+        int promptTokens = tokenizer.countPromptTokens(request);
+        DistributionSummary.builder("llm.prompt.tokens")
+                .description("전송 전 로컬 토크나이저로 센 프롬프트 토큰 수")
+                .tag("model", modelOf(request, null))
+                .tag("call_site", contextOf(request).getCallSite())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(promptTokens);
+        long maxTokens = request.getMax_tokens() != null ? request.getMax_tokens() : 0;
+        return promptTokens + maxTokens;
+    }
+
+    /**
+     * 한도(0이면 무제한) 안일 때만 amount를 더합니다.
+     */
+    private static boolean tryReserve(AtomicLong used, long amount, long limit) {
+        while (true) {
+            long current = used.get();
+            if (limit > 0 && current + amount > limit) {
+                return false;
+            }
+            if (used.compareAndSet(current, current + amount)) {
+                return true;
+            }
+        }
+    }
+
+    private void countRejected(GPTRequest request) {
+        Counter.builder("llm.budget.rejected")
+                .description("토큰 예산 초과로 전송하지 않은 LLM 호출 수")
+                .tag("model", modelOf(request, null))
+                .tag("call_site", contextOf(request).getCallSite())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer timer(String model, LlmCallContext context, String outcome) {
+        return Timer.builder("llm.request.duration")
+                .description("LLM 호출 지연시간")
+                .tag("model", model)
+                .tag("call_site", context.getCallSite())
+                .tag("prompt", promptOf(context))
+                .tag("provider", providerOf(context))
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private Counter tokens(String model, LlmCallContext context, String type) {
+        return Counter.builder("llm.tokens")
+                .description("LLM 토큰 사용량")
+                .tag("model", model)
+                .tag("call_site", context.getCallSite())
+                .tag("prompt", promptOf(context))
+                .tag("provider", providerOf(context))
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private void rollOverIfNewDay() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(budgetDay)) {
+            synchronized (this) {
+                if (!today.equals(budgetDay)) {
+                    log.info("LLM 일일 토큰 사용량 초기화: day={}, tokens={}", budgetDay, dailyTokens.get());
+                    budgetDay = today;
+                    dailyTokens.set(0);
+                    userDailyTokens.clear();
+                }
+            }
+        }
+    }
+
+    private static LlmCallContext contextOf(GPTRequest request) {
+        LlmCallContext context = request.getCallContext();
+        if (context == null || context.getCallSite() == null) {
+            return context != null ? new LlmCallContext("unknown", context.getUserId(), context.getPrompt(), context.getProvider())
+                    : LlmCallContext.of("unknown");
+        }
+        return context;
+    }
+
+    // 프롬프트 템플릿 버전 태그 (같은 호출 지점의 A/B 변형별 지연·토큰 비교용)
+    private static String promptOf(LlmCallContext context) {
+        return context.getPrompt() != null ? context.getPrompt() : "none";
+    }
+
+    // LLM 제공자 태그 (라우터를 거치지 않은 호출은 OpenAI)
+    private static String providerOf(LlmCallContext context) {
+        return context.getProvider() != null ? context.getProvider() : LlmProvider.OPENAI;
+    }
+
+    private static String modelOf(GPTRequest request, GPTResponse response) {
+        if (request.getModel() != null) {
+            return request.getModel();
+        }
+        return response != null && response.getModel() != null ? response.getModel() : "unknown";
+    }
+}
@@ -0,0 +1,99 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import com.knuddels.jtokkit.api.EncodingType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM 내 BPE 토크나이저 (jtokkit)
+ * 모델명으로 인코딩(gpt-4 → cl100k_base, gpt-4o 계열 → o200k_base)을 찾고,
+ * 알 수 없는 모델은 llm.tokenizer.default-encoding을 사용합니다.
+ */
+@Slf4j
+@Component
+public class LlmTokenizer {
+
+    // chat 형식 메시지당 오버헤드(role/구분자)와 응답 프라이밍 토큰
+    private static final int TOKENS_PER_MESSAGE = 3;
+    private static final int REPLY_PRIMING_TOKENS = 3;
+
+    @Value("${llm.tokenizer.default-encoding:o200k_base}")
+    private String defaultEncodingName;
+
+    private final EncodingRegistry registry = Encodings.newLazyEncodingRegistry();
+    private final Map<String, Encoding> encodings = new ConcurrentHashMap<>();
+
+    /**
+     * 텍스트의 토큰 수를 셉니다.
+     */
+    public int countTokens(String model, String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return encodingFor(model).countTokens(text);
+    }
+
+    /**
+     * 요청 메시지 전체의 프롬프트 토큰 수를 셉니다 (메시지 오버헤드 포함).
+     */
+    public int countPromptTokens(GPTRequest request) {
+        int tokens = REPLY_PRIMING_TOKENS;
+        if (request.getMessages() != null) {
+            for (GPTMessage message : request.getMessages()) {
+                tokens += TOKENS_PER_MESSAGE + countTokens(request.getModel(), message.getContent());
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 앞부분을 남기고 maxTokens 이내로 자릅니다.
+     */
+    public String truncateHead(String model, String text, int maxTokens) {
+        if (text == null || maxTokens <= 0) {
+            return "";
+        }
+        Encoding encoding = encodingFor(model);
+        var result = encoding.encode(text, maxTokens);
+        return result.isTruncated() ? encoding.decode(result.getTokens()) : text;
+    }
+
+    /**
+     * 뒷부분(최근 내용)을 남기고 maxTokens 이내로 자릅니다.
+     * 문자 경계에서 자르기 위해 시작 위치를 이진 탐색합니다.
+     */
+    public String truncateTail(String model, String text, int maxTokens) {
+        if (text == null || maxTokens <= 0) {
+            return "";
+        }
+        Encoding encoding = encodingFor(model);
+        if (encoding.countTokens(text) <= maxTokens) {
+            return text;
+        }
+        int low = 0;
+        int high = text.length();
+        while (low < high) {
+            int mid = (low + high) / 2;
+            if (encoding.countTokens(text.substring(mid)) <= maxTokens) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return text.substring(low);
+    }
+
+    private Encoding encodingFor(String model) {
+        String key = model != null ? model : "";
+        return encodings.computeIfAbsent(key, name -> registry.getEncodingForModel(name)
+                .orElseGet(() -> registry.getEncoding(EncodingType.fromName(defaultEncodingName)
+                        .orElse(EncodingType.O200K_BASE))));
+    }
+}
@@ -0,0 +1,67 @@
+package com.chimaenono.dearmind.gpt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 배치 API 로컬 대체 구현 (llm.batch.provider=local)
+ * 배치 API가 없는 개발/테스트 환경용으로, 제출된 요청을 백그라운드에서 LlmGateway로 하나씩 실행하고
+ * poll 시점에 끝났으면 결과를 돌려줍니다. 제출/조회/분배 흐름은 실제 배치와 동일합니다.
+ * 실제 배치와 달리 대화 턴과 같은 모델별 bulkhead/속도 제한을 거칩니다 (한 번에 한 건씩이라 슬롯은 최대 1개만 점유).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "llm.batch.provider", havingValue = "local")
+public class LocalBatchClient implements LlmBatchClient {
+
+    @Autowired
+    private LlmGateway llmGateway;
+
+    private final Map<String, CompletableFuture<LlmBatchResult>> batches = new ConcurrentHashMap<>();
+
+    @Override
+    public String submit(Map<String, GPTRequest> requests) {
+        String batchId = "local-" + UUID.randomUUID();
+        batches.put(batchId, CompletableFuture.supplyAsync(() -> run(requests)));
+        log.info("로컬 LLM 배치 제출: batchId={}, items={}", batchId, requests.size());
+        return batchId;
+    }
+
+    @Override
+    public LlmBatchResult poll(String batchId) {
+        CompletableFuture<LlmBatchResult> future = batches.get(batchId);
+        if (future == null) {
+            return LlmBatchResult.failed("알 수 없는 배치입니다: " + batchId);
+        }
+        if (!future.isDone()) {
+            return LlmBatchResult.inProgress();
+        }
+        batches.remove(batchId);
+        return future.join();
+    }
+
+    private LlmBatchResult run(Map<String, GPTRequest> requests) {
+        LlmBatchResult result = new LlmBatchResult();
+        result.setStatus(LlmBatchResult.Status.COMPLETED);
+        for (Map.Entry<String, GPTRequest> entry : requests.entrySet()) {
+            try {
+                GPTResponse response = llmGateway.send(entry.getValue());
+                if (response.getChoices() == null || response.getChoices().isEmpty()) {
+                    result.getErrors().put(entry.getKey(), "GPT API 응답에 선택지가 없습니다.");
+                    continue;
+                }
+                result.getOutputs().put(entry.getKey(), response.getChoices().get(0).getMessage().getContent());
+            } catch (Exception e) {
+                result.getErrors().put(entry.getKey(), e.getMessage());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 같은 호스트(또는 사설망)의 CPU 추론 서버를 쓰는 LLM 제공자 (llm.local.enabled=true)
+ * llama.cpp server(llama-server -m model.gguf)처럼 OpenAI 호환 /v1/chat/completions를 제공하는 서버를 대상으로 하며,
+ * WAN 왕복 없이 짧은 턴을 처리하거나 네트워크 없는 개발/테스트 환경에서 사용합니다.
+ * - 모델명은 llm.local.model로 바꿔 보내고, 요청 DTO는 변경하지 않음 (실패 시 OpenAI 대체 전송용)
+ * - cache_prompt로 고정 규칙 블록 같은 공통 프롬프트 앞부분의 KV 캐시를 서버에서 재사용
+ * - CPU 추론은 동시 처리량이 작으므로 bulkhead로 동시 요청 수를 제한
+ * OpenAI 속도 제한(OpenAiRateLimiter)과 헤지는 적용하지 않습니다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "llm.local.enabled", havingValue = "true")
+public class LocalLlmProvider implements LlmProvider {
+
+    @Value("${llm.local.url:http://localhost:8080/v1}")
+    private String apiUrl;
+
+    // 서버가 로드한 모델 이름 (llama.cpp는 값과 무관하게 로드된 모델로 응답)
+    @Value("${llm.local.model:local-gguf}")
+    private String model;
+
+    // --api-key로 띄운 서버만 필요
+    @Value("${llm.local.api-key:}")
+    private String apiKey;
+
+    @Value("${llm.local.max-in-flight:2}")
+    private int maxInFlight;
+
+    @Value("${llm.local.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    @Value("${llm.local.request-timeout-seconds:60}")
+    private long requestTimeoutSeconds;
+
+    @Value("${llm.local.cache-prompt:true}")
+    private boolean cachePrompt;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .executor(executor)
+            .build();
+    private Semaphore bulkhead;
+
+    @PostConstruct
+    void init() {
+        bulkhead = new Semaphore(maxInFlight, true);
+        log.info("로컬 LLM 제공자 활성화: url={}, model={}, maxInFlight={}", apiUrl, model, maxInFlight);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String getName() {
+        return LOCAL;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    @Override
+    public GPTResponse send(GPTRequest request) throws Exception {
+        acquire();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(buildHttpRequest(request),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new LlmProviderException(response.statusCode(), "로컬 LLM 호출 실패: " + response.statusCode()
+                            + " - " + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                }
+                return objectMapper.readValue(body, GPTResponse.class);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    @Override
+    public GPTResponse stream(GPTRequest request, Consumer<String> onDelta) throws Exception {
+        acquire();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(buildHttpRequest(request),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                if (response.statusCode() != 200) {
+                    StringBuilder errorBody = new StringBuilder();
+                    reader.lines().forEach(errorBody::append);
+                    throw new LlmProviderException(response.statusCode(),
+                            "로컬 LLM 호출 실패: " + response.statusCode() + " - " + errorBody);
+                }
+                return ChatCompletionStreamReader.read(reader, objectMapper, onDelta);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private void acquire() throws InterruptedException {
+        if (!bulkhead.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            throw new LlmSaturatedException("로컬 LLM 동시 요청 한도 초과: maxInFlight=" + maxInFlight);
+        }
+    }
+
+    private HttpRequest buildHttpRequest(GPTRequest request) throws Exception {
+        ObjectNode body = objectMapper.valueToTree(request);
+        body.put("model", model);
+        if (cachePrompt) {
+            body.put("cache_prompt", true);
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/chat/completions"))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .timeout(Duration.ofSeconds(requestTimeoutSeconds));
+        if (!apiKey.isBlank()) {
+            builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey);
+        }
+        return builder.build();
+    }
+}
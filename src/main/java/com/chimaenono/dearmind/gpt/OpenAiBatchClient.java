@@ -0,0 +1,173 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * OpenAI Batch API 클라이언트
+ * 요청을 JSONL 파일로 업로드(/files, purpose=batch)한 뒤 /batches로 제출하고,
+ * 완료되면 output/error 파일을 내려받아 custom_id별로 나눕니다.
+ * 배치 요청은 실시간 요청과 별도 한도로 처리되고 단가도 낮습니다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "llm.batch.provider", havingValue = "openai", matchIfMissing = true)
+public class OpenAiBatchClient implements LlmBatchClient {
+
+    private static final String CHAT_COMPLETIONS_PATH = "/v1/chat/completions";
+
+    @Value("${openai.api.key}")
+    private String apiKey;
+
+    @Value("${openai.api.url}")
+    private String apiUrl;
+
+    @Value("${llm.batch.completion-window:24h}")
+    private String completionWindow;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public String submit(Map<String, GPTRequest> requests) throws Exception {
+        // 1. JSONL 요청 파일 구성
+        StringBuilder jsonl = new StringBuilder();
+        for (Map.Entry<String, GPTRequest> entry : requests.entrySet()) {
+            Map<String, Object> line = new HashMap<>();
+            line.put("custom_id", entry.getKey());
+            line.put("method", "POST");
+            line.put("url", CHAT_COMPLETIONS_PATH);
+            line.put("body", entry.getValue());
+            jsonl.append(objectMapper.writeValueAsString(line)).append("\n");
+        }
+
+        // 2. 파일 업로드
+        String fileId = uploadBatchFile(jsonl.toString()).path("id").asText();
+
+        // 3. 배치 생성
+        Map<String, Object> body = new HashMap<>();
+        body.put("input_file_id", fileId);
+        body.put("endpoint", CHAT_COMPLETIONS_PATH);
+        body.put("completion_window", completionWindow);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/batches"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        JsonNode batch = objectMapper.readTree(execute(request));
+        String batchId = batch.path("id").asText();
+        log.info("LLM 배치 제출: batchId={}, fileId={}, items={}", batchId, fileId, requests.size());
+        return batchId;
+    }
+
+    @Override
+    public LlmBatchResult poll(String batchId) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/batches/" + batchId))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .GET()
+                .build();
+        JsonNode batch = objectMapper.readTree(execute(request));
+        String status = batch.path("status").asText();
+
+        switch (status) {
+            case "validating":
+            case "in_progress":
+            case "finalizing":
+            case "cancelling":
+                return LlmBatchResult.inProgress();
+            case "completed":
+            case "expired":
+                // expired도 창 안에 끝난 항목은 output 파일에 포함됨
+                LlmBatchResult result = new LlmBatchResult();
+                result.setStatus(LlmBatchResult.Status.COMPLETED);
+                readResultFile(batch.path("output_file_id").asText(null), result);
+                readResultFile(batch.path("error_file_id").asText(null), result);
+                return result;
+            default:
+                return LlmBatchResult.failed("배치 상태: " + status);
+        }
+    }
+
+    private void readResultFile(String fileId, LlmBatchResult result) throws Exception {
+        if (fileId == null || fileId.isBlank()) {
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/files/" + fileId + "/content"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .GET()
+                .build();
+
+        for (String line : execute(request).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node = objectMapper.readTree(line);
+            String customId = node.path("custom_id").asText();
+            JsonNode response = node.path("response");
+            if (response.path("status_code").asInt() == 200) {
+                String content = response.path("body").path("choices").path(0)
+                        .path("message").path("content").asText(null);
+                if (content != null) {
+                    result.getOutputs().put(customId, content);
+                    continue;
+                }
+            }
+            String message = node.path("error").path("message").asText(
+                    response.path("body").path("error").path("message").asText("응답 없음"));
+            result.getErrors().put(customId, message);
+        }
+    }
+
+    private JsonNode uploadBatchFile(String jsonl) throws Exception {
+        String boundary = "----dearmind-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"purpose\"\r\n\r\n"
+                + "batch\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"batch.jsonl\"\r\n"
+                + "Content-Type: application/jsonl\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(jsonl.getBytes(StandardCharsets.UTF_8));
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/files"))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
+                .header(HttpHeaders.CONTENT_TYPE, "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return objectMapper.readTree(execute(request));
+    }
+
+    private String execute(HttpRequest request) throws Exception {
+        HttpResponse<String> response = httpClient.send(request,
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() / 100 != 2) {
+            throw new RuntimeException("OpenAI 배치 API 호출 실패: " + response.statusCode() + " - " + response.body());
+        }
+        return response.body();
+    }
+}
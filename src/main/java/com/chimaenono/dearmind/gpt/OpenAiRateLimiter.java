@@ -0,0 +1,556 @@
+package com.chimaenono.dearmind.gpt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpHeaders;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * OpenAI 호출(chat, Whisper)이 공유하는 RPM/TPM 토큰 버킷 스케줄러
+ * - 모델별 요청 버킷(RPM)과 토큰 버킷(TPM)을 초당 연속 보충
+ * - 계정 공용 요청 버킷(shared-rpm): 모델과 무관하게 모든 호출이 먼저 통과하며, Whisper(STT)도 여기서 대화 턴·백그라운드와 경쟁
+ * - 우선순위: INTERACTIVE(대화 턴) > STT > BACKGROUND(요약/일기/음악)
+ *   높은 등급을 먼저 허가하되, 낮은 등급도 허가 N건마다 1건은 받도록 해 기아를 막음
+ *   밀린 등급의 맨 앞 요청이 한도에 맞지 않으면 그 뒤의 높은 등급을 막지 않고 맞는 등급 중 가장 높은 등급을 허가
+ * - 같은 등급 안에서는 사용자별 큐를 돌아가며 허가 (한 사용자의 대량 요청이 다른 사용자를 막지 않음)
+ * - 응답의 x-ratelimit-* 헤더로 실제 한도/잔량을 반영하고, 429의 재시도 시간 동안 버킷을 멈춤
+ */
+@Slf4j
+@Component
+public class OpenAiRateLimiter {
+
+    public enum Priority { INTERACTIVE, STT, BACKGROUND }
+
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    // 헤더를 받기 전 기본 한도 (요청/분, 토큰/분; 0이면 제한 없음)
+    @Value("${openai.rate-limit.rpm:500}")
+    private long defaultRpm;
+
+    @Value("${openai.rate-limit.tpm:200000}")
+    private long defaultTpm;
+
+    // 모델별 한도 (예: "gpt-4=500:10000,whisper-1=50:0")
+    @Value("${openai.rate-limit.model-limits:whisper-1=50:0}")
+    private String modelLimitsConfig;
+
+    // 모든 모델이 함께 쓰는 요청/분 한도 (0이면 공용 버킷 없이 모델별 버킷만 사용)
+    @Value("${openai.rate-limit.shared-rpm:500}")
+    private long sharedRpm;
+
+    // 낮은 등급이 굶지 않도록 상위 등급 허가 N건마다 하위 등급 1건을 먼저 허가
+    @Value("${openai.rate-limit.starvation-guard:8}")
+    private int starvationGuard;
+
+    @Value("${openai.rate-limit.timeout-ms.interactive:10000}")
+    private long interactiveTimeoutMs;
+
+    @Value("${openai.rate-limit.timeout-ms.stt:15000}")
+    private long sttTimeoutMs;
+
+    @Value("${openai.rate-limit.timeout-ms.background:300000}")
+    private long backgroundTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, long[]> modelLimits = new HashMap<>();
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private Bucket sharedBucket;
+
+    @PostConstruct
+    void parseModelLimits() {
+        if (sharedRpm > 0) {
+            sharedBucket = new Bucket(sharedRpm, 0);
+        }
+        if (modelLimitsConfig == null || modelLimitsConfig.isBlank()) {
+            return;
+        }
+        for (String entry : modelLimitsConfig.split(",")) {
+            String[] pair = entry.split("=");
+            String[] limits = pair.length == 2 ? pair[1].split(":") : new String[0];
+            if (limits.length == 2) {
+                modelLimits.put(pair[0].trim(), new long[] {
+                        Long.parseLong(limits[0].trim()), Long.parseLong(limits[1].trim())});
+            }
+        }
+        log.info("OpenAI 속도 제한 설정: default={}rpm/{}tpm, models={}", defaultRpm, defaultTpm, modelLimitsConfig);
+    }
+
+    /**
+     * 호출 지점에 맞는 우선순위 (대화 턴·테스트 → INTERACTIVE, 그 외 → BACKGROUND)
+     */
+    public static Priority priorityOf(GPTRequest request) {
+        LlmCallContext context = request.getCallContext();
+        if (context == null || context.getCallSite() == null) {
+            return Priority.BACKGROUND;
+        }
+        return switch (context.getCallSite()) {
+            case LlmCallContext.TURN, LlmCallContext.TEST -> Priority.INTERACTIVE;
+            default -> Priority.BACKGROUND;
+        };
+    }
+
+    /**
+     * 요청 1건과 tokens만큼의 한도를 확보할 때까지 기다립니다.
+     * 우선순위별 대기 한도를 넘기면 예외를 던집니다.
+     */
+    public void acquire(String model, Priority priority, Long userId, long tokens) throws InterruptedException {
+        Bucket bucket = bucket(model);
+        long startNanos = System.nanoTime();
+        long timeoutMs = timeoutMs(priority);
+        // 공용 버킷에서 등급끼리 순서를 정한 뒤 남은 대기 시간 안에 모델 버킷 확보
+        if (sharedBucket != null && !sharedBucket.acquire(priority, userId, 0, timeoutMs)) {
+            counter("openai.ratelimit.rejected", model, priority).increment();
+            throw new LlmSaturatedException("OpenAI 속도 제한 대기 시간 초과 (공용): model=" + model + ", priority=" + priority);
+        }
+        long remainingMs = timeoutMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        boolean granted = false;
+        try {
+            granted = bucket.acquire(priority, userId, tokens, Math.max(0, remainingMs));
+        } finally {
+            // 모델 버킷을 얻지 못하면(시간 초과·인터럽트) 공용 허가는 쓰지 않았으므로 돌려줌
+            if (!granted && sharedBucket != null) {
+                sharedBucket.refund(0);
+            }
+        }
+        if (!granted) {
+            counter("openai.ratelimit.rejected", model, priority).increment();
+            throw new LlmSaturatedException("OpenAI 속도 제한 대기 시간 초과: model=" + model + ", priority=" + priority);
+        }
+        Timer.builder("openai.ratelimit.wait")
+                .description("OpenAI 속도 제한 대기 시간")
+                .tag("model", model)
+                .tag("priority", priority.name().toLowerCase())
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 대기 없이 즉시 확보할 수 있을 때만 확보합니다 (헤지 요청용, 대기 중인 요청보다 앞서지 않음).
+     */
+    public boolean tryAcquire(String model, long tokens) {
+        Bucket bucket = bucket(model);
+        if (!bucket.tryAcquireImmediately(tokens)) {
+            return false;
+        }
+        if (sharedBucket != null && !sharedBucket.tryAcquireImmediately(0)) {
+            bucket.refund(tokens);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 응답 헤더와 상태 코드를 반영합니다.
+     * - x-ratelimit-limit-* : 실제 한도로 버킷 크기 갱신
+     * - x-ratelimit-remaining-* : 서버 잔량보다 많이 남아 있다고 보지 않도록 맞춤
+     * - 429 : retry-after 또는 x-ratelimit-reset-* 동안 해당 모델 허가 중지
+     */
+    public void observe(String model, int statusCode, HttpHeaders headers) {
+        Bucket bucket = bucket(model);
+        long limitRequests = headerLong(headers, "x-ratelimit-limit-requests");
+        long limitTokens = headerLong(headers, "x-ratelimit-limit-tokens");
+        long remainingRequests = headerLong(headers, "x-ratelimit-remaining-requests");
+        long remainingTokens = headerLong(headers, "x-ratelimit-remaining-tokens");
+        bucket.sync(limitRequests, limitTokens, remainingRequests, remainingTokens);
+
+        if (statusCode == 429) {
+            long pauseMs = retryAfterMs(headers, remainingRequests, remainingTokens);
+            bucket.pause(pauseMs);
+            counter("openai.ratelimit.throttled", model, null).increment();
+            log.warn("OpenAI 429 수신, {}ms 동안 허가 중지: model={}", pauseMs, model);
+        }
+    }
+
+    /**
+     * 모델별 대기열/버킷 상태 (운영 확인용)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (sharedBucket != null) {
+            stats.put("shared", sharedBucket.snapshot());
+        }
+        buckets.forEach((model, bucket) -> stats.put(model, bucket.snapshot()));
+        return stats;
+    }
+
+    private Bucket bucket(String model) {
+        return buckets.computeIfAbsent(model, key -> {
+            long[] limits = modelLimits.getOrDefault(key, new long[] {defaultRpm, defaultTpm});
+            return new Bucket(limits[0], limits[1]);
+        });
+    }
+
+    private long timeoutMs(Priority priority) {
+        return switch (priority) {
+            case INTERACTIVE -> interactiveTimeoutMs;
+            case STT -> sttTimeoutMs;
+            case BACKGROUND -> backgroundTimeoutMs;
+        };
+    }
+
+    private Counter counter(String name, String model, Priority priority) {
+        Counter.Builder builder = Counter.builder(name).tag("model", model);
+        if (priority != null) {
+            builder.tag("priority", priority.name().toLowerCase());
+        }
+        return builder.register(meterRegistry);
+    }
+
+    private static long headerLong(HttpHeaders headers, String name) {
+        try {
+            return headers.firstValue(name).map(String::trim).map(Long::parseLong).orElse(-1L);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * retry-after-ms → retry-after(초) 순으로 사용하고, 없으면 소진된 쪽(요청/토큰)의 x-ratelimit-reset-* ("6m0s", "20ms")
+     * 어느 것도 없으면 1초
+     */
+    private static long retryAfterMs(HttpHeaders headers, long remainingRequests, long remainingTokens) {
+        long retryMs = headers.firstValue("retry-after-ms").map(v -> parseNumberMs(v, 1)).orElse(-1L);
+        if (retryMs < 0) {
+            retryMs = headers.firstValue("retry-after").map(v -> parseNumberMs(v, 1000)).orElse(-1L);
+        }
+        if (retryMs < 0 && remainingRequests == 0) {
+            retryMs = headers.firstValue("x-ratelimit-reset-requests").map(OpenAiRateLimiter::parseDurationMs).orElse(-1L);
+        }
+        if (remainingTokens == 0) {
+            long tokenResetMs = headers.firstValue("x-ratelimit-reset-tokens").map(OpenAiRateLimiter::parseDurationMs).orElse(-1L);
+            retryMs = Math.max(retryMs, tokenResetMs);
+        }
+        return retryMs > 0 ? retryMs : 1000;
+    }
+
+    private static long parseNumberMs(String value, long unitMs) {
+        try {
+            return (long) (Double.parseDouble(value.trim()) * unitMs);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static long parseDurationMs(String value) {
+        Matcher matcher = DURATION_PART.matcher(value);
+        double totalMs = 0;
+        boolean found = false;
+        while (matcher.find()) {
+            found = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            totalMs += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1000;
+                default -> amount;
+            };
+        }
+        return found ? (long) Math.ceil(totalMs) : -1;
+    }
+
+    /**
+     * 모델 하나의 RPM/TPM 버킷과 우선순위별 대기열
+     */
+    private class Bucket {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+
+        private long rpm;
+        private long tpm;
+        private double requests;
+        private double tokens;
+        private long lastRefillNanos = System.nanoTime();
+        private long pausedUntilNanos = 0;
+
+        // 등급별 → 사용자별 FIFO 대기열 (사용자 순서대로 돌아가며 허가)
+        private final Map<Priority, LinkedHashMap<Long, ArrayDeque<Ticket>>> waiting = new EnumMap<>(Priority.class);
+        private final Map<Priority, Integer> grantsSinceServed = new EnumMap<>(Priority.class);
+
+        Bucket(long rpm, long tpm) {
+            this.rpm = rpm;
+            this.tpm = tpm;
+            this.requests = rpm;
+            this.tokens = tpm;
+            for (Priority priority : Priority.values()) {
+                waiting.put(priority, new LinkedHashMap<>());
+                grantsSinceServed.put(priority, 0);
+            }
+        }
+
+        boolean acquire(Priority priority, Long userId, long cost, long timeoutMs) throws InterruptedException {
+            Ticket ticket = new Ticket(cost);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            lock.lock();
+            try {
+                waiting.get(priority).computeIfAbsent(userId, key -> new ArrayDeque<>()).addLast(ticket);
+                dispatch();
+                while (!ticket.granted) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        remove(priority, userId, ticket);
+                        return false;
+                    }
+                    changed.awaitNanos(Math.min(remaining, nanosUntilNextGrant(cost)));
+                    dispatch();
+                }
+                return true;
+            } catch (InterruptedException e) {
+                if (!ticket.granted) {
+                    remove(priority, userId, ticket);
+                }
+                throw e;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean tryAcquireImmediately(long cost) {
+            lock.lock();
+            try {
+                refill();
+                boolean queued = waiting.values().stream().anyMatch(users -> !users.isEmpty());
+                if (queued || !hasCapacity(cost)) {
+                    return false;
+                }
+                consume(cost);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 허가했지만 쓰지 않은 요청 1건과 cost만큼의 토큰을 돌려주고, 대기 중인 요청에 다시 배분합니다.
+         */
+        void refund(long cost) {
+            lock.lock();
+            try {
+                refill();
+                if (rpm > 0) {
+                    requests = Math.min(rpm, requests + 1);
+                }
+                if (tpm > 0) {
+                    tokens = Math.min(tpm, tokens + cost);
+                }
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void sync(long limitRequests, long limitTokens, long remainingRequests, long remainingTokens) {
+            lock.lock();
+            try {
+                refill();
+                if (limitRequests > 0) {
+                    rpm = limitRequests;
+                }
+                if (limitTokens > 0) {
+                    tpm = limitTokens;
+                }
+                if (remainingRequests >= 0) {
+                    requests = Math.min(requests, remainingRequests);
+                }
+                if (remainingTokens >= 0) {
+                    tokens = Math.min(tokens, remainingTokens);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void pause(long pauseMs) {
+            lock.lock();
+            try {
+                pausedUntilNanos = Math.max(pausedUntilNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pauseMs));
+                requests = Math.min(requests, 0);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            lock.lock();
+            try {
+                refill();
+                Map<String, Object> snapshot = new LinkedHashMap<>();
+                snapshot.put("rpm", rpm);
+                snapshot.put("tpm", tpm);
+                snapshot.put("availableRequests", (long) requests);
+                snapshot.put("availableTokens", (long) tokens);
+                snapshot.put("pausedMs", Math.max(0, TimeUnit.NANOSECONDS.toMillis(pausedUntilNanos - System.nanoTime())));
+                Map<String, Integer> queued = new LinkedHashMap<>();
+                waiting.forEach((priority, users) -> queued.put(priority.name().toLowerCase(),
+                        users.values().stream().mapToInt(ArrayDeque::size).sum()));
+                snapshot.put("queued", queued);
+                return snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 여유가 있는 동안 다음 순번 요청을 허가합니다 (lock 보유 상태에서 호출).
+         */
+        private void dispatch() {
+            refill();
+            boolean grantedAny = false;
+            while (true) {
+                // 등급 안에서는 순번을 지켜 뒤의 작은 요청이 앞지르지 않지만, 한 등급의 큰 요청이 다른 등급을 막지는 않음
+                Priority next = null;
+                for (Priority candidate : dispatchOrder()) {
+                    Ticket head = waiting.get(candidate).values().iterator().next().peekFirst();
+                    if (hasCapacity(head.cost)) {
+                        next = candidate;
+                        break;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                LinkedHashMap<Long, ArrayDeque<Ticket>> users = waiting.get(next);
+                Map.Entry<Long, ArrayDeque<Ticket>> first = users.entrySet().iterator().next();
+                Ticket ticket = first.getValue().pollFirst();
+                consume(ticket.cost);
+                ticket.granted = true;
+                grantedAny = true;
+
+                // 이 사용자를 등급 대기열의 맨 뒤로 돌림
+                Long userId = first.getKey();
+                ArrayDeque<Ticket> rest = first.getValue();
+                users.remove(userId);
+                if (!rest.isEmpty()) {
+                    users.put(userId, rest);
+                }
+                recordGrant(next);
+            }
+            if (grantedAny) {
+                changed.signalAll();
+            }
+        }
+
+        /**
+         * 허가를 시도할 등급 순서: 대기 중인 등급을 높은 순으로, 단 starvationGuard건 동안 밀린 하위 등급이 있으면 그 등급을 맨 앞에.
+         */
+        private List<Priority> dispatchOrder() {
+            List<Priority> order = new ArrayList<>();
+            Priority starved = null;
+            for (Priority priority : Priority.values()) {
+                if (waiting.get(priority).isEmpty()) {
+                    continue;
+                }
+                if (!order.isEmpty() && starved == null && grantsSinceServed.get(priority) >= starvationGuard) {
+                    starved = priority;
+                } else {
+                    order.add(priority);
+                }
+            }
+            if (starved != null) {
+                order.add(0, starved);
+            }
+            return order;
+        }
+
+        private void recordGrant(Priority served) {
+            for (Priority priority : Priority.values()) {
+                boolean waitingNow = !waiting.get(priority).isEmpty();
+                grantsSinceServed.put(priority,
+                        priority == served || !waitingNow ? 0 : grantsSinceServed.get(priority) + 1);
+            }
+        }
+
+        private void remove(Priority priority, Long userId, Ticket ticket) {
+            ArrayDeque<Ticket> queue = waiting.get(priority).get(userId);
+            if (queue != null) {
+                queue.remove(ticket);
+                if (queue.isEmpty()) {
+                    waiting.get(priority).remove(userId);
+                }
+            }
+            // 앞 순번이 빠졌으니 뒤 요청이 허가될 수 있음
+            dispatch();
+        }
+
+        private boolean hasCapacity(long cost) {
+            if (System.nanoTime() < pausedUntilNanos) {
+                return false;
+            }
+            boolean requestOk = rpm <= 0 || requests >= 1;
+            // 한도보다 큰 요청은 버킷이 가득 찼을 때 허가 (영원히 막히지 않도록)
+            boolean tokenOk = tpm <= 0 || tokens >= Math.min(cost, tpm);
+            return requestOk && tokenOk;
+        }
+
+        private void consume(long cost) {
+            if (rpm > 0) {
+                requests -= 1;
+            }
+            if (tpm > 0) {
+                tokens -= cost;
+            }
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            double minutes = (now - lastRefillNanos) / 60_000_000_000.0;
+            lastRefillNanos = now;
+            if (rpm > 0) {
+                requests = Math.min(rpm, requests + rpm * minutes);
+            }
+            if (tpm > 0) {
+                tokens = Math.min(tpm, tokens + tpm * minutes);
+            }
+        }
+
+        /**
+         * 다음 허가가 가능해질 때까지의 대략적인 대기 시간 (최소 5ms, 최대 1초)
+         */
+        private long nanosUntilNextGrant(long cost) {
+            long now = System.nanoTime();
+            if (now < pausedUntilNanos) {
+                return Math.min(pausedUntilNanos - now, TimeUnit.SECONDS.toNanos(1));
+            }
+            double waitMinutes = 0;
+            if (rpm > 0 && requests < 1) {
+                waitMinutes = Math.max(waitMinutes, (1 - requests) / rpm);
+            }
+            double neededTokens = Math.min(cost, tpm) - tokens;
+            if (tpm > 0 && neededTokens > 0) {
+                waitMinutes = Math.max(waitMinutes, neededTokens / tpm);
+            }
+            long waitNanos = (long) (waitMinutes * 60_000_000_000.0);
+            return Math.max(TimeUnit.MILLISECONDS.toNanos(5), Math.min(waitNanos, TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+
+    private static class Ticket {
+        private final long cost;
+        private boolean granted = false;
+
+        Ticket(long cost) {
+            this.cost = cost;
+        }
+    }
+}
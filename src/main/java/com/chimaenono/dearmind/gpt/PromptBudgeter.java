@@ -0,0 +1,97 @@
+package com.chimaenono.dearmind.gpt;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 호출 지점별 프롬프트 토큰 예산
+ * 프롬프트를 보내기 전에 토큰 수를 세고, 예산을 넘으면 선택 구간(이전 턴 문맥, 대화 기록)을 잘라 맞춥니다.
+ */
+@Slf4j
+@Component
+public class PromptBudgeter {
+
+    // 호출 지점별 프롬프트 토큰 예산 (예: "turn=2000,summary=6000")
+    @Value("${llm.prompt-budget.limits:turn=2000,summary=6000,diary=3000,music=2000,diary_bundle=8000}")
+    private String limitsConfig;
+
+    @Value("${llm.prompt-budget.default:8000}")
+    private int defaultBudget;
+
+    @Autowired
+    private LlmTokenizer tokenizer;
+
+    private final Map<String, Integer> limits = new HashMap<>();
+
+    @PostConstruct
+    void parseLimits() {
+        if (limitsConfig == null || limitsConfig.isBlank()) {
+            return;
+        }
+        for (String entry : limitsConfig.split(",")) {
+            String[] pair = entry.split("=");
+            if (pair.length == 2) {
+                limits.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+            }
+        }
+        log.info("프롬프트 토큰 예산: default={}, callSites={}", defaultBudget, limits);
+    }
+
+    public int budgetFor(String callSite) {
+        return limits.getOrDefault(callSite, defaultBudget);
+    }
+
+    /**
+     * 요청이 호출 지점 예산을 몇 토큰 넘는지 반환합니다 (넘지 않으면 0 이하).
+     */
+    public int overBudget(GPTRequest request, String callSite) {
+        return tokenizer.countPromptTokens(request) - budgetFor(callSite);
+    }
+
+    /**
+     * 텍스트의 토큰 수를 excessTokens만큼 줄입니다 (최근 내용인 뒷부분 유지).
+     */
+    public String shrink(String model, String text, int excessTokens) {
+        if (text == null || text.isEmpty() || excessTokens <= 0) {
+            return text;
+        }
+        int tokens = tokenizer.countTokens(model, text);
+        return tokenizer.truncateTail(model, text, tokens - excessTokens);
+    }
+
+    /**
+     * 대화 기록을 maxTokens 이내가 되도록 오래된 줄부터 버립니다 (줄 단위라 발화가 중간에 잘리지 않음).
+     */
+    public String fitTranscript(String model, String transcript, int maxTokens) {
+        if (tokenizer.countTokens(model, transcript) <= maxTokens) {
+            return transcript;
+        }
+        String[] lines = transcript.split("\n");
+        StringBuilder kept = new StringBuilder();
+        int tokens = 0;
+        int firstKept = lines.length;
+        for (int i = lines.length - 1; i >= 0; i--) {
+            int lineTokens = tokenizer.countTokens(model, lines[i] + "\n");
+            if (tokens + lineTokens > maxTokens) {
+                break;
+            }
+            tokens += lineTokens;
+            firstKept = i;
+        }
+        for (int i = firstKept; i < lines.length; i++) {
+            kept.append(lines[i]).append("\n");
+        }
+        log.info("대화 기록을 프롬프트 예산에 맞춤: lines {} → {}, tokens ≤ {}", lines.length, lines.length - firstKept, maxTokens);
+        return kept.toString();
+    }
+
+    public int countTokens(String model, String text) {
+        return tokenizer.countTokens(model, text);
+    }
+}
@@ -0,0 +1,275 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 시작 시 한 번 파싱해 두는 불변 프롬프트 템플릿
+ * - 슬롯: {{name}} 또는 {{name:type}} (type: text, int, json / 기본 text)
+ * - 조건 구간: {{#name}}...{{/name}}는 값이 있을 때만, {{^name}}...{{/name}}는 값이 없을 때만 출력
+ * - 구간 태그만 있는 줄은 줄째로 사라지므로 템플릿 파일을 줄 단위로 읽기 쉽게 쓸 수 있습니다.
+ * 렌더링은 리터럴 길이와 슬롯 값 길이로 버퍼 크기를 미리 잡은 뒤 구간을 한 번 훑으며 채웁니다.
+ */
+public final class PromptTemplate {
+
+    public enum SlotType { TEXT, INT, JSON }
+
+    private static final Pattern NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private sealed interface Segment permits Literal, Slot, Section {}
+
+    private record Literal(String text) implements Segment {}
+
+    private record Slot(String name, SlotType type) implements Segment {}
+
+    private record Section(String name, boolean inverted, List<Segment> body) implements Segment {}
+
+    private final String name;
+    private final int version;
+    private final List<Segment> segments;
+    private final Map<String, SlotType> slots;
+    private final String constant;   // 슬롯/구간이 없으면 미리 만든 결과를 그대로 반환
+
+    private PromptTemplate(String name, int version, List<Segment> segments, Map<String, SlotType> slots,
+                           boolean hasSections) {
+        this.name = name;
+        this.version = version;
+        this.segments = segments;
+        this.slots = Collections.unmodifiableMap(slots);
+        this.constant = slots.isEmpty() && !hasSections ? concatLiterals(segments) : null;
+    }
+
+    /**
+     * 템플릿 원문을 세그먼트로 파싱합니다. 문법 오류는 IllegalArgumentException으로 알립니다.
+     */
+    public static PromptTemplate parse(String name, int version, String source) {
+        Map<String, SlotType> slots = new LinkedHashMap<>();
+        Deque<List<Segment>> bodies = new ArrayDeque<>();
+        Deque<Section> open = new ArrayDeque<>();
+        bodies.push(new ArrayList<>());
+        boolean hasSections = false;
+
+        int pos = 0;
+        while (pos < source.length()) {
+            int start = source.indexOf("{{", pos);
+            if (start < 0) {
+                addLiteral(bodies.peek(), source.substring(pos));
+                break;
+            }
+            int end = source.indexOf("}}", start + 2);
+            if (end < 0) {
+                throw new IllegalArgumentException("닫히지 않은 태그입니다: " + name + "@v" + version + ", offset=" + start);
+            }
+            String tag = source.substring(start + 2, end).trim();
+            char kind = tag.isEmpty() ? ' ' : tag.charAt(0);
+            int literalEnd = start;
+            int next = end + 2;
+
+            if (kind == '#' || kind == '^' || kind == '/') {
+                // 구간 태그가 한 줄을 혼자 차지하면 그 줄(들여쓰기와 줄바꿈 포함)을 통째로 지움
+                int lineStart = source.lastIndexOf('\n', start - 1) + 1;
+                int lineEnd = source.indexOf('\n', next);
+                int lineLimit = lineEnd < 0 ? source.length() : lineEnd;
+                if (lineStart >= pos && isBlank(source, lineStart, start) && isBlank(source, next, lineLimit)) {
+                    literalEnd = lineStart;
+                    next = lineEnd < 0 ? source.length() : lineEnd + 1;
+                }
+            }
+            addLiteral(bodies.peek(), source.substring(pos, literalEnd));
+
+            if (kind == '#' || kind == '^') {
+                String sectionName = checkName(name, version, tag.substring(1).trim());
+                open.push(new Section(sectionName, kind == '^', new ArrayList<>()));
+                bodies.push(open.peek().body());
+                hasSections = true;
+            } else if (kind == '/') {
+                String sectionName = tag.substring(1).trim();
+                if (open.isEmpty() || !open.peek().name().equals(sectionName)) {
+                    throw new IllegalArgumentException("짝이 맞지 않는 구간 종료 태그입니다: " + name + "@v" + version
+                            + ", tag=" + sectionName);
+                }
+                Section section = open.pop();
+                bodies.pop();
+                bodies.peek().add(new Section(section.name(), section.inverted(), List.copyOf(section.body())));
+            } else {
+                Slot slot = parseSlot(name, version, tag);
+                SlotType declared = slots.putIfAbsent(slot.name(), slot.type());
+                if (declared != null && declared != slot.type()) {
+                    throw new IllegalArgumentException("같은 슬롯에 서로 다른 타입이 선언되었습니다: " + name + "@v" + version
+                            + ", slot=" + slot.name());
+                }
+                bodies.peek().add(slot);
+            }
+            pos = next;
+        }
+        if (!open.isEmpty()) {
+            throw new IllegalArgumentException("닫히지 않은 구간입니다: " + name + "@v" + version + ", section=" + open.peek().name());
+        }
+        return new PromptTemplate(name, version, List.copyOf(bodies.pop()), slots, hasSections);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * 메트릭 태그와 로그에 쓰는 식별자 (예: diary@v2)
+     */
+    public String getId() {
+        return name + "@v" + version;
+    }
+
+    public Map<String, SlotType> getSlots() {
+        return slots;
+    }
+
+    /**
+     * 슬롯을 채운 프롬프트를 반환합니다.
+     * 출력되는 구간의 슬롯 값이 없거나 타입이 맞지 않으면 IllegalArgumentException을 던집니다.
+     */
+    public String render(Map<String, ?> values) {
+        if (constant != null) {
+            return constant;
+        }
+        Map<String, String> formatted = new HashMap<>(slots.size() * 2);
+        int length = measure(segments, values, formatted);
+        StringBuilder out = new StringBuilder(length);
+        write(segments, values, formatted, out);
+        return out.toString();
+    }
+
+    private int measure(List<Segment> body, Map<String, ?> values, Map<String, String> formatted) {
+        int length = 0;
+        for (Segment segment : body) {
+            if (segment instanceof Literal literal) {
+                length += literal.text().length();
+            } else if (segment instanceof Slot slot) {
+                length += formatted.computeIfAbsent(slot.name(), key -> format(slot, values.get(key))).length();
+            } else if (segment instanceof Section section && isOpen(section, values)) {
+                length += measure(section.body(), values, formatted);
+            }
+        }
+        return length;
+    }
+
+    private void write(List<Segment> body, Map<String, ?> values, Map<String, String> formatted, StringBuilder out) {
+        for (Segment segment : body) {
+            if (segment instanceof Literal literal) {
+                out.append(literal.text());
+            } else if (segment instanceof Slot slot) {
+                out.append(formatted.get(slot.name()));
+            } else if (segment instanceof Section section && isOpen(section, values)) {
+                write(section.body(), values, formatted, out);
+            }
+        }
+    }
+
+    private String format(Slot slot, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("프롬프트 슬롯 값이 없습니다: " + getId() + ", slot=" + slot.name());
+        }
+        switch (slot.type()) {
+            case INT -> {
+                if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                    return value.toString();
+                }
+                throw new IllegalArgumentException("정수 슬롯에 정수가 아닌 값이 들어왔습니다: " + getId()
+                        + ", slot=" + slot.name() + ", type=" + value.getClass().getSimpleName());
+            }
+            case JSON -> {
+                // 직렬화는 호출부 책임 (직렬화 실패 시 기본값 등 호출 지점별 처리를 유지하기 위함)
+                if (value instanceof CharSequence || value instanceof JsonNode) {
+                    return value.toString();
+                }
+                throw new IllegalArgumentException("JSON 슬롯은 직렬화된 문자열 또는 JsonNode만 받습니다: " + getId()
+                        + ", slot=" + slot.name() + ", type=" + value.getClass().getSimpleName());
+            }
+            default -> {
+                return value.toString();
+            }
+        }
+    }
+
+    private static boolean isOpen(Section section, Map<String, ?> values) {
+        return isPresent(values.get(section.name())) != section.inverted();
+    }
+
+    private static boolean isPresent(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        if (value instanceof CharSequence text) {
+            return !text.toString().isBlank();
+        }
+        if (value instanceof Collection<?> collection) {
+            return !collection.isEmpty();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return !map.isEmpty();
+        }
+        return true;
+    }
+
+    private static Slot parseSlot(String template, int version, String tag) {
+        int colon = tag.indexOf(':');
+        String slotName = colon < 0 ? tag : tag.substring(0, colon).trim();
+        SlotType type = SlotType.TEXT;
+        if (colon >= 0) {
+            String typeName = tag.substring(colon + 1).trim().toUpperCase(Locale.ROOT);
+            try {
+                type = SlotType.valueOf(typeName);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("알 수 없는 슬롯 타입입니다: " + template + "@v" + version + ", tag=" + tag);
+            }
+        }
+        return new Slot(checkName(template, version, slotName), type);
+    }
+
+    private static String checkName(String template, int version, String slotName) {
+        if (!NAME.matcher(slotName).matches()) {
+            throw new IllegalArgumentException("잘못된 슬롯 이름입니다: " + template + "@v" + version + ", name=" + slotName);
+        }
+        return slotName;
+    }
+
+    private static void addLiteral(List<Segment> body, String text) {
+        if (!text.isEmpty()) {
+            body.add(new Literal(text));
+        }
+    }
+
+    private static boolean isBlank(String source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(source.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String concatLiterals(List<Segment> segments) {
+        StringBuilder out = new StringBuilder();
+        for (Segment segment : segments) {
+            out.append(((Literal) segment).text());
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,295 @@
+package com.chimaenono.dearmind.gpt;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 버전이 붙은 프롬프트 템플릿 저장소
+ * - classpath:prompts/{name}.v{N}.txt를 시작 시 한 번 파싱 (문법 오류면 기동 실패)
+ * - llm.prompts.dir를 지정하면 같은 형식의 파일을 덧붙이거나 덮어쓰고, 변경을 주기적으로 감지해 다시 읽음
+ *   (다시 읽다 오류가 나거나 호출 코드가 채우지 않는 슬롯이 생기면 기존 템플릿을 유지)
+ * - 기본은 가장 높은 버전을 쓰고, llm.prompts.versions로 고정하거나 llm.prompts.variants로 일부 사용자에게만 다른 버전을 줄 수 있음
+ * 변형 배정은 라우팅 키(사용자 ID 등) 해시 기준이라 같은 사용자는 항상 같은 버전을 받습니다 (프롬프트 캐시 유지).
+ */
+@Slf4j
+@Component
+public class PromptTemplateRegistry {
+
+    public static final String TURN_RULES = "turn_rules";
+    public static final String TURN_STATE = "turn_state";
+    public static final String SUMMARY = "summary";
+    public static final String SUMMARY_MERGE = "summary_merge";
+    public static final String DIARY = "diary";
+    public static final String DIARY_BUNDLE = "diary_bundle";
+    public static final String MUSIC = "music";
+    public static final String OPENER = "opener";
+
+    private static final String CLASSPATH_PATTERN = "classpath*:prompts/*.txt";
+    private static final Pattern FILE_NAME = Pattern.compile("([a-z_][a-z0-9_]*)\\.v(\\d+)\\.txt");
+
+    // 외부 템플릿 디렉터리 (비어 있으면 classpath 템플릿만 사용, 다시 읽기도 하지 않음)
+    @Value("${llm.prompts.dir:}")
+    private String externalDir;
+
+    @Value("${llm.prompts.reload-interval-seconds:10}")
+    private long reloadIntervalSeconds;
+
+    // 템플릿별 고정 버전 (예: "diary=1,turn_state=2"). 지정하지 않은 템플릿은 가장 높은 버전
+    @Value("${llm.prompts.versions:}")
+    private String versionsConfig;
+
+    // A/B 변형 (예: "diary=2:0.2" → 라우팅 키의 20%에 diary v2 사용)
+    @Value("${llm.prompts.variants:}")
+    private String variantsConfig;
+
+    private record Variant(int version, double share) {}
+
+    private final Map<String, Integer> pinnedVersions = new HashMap<>();
+    private final Map<String, Variant> variants = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile Map<String, NavigableMap<Integer, PromptTemplate>> templates = Map.of();
+    private volatile String externalFingerprint = "";
+    // 기동 시 템플릿별 슬롯 (모든 버전 합집합, 다시 읽기 호환성 기준)
+    private final Map<String, Map<String, PromptTemplate.SlotType>> baselineSlots = new HashMap<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        parseVersions();
+        parseVariants();
+        templates = load();
+        externalFingerprint = fingerprint();
+        templates.forEach((name, versions) -> versions.values().forEach(template ->
+                baselineSlots.computeIfAbsent(name, key -> new HashMap<>()).putAll(template.getSlots())));
+        log.info("프롬프트 템플릿 로드: {}", describe());
+
+        if (!externalDir.isBlank() && reloadIntervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::reloadIfChanged, reloadIntervalSeconds, reloadIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * 라우팅 키와 무관한 활성 버전 (고정 버전 또는 가장 높은 버전)
+     */
+    public PromptTemplate get(String name) {
+        return select(name, null);
+    }
+
+    /**
+     * 라우팅 키에 배정된 버전을 반환합니다. 변형이 없거나 키가 null이면 활성 버전입니다.
+     */
+    public PromptTemplate select(String name, Object routingKey) {
+        NavigableMap<Integer, PromptTemplate> versions = templates.get(name);
+        if (versions == null) {
+            throw new IllegalArgumentException("프롬프트 템플릿이 없습니다: " + name);
+        }
+        Variant variant = variants.get(name);
+        if (variant != null && routingKey != null && bucketOf(name, routingKey) < variant.share()) {
+            PromptTemplate template = versions.get(variant.version());
+            if (template != null) {
+                return template;
+            }
+        }
+        Integer pinned = pinnedVersions.get(name);
+        if (pinned != null && versions.containsKey(pinned)) {
+            return versions.get(pinned);
+        }
+        return versions.lastEntry().getValue();
+    }
+
+    /**
+     * 템플릿을 즉시 다시 읽습니다. 오류가 있으면 기존 템플릿을 유지하고 예외를 던집니다.
+     */
+    public synchronized Map<String, Object> reload() throws IOException {
+        Map<String, NavigableMap<Integer, PromptTemplate>> loaded = load();
+        checkSlotsCompatible(loaded);
+        templates = loaded;
+        externalFingerprint = fingerprint();
+        log.info("프롬프트 템플릿 다시 읽기 완료: {}", describe());
+        return stats();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        templates.forEach((name, versions) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("versions", List.copyOf(versions.keySet()));
+            entry.put("active", get(name).getId());
+            entry.put("slots", versions.lastEntry().getValue().getSlots());
+            Variant variant = variants.get(name);
+            if (variant != null) {
+                entry.put("variant", name + "@v" + variant.version());
+                entry.put("variantShare", variant.share());
+            }
+            stats.put(name, entry);
+        });
+        return stats;
+    }
+
+    /**
+     * 다시 읽은 템플릿의 슬롯이 기동 시 같은 이름 템플릿 슬롯의 부분집합(같은 타입)인지 확인합니다.
+     * 호출 코드는 기동 시 있던 슬롯만 채우므로 새 슬롯이 생기면 렌더링이 요청마다 실패합니다.
+     * 기준을 기동 시점으로 두어, 슬롯을 줄였다가 되돌리는 편집도 허용합니다. 새 이름의 템플릿은 확인하지 않습니다.
+     */
+    private void checkSlotsCompatible(Map<String, NavigableMap<Integer, PromptTemplate>> loaded) {
+        loaded.forEach((name, versions) -> {
+            Map<String, PromptTemplate.SlotType> allowed = baselineSlots.get(name);
+            if (allowed == null) {
+                return;
+            }
+            for (PromptTemplate template : versions.values()) {
+                template.getSlots().forEach((slot, type) -> {
+                    if (allowed.get(slot) != type) {
+                        throw new IllegalStateException("기동 시 템플릿에 없는 슬롯이 추가되었습니다: " + template.getId()
+                                + ", slot=" + slot + ":" + type + ", 허용=" + allowed);
+                    }
+                });
+            }
+        });
+    }
+
+    private void reloadIfChanged() {
+        try {
+            if (!fingerprint().equals(externalFingerprint)) {
+                reload();
+            }
+        } catch (Exception e) {
+            log.error("프롬프트 템플릿 다시 읽기 실패, 기존 템플릿 유지: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, NavigableMap<Integer, PromptTemplate>> load() throws IOException {
+        Map<String, NavigableMap<Integer, PromptTemplate>> loaded = new HashMap<>();
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        for (Resource resource : resolver.getResources(CLASSPATH_PATTERN)) {
+            try (InputStream in = resource.getInputStream()) {
+                add(loaded, resource.getFilename(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        // 외부 파일은 classpath 뒤에 읽어 같은 이름·버전을 덮어씀
+        for (Path file : externalFiles()) {
+            add(loaded, file.getFileName().toString(), Files.readString(file, StandardCharsets.UTF_8));
+        }
+        if (loaded.isEmpty()) {
+            throw new IllegalStateException("프롬프트 템플릿을 찾을 수 없습니다: " + CLASSPATH_PATTERN);
+        }
+        return loaded;
+    }
+
+    private static void add(Map<String, NavigableMap<Integer, PromptTemplate>> loaded, String fileName, String source) {
+        if (fileName == null) {
+            return;
+        }
+        Matcher matcher = FILE_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            log.warn("프롬프트 템플릿 파일 이름 형식이 아닙니다 ({name}.v{N}.txt): {}", fileName);
+            return;
+        }
+        // 편집기가 붙이는 파일 끝 줄바꿈 하나는 프롬프트에 포함하지 않음
+        if (source.endsWith("\r\n")) {
+            source = source.substring(0, source.length() - 2);
+        } else if (source.endsWith("\n")) {
+            source = source.substring(0, source.length() - 1);
+        }
+        String name = matcher.group(1);
+        int version = Integer.parseInt(matcher.group(2));
+        loaded.computeIfAbsent(name, key -> new TreeMap<>()).put(version, PromptTemplate.parse(name, version, source));
+    }
+
+    private List<Path> externalFiles() throws IOException {
+        if (externalDir.isBlank()) {
+            return List.of();
+        }
+        Path dir = Path.of(externalDir);
+        if (!Files.isDirectory(dir)) {
+            log.warn("프롬프트 템플릿 디렉터리가 없습니다: {}", dir);
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> FILE_NAME.matcher(file.getFileName().toString()).matches()).sorted().toList();
+        }
+    }
+
+    /**
+     * 외부 디렉터리의 파일 목록·크기·수정 시각 요약 (바뀌었을 때만 다시 파싱하기 위함)
+     */
+    private String fingerprint() throws IOException {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Path file : externalFiles()) {
+            fingerprint.append(file.getFileName()).append(':')
+                    .append(Files.size(file)).append(':')
+                    .append(Files.getLastModifiedTime(file).toMillis()).append(';');
+        }
+        return fingerprint.toString();
+    }
+
+    private static double bucketOf(String name, Object routingKey) {
+        return Math.floorMod((name + ":" + routingKey).hashCode(), 10_000) / 10_000.0;
+    }
+
+    private void parseVersions() {
+        for (Map.Entry<String, String> entry : parsePairs(versionsConfig).entrySet()) {
+            pinnedVersions.put(entry.getKey(), Integer.parseInt(entry.getValue()));
+        }
+    }
+
+    private void parseVariants() {
+        for (Map.Entry<String, String> entry : parsePairs(variantsConfig).entrySet()) {
+            String[] parts = entry.getValue().split(":");
+            double share = parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 0.5;
+            variants.put(entry.getKey(), new Variant(Integer.parseInt(parts[0].trim()), share));
+        }
+    }
+
+    private static Map<String, String> parsePairs(String config) {
+        Map<String, String> pairs = new LinkedHashMap<>();
+        if (config == null || config.isBlank()) {
+            return pairs;
+        }
+        for (String entry : config.split(",")) {
+            String[] pair = entry.split("=");
+            if (pair.length == 2) {
+                pairs.put(pair[0].trim(), pair[1].trim().replaceFirst("^v", ""));
+            }
+        }
+        return pairs;
+    }
+
+    private String describe() {
+        StringBuilder description = new StringBuilder();
+        templates.forEach((name, versions) -> description.append(get(name).getId())
+                .append(versions.size() > 1 ? "(" + versions.keySet() + ")" : "").append(' '));
+        if (!variants.isEmpty()) {
+            description.append("variants=").append(variants);
+        }
+        return description.toString().trim();
+    }
+}
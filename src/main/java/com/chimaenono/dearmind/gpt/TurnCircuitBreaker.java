@@ -0,0 +1,122 @@
+package com.chimaenono.dearmind.gpt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 대화 턴 LLM 호출용 서킷 브레이커
+ * - CLOSED: 최근 N건 중 실패율이 임계치를 넘으면 OPEN
+ * - OPEN: open-duration 동안 LLM을 호출하지 않음 (템플릿 응답 사용)
+ * - HALF_OPEN: 시험 호출 1건을 허용해 성공하면 CLOSED, 실패하면 다시 OPEN
+ */
+@Slf4j
+@Component
+public class TurnCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Value("${gpt.turn.circuit.window-size:20}")
+    private int windowSize;
+
+    @Value("${gpt.turn.circuit.min-calls:5}")
+    private int minCalls;
+
+    @Value("${gpt.turn.circuit.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${gpt.turn.circuit.open-duration-seconds:30}")
+    private long openDurationSeconds;
+
+    private State state = State.CLOSED;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+    private boolean[] outcomes;   // true = 실패
+    private int next = 0;
+    private int recorded = 0;
+
+    /**
+     * 지금 LLM을 호출해도 되는지 반환합니다. OPEN 시간이 지나면 시험 호출 1건을 허용합니다.
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationSeconds * 1000) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            transition(State.CLOSED);
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        record(true);
+        if (recorded >= minCalls && failureRate() >= failureRateThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * 성공/실패로 집계하지 않을 결과(예: 토큰 예산 초과)에 사용합니다. 시험 호출 슬롯만 반납합니다.
+     */
+    public synchronized void recordIgnored() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (outcomes == null || outcomes.length != windowSize) {
+            outcomes = new boolean[windowSize];
+            next = 0;
+            recorded = 0;
+        }
+        outcomes[next] = failed;
+        next = (next + 1) % outcomes.length;
+        if (recorded < outcomes.length) {
+            recorded++;
+        }
+    }
+
+    private double failureRate() {
+        int failures = 0;
+        for (int i = 0; i < recorded; i++) {
+            if (outcomes[i]) {
+                failures++;
+            }
+        }
+        return (double) failures / recorded;
+    }
+
+    private void transition(State newState) {
+        log.warn("대화 턴 서킷 브레이커 상태 변경: {} → {}", state, newState);
+        state = newState;
+        trialInFlight = false;
+        if (newState == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        } else if (newState == State.CLOSED) {
+            outcomes = null;
+        }
+    }
+}
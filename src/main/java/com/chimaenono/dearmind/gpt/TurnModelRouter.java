@@ -0,0 +1,22 @@
+package com.chimaenono.dearmind.gpt;
+
+/**
+ * 대화 턴에 사용할 모델을 고르는 라우터
+ * 다른 정책이 필요하면 이 인터페이스를 구현한 빈을 @Primary로 등록합니다.
+ */
+public interface TurnModelRouter {
+
+    /**
+     * 턴 특성에 맞는 모델명을 반환합니다.
+     * @param emotionLabel 한국어 감정 라벨 (기쁨, 슬픔, ...)
+     * @param confidence 감정 신뢰도 (0~1)
+     * @param ruleStep 질문 규칙 단계 (1~3)
+     * @param promptTokens 프롬프트 토큰 수 추정치
+     */
+    String route(String emotionLabel, double confidence, int ruleStep, int promptTokens);
+
+    /**
+     * 모델 호출 결과를 기록합니다 (지연시간/오류율 기반 페일오버용).
+     */
+    void recordOutcome(String model, long latencyMs, boolean success);
+}
@@ -0,0 +1,174 @@
+package com.chimaenono.dearmind.gpt;
+
+import java.util.function.Consumer;
+
+/**
+ * 스트리밍 중인 턴 응답 JSON에서 최상위 "text" 값을 점진적으로 추출하는 파서
+ * - 첫 '{' 이전의 코드 펜스(```json)나 설명 문구, 닫는 '}' 이후의 텍스트는 무시
+ * - "text" 문자열 값은 이스케이프를 해제한 조각 단위로 onTextDelta에 전달
+ * - 닫는 따옴표가 도착하면 전체 문자열을 onTextComplete에 전달 (facet_history 등 나머지 필드 도착 전)
+ * - target_anchor 안의 "text"처럼 중첩된 키는 대상이 아님
+ * 스레드 안전하지 않으므로 스트림 하나당 인스턴스 하나를 사용합니다.
+ */
+public class TurnResponseStreamParser {
+
+    private static final String TEXT_KEY = "text";
+
+    private final Consumer<String> onTextDelta;
+    private final Consumer<String> onTextComplete;
+
+    private int depth = 0;
+    private boolean finished = false;
+    private boolean inString = false;
+    private boolean escape = false;
+    private int unicodeRemaining = 0;
+    private int unicodeValue = 0;
+    private boolean expectingValue = false;   // depth 1에서 ':' 다음 위치인지
+    private boolean capturing = false;        // 최상위 "text" 값을 읽는 중인지
+    private boolean textComplete = false;
+
+    private final StringBuilder key = new StringBuilder();
+    private String lastKey = null;
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder pending = new StringBuilder();
+
+    public TurnResponseStreamParser(Consumer<String> onTextDelta, Consumer<String> onTextComplete) {
+        this.onTextDelta = onTextDelta;
+        this.onTextComplete = onTextComplete;
+    }
+
+    /**
+     * 모델이 보낸 delta 조각을 입력합니다.
+     */
+    public void feed(String chunk) {
+        if (chunk == null || finished) {
+            return;
+        }
+        for (int i = 0; i < chunk.length() && !finished; i++) {
+            accept(chunk.charAt(i));
+        }
+        flush();
+    }
+
+    public boolean isTextComplete() {
+        return textComplete;
+    }
+
+    /**
+     * 지금까지 디코딩된 "text" 값 (완료 전이면 일부)
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    private void accept(char c) {
+        if (inString) {
+            acceptStringChar(c);
+            return;
+        }
+        if (depth == 0) {
+            // 첫 '{' 이전 (코드 펜스, 설명 문구 등)
+            if (c == '{') {
+                depth = 1;
+            }
+            return;
+        }
+        switch (c) {
+            case '"':
+                inString = true;
+                capturing = depth == 1 && expectingValue && TEXT_KEY.equals(lastKey) && !textComplete;
+                if (!capturing) {
+                    key.setLength(0);
+                }
+                break;
+            case ':':
+                if (depth == 1) {
+                    expectingValue = true;
+                }
+                break;
+            case ',':
+                if (depth == 1) {
+                    expectingValue = false;
+                    lastKey = null;
+                }
+                break;
+            case '{':
+            case '[':
+                depth++;
+                break;
+            case '}':
+            case ']':
+                depth--;
+                if (depth == 0) {
+                    finished = true;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void acceptStringChar(char c) {
+        if (unicodeRemaining > 0) {
+            unicodeValue = unicodeValue * 16 + Character.digit(c, 16);
+            if (--unicodeRemaining == 0) {
+                append((char) unicodeValue);
+            }
+            return;
+        }
+        if (escape) {
+            escape = false;
+            switch (c) {
+                case 'n': append('\n'); break;
+                case 't': append('\t'); break;
+                case 'r': append('\r'); break;
+                case 'b': append('\b'); break;
+                case 'f': append('\f'); break;
+                case 'u':
+                    unicodeRemaining = 4;
+                    unicodeValue = 0;
+                    break;
+                default: append(c); break;   // \" \\ \/
+            }
+            return;
+        }
+        if (c == '\\') {
+            escape = true;
+            return;
+        }
+        if (c == '"') {
+            inString = false;
+            if (capturing) {
+                capturing = false;
+                textComplete = true;
+                flush();
+                if (onTextComplete != null) {
+                    onTextComplete.accept(text.toString());
+                }
+            } else if (depth == 1 && !expectingValue) {
+                lastKey = key.toString();
+            }
+            return;
+        }
+        append(c);
+    }
+
+    private void append(char c) {
+        if (capturing) {
+            text.append(c);
+            pending.append(c);
+        } else {
+            key.append(c);
+        }
+    }
+
+    private void flush() {
+        if (pending.length() > 0) {
+            String delta = pending.toString();
+            pending.setLength(0);
+            if (onTextDelta != null) {
+                onTextDelta.accept(delta);
+            }
+        }
+    }
+}
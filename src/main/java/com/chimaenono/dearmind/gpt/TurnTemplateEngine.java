@@ -0,0 +1,242 @@
+package com.chimaenono.dearmind.gpt;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LLM 없이 대화 턴 응답을 만드는 로컬 템플릿 엔진 (서킷 OPEN/호출 실패 시 대체 응답)
+ * GPTServiceNew 프롬프트와 같은 규칙을 따릅니다.
+ * - 기쁨: 공감+지지 / 공감 보강 / 회상질문 (3줄)
+ * - 그 외: 공감+지지 / 공감 보강 / 회상질문 / 격려 (4줄)
+ * - 신뢰도: ≥0.7 단정, 0.4~0.7 추정+확인, <0.4 중립+열어두기
+ * - facet_key_used: rule_step에 맞는 키 중 facet_history에 없는 것을 우선 선택
+ * - target_anchor: step_index=1이면 사용자 발화에서 앵커 단어가 보일 때만 만들고(없으면 생략해 다음 LLM 턴이 추출), 이후 턴은 기존 앵커를 회상질문에 넣음
+ */
+@Component
+public class TurnTemplateEngine {
+
+    private static final Map<Integer, List<String>> FACETS_BY_RULE_STEP = Map.of(
+        1, List.of("where", "who", "when", "activity"),
+        2, List.of("moment", "quote", "object_sense", "action_expr"),
+        3, List.of("feeling", "meaning", "impact")
+    );
+
+    private static final Map<String, String> QUESTIONS = Map.ofEntries(
+        Map.entry("where", "그때는 어디에 계셨나요?"),
+        Map.entry("who", "그때 누구와 함께하셨나요?"),
+        Map.entry("when", "그게 언제쯤이었나요?"),
+        Map.entry("activity", "그때 무엇을 하고 계셨나요?"),
+        Map.entry("moment", "가장 기억에 남는 순간은 언제였나요?"),
+        Map.entry("quote", "그때 들은 말 중 기억나는 게 있으세요?"),
+        Map.entry("object_sense", "그때 보이던 색이나 소리가 떠오르세요?"),
+        Map.entry("action_expr", "그때 어떤 표정을 짓고 계셨나요?"),
+        Map.entry("feeling", "지금 떠올리니 어떤 마음이 드세요?"),
+        Map.entry("meaning", "그 일은 어떤 의미로 남아 있나요?"),
+        Map.entry("impact", "그 일이 지금의 삶에 어떤 영향을 주었나요?")
+    );
+
+    // 감정별 단정 어조 (conf ≥ 0.7)
+    private static final Map<String, String> EMPATHY_DEFINITE = Map.of(
+        "기쁨", "정말 기쁘셨겠어요.",
+        "슬픔", "많이 슬프셨겠어요.",
+        "분노", "많이 화가 나셨겠어요.",
+        "불안", "많이 불안하셨겠어요.",
+        "당황", "많이 당황하셨겠어요.",
+        "상처", "마음이 많이 아프셨겠어요.",
+        "중립", "차분히 떠올리고 계시네요."
+    );
+
+    // 감정별 추정+확인 어조 (0.4 ≤ conf < 0.7)
+    private static final Map<String, String> EMPATHY_TENTATIVE = Map.of(
+        "기쁨", "기쁘셨던 것 같은데, 맞을까요?",
+        "슬픔", "슬프셨던 것 같은데, 맞을까요?",
+        "분노", "속상하셨던 것 같은데, 맞을까요?",
+        "불안", "불안하셨던 것 같은데, 맞을까요?",
+        "당황", "당황하셨던 것 같은데, 맞을까요?",
+        "상처", "마음이 아프셨던 것 같은데, 맞을까요?",
+        "중립", "담담하게 떠올리신 것 같은데, 맞을까요?"
+    );
+
+    private static final List<String> JOY_SUPPORT = List.of(
+        "그 시절 이야기를 들으니 저도 반가워요.",
+        "소중한 사람과 장소가 함께 떠오르네요.",
+        "듣는 저도 마음이 환해져요."
+    );
+
+    private static final List<String> CALM_SUPPORT = List.of(
+        "천천히 이야기해 주셔서 고마워요.",
+        "그 마음을 그대로 존중할게요.",
+        "지금은 편안한 자리에서 이야기하고 계세요."
+    );
+
+    // 앵커 단어 (유형 순서대로 확인). 한 글자 단어는 어절과 정확히 같을 때만 인정 ("산책"의 "산" 방지)
+    private static final Map<String, List<String>> ANCHOR_TYPE_WORDS = new LinkedHashMap<>();
+    static {
+        ANCHOR_TYPE_WORDS.put("person", List.of("친구", "어머니", "아버지", "엄마", "아빠", "할머니", "할아버지",
+                "선생님", "남편", "아내", "언니", "오빠", "누나", "동생", "아들", "딸", "손주"));
+        ANCHOR_TYPE_WORDS.put("place", List.of("고향", "학교", "마당", "동네", "시장", "바다", "산", "공원", "마을", "교회"));
+        ANCHOR_TYPE_WORDS.put("event", List.of("결혼", "졸업", "입학", "여행", "생일", "명절", "잔치", "운동회", "소풍", "제사"));
+        ANCHOR_TYPE_WORDS.put("object", List.of("사진", "편지", "선물", "옷", "책", "반지", "시계"));
+        ANCHOR_TYPE_WORDS.put("timepoint", List.of("시절"));
+    }
+
+    // 그 자체로는 앵커가 되지 못하는 단어 (앞에 꾸밈이 붙은 어절만 인정: "학창시절"은 되고 "시절"은 안 됨)
+    private static final List<String> GENERIC_ANCHOR_WORDS = List.of("시절");
+
+    // 템플릿 앵커 텍스트 최대 길이 (줄 길이 규칙 6~18자를 크게 넘지 않도록)
+    private static final int MAX_ANCHOR_CHARS = 12;
+
+    // 어절 끝 조사 (긴 것부터 확인)
+    private static final List<String> PARTICLES = List.of(
+        "에서는", "에서도", "께서", "에서", "에게", "한테", "이랑", "하고", "까지", "부터", "으로", "에는",
+        "에", "엔", "로", "은", "는", "이", "가", "을", "를", "와", "과", "랑", "의", "도", "만"
+    );
+
+    private static final List<String> ENCOURAGEMENT = List.of(
+        "편하게 이어서 말씀해 주세요.",
+        "함께 천천히 떠올려 봐요.",
+        "들려주시는 이야기가 참 소중해요."
+    );
+
+    /**
+     * GPTServiceNew와 같은 형태의 응답 Map을 만듭니다.
+     * step_index=1이면 사용자 발화(currUser)에서 target_anchor를 만들어 함께 반환하고, 이후 턴은 targetAnchor를 회상질문 줄에 넣습니다.
+     * 앵커는 세션 내내 바뀌지 않으므로 질문 문장(topic_root)에서는 만들지 않습니다.
+     */
+    public Map<String, Object> render(String emotionLabel, double confidence, int stepIndex, int ruleStep,
+                                      List<String> facetHistory, String currUser, Map<String, String> targetAnchor) {
+        String label = EMPATHY_DEFINITE.containsKey(emotionLabel) ? emotionLabel : "중립";
+        List<String> history = facetHistory != null ? facetHistory : new ArrayList<>();
+        String facet = chooseFacet(ruleStep, history);
+        int variant = Math.max(0, stepIndex - 1);
+
+        Map<String, String> anchor = stepIndex == 1 ? deriveAnchor(currUser) : targetAnchor;
+        String anchorText = anchor != null ? anchor.get("text") : null;
+        String question = anchorText != null && !anchorText.isBlank()
+                ? anchorText + " 이야기에서, " + QUESTIONS.get(facet)
+                : QUESTIONS.get(facet);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(empathy(label, confidence));
+        if ("기쁨".equals(label)) {
+            lines.add(pick(JOY_SUPPORT, variant));
+            lines.add(question);
+        } else {
+            lines.add(pick(CALM_SUPPORT, variant));
+            lines.add(question);
+            lines.add(pick(ENCOURAGEMENT, variant));
+        }
+
+        List<String> updatedHistory = new ArrayList<>(history);
+        updatedHistory.add(facet);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("text", String.join("\n", lines));
+        response.put("facet_key_used", facet);
+        response.put("facet_history", updatedHistory);
+        response.put("next_step_index", stepIndex + 1);
+        response.put("fallback", true);
+        if (stepIndex == 1 && anchor != null) {
+            response.put("target_anchor", anchor);
+        }
+        return response;
+    }
+
+    /**
+     * 첫 턴 앵커: 사용자 발화에서 앵커 단어가 든 첫 어절(조사 제거)을 씁니다. 찾지 못하면 null.
+     */
+    public Map<String, String> deriveAnchor(String currUser) {
+        if (currUser == null || currUser.isBlank()) {
+            return null;
+        }
+        for (String word : currUser.split("[\\s.,!?~…·\"'()]+")) {
+            // 조사를 뗀 어절을 먼저 보고, "마을"처럼 조사와 같은 글자로 끝나는 단어는 원래 어절로 다시 확인
+            for (String text : List.of(stripParticle(word), word)) {
+                String type = text.length() <= MAX_ANCHOR_CHARS ? anchorTypeOf(text) : null;
+                if (type != null) {
+                    Map<String, String> anchor = new HashMap<>();
+                    anchor.put("type", type);
+                    anchor.put("text", text);
+                    return anchor;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String anchorTypeOf(String text) {
+        for (Map.Entry<String, List<String>> entry : ANCHOR_TYPE_WORDS.entrySet()) {
+            for (String keyword : entry.getValue()) {
+                boolean matches = keyword.length() == 1 ? text.equals(keyword) : text.contains(keyword);
+                boolean bare = text.equals(keyword) || stripParticle(text).equals(keyword);
+                if (matches && !(GENERIC_ANCHOR_WORDS.contains(keyword) && bare)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String stripParticle(String word) {
+        for (String particle : PARTICLES) {
+            if (word.length() > particle.length() && word.endsWith(particle)) {
+                return word.substring(0, word.length() - particle.length());
+            }
+        }
+        return word;
+    }
+
+    /**
+     * 템플릿 응답에 쓰이는 고정 문장 전체 (LLM 응답에도 같은 격려·확인 문구가 반복되므로 문장 TTS 사전 합성에 사용)
+     */
+    public List<String> knownLines() {
+        List<String> lines = new ArrayList<>();
+        lines.addAll(EMPATHY_DEFINITE.values());
+        lines.addAll(EMPATHY_TENTATIVE.values());
+        lines.add("여러 감정이 오갔을 듯해요.");
+        lines.addAll(JOY_SUPPORT);
+        lines.addAll(CALM_SUPPORT);
+        lines.addAll(QUESTIONS.values());
+        lines.addAll(ENCOURAGEMENT);
+        return lines;
+    }
+
+    /**
+     * rule_step에서 허용되는 facet 키 목록
+     */
+    public List<String> facetsFor(int ruleStep) {
+        return FACETS_BY_RULE_STEP.getOrDefault(ruleStep, FACETS_BY_RULE_STEP.get(1));
+    }
+
+    /**
+     * rule_step에 맞는 키 중 facet_history에 없는 첫 키. 모두 사용했으면 순환합니다.
+     */
+    public String chooseFacet(int ruleStep, List<String> facetHistory) {
+        List<String> candidates = facetsFor(ruleStep);
+        for (String candidate : candidates) {
+            if (!facetHistory.contains(candidate)) {
+                return candidate;
+            }
+        }
+        return candidates.get(facetHistory.size() % candidates.size());
+    }
+
+    private String empathy(String label, double confidence) {
+        if (confidence >= 0.7) {
+            return EMPATHY_DEFINITE.get(label);
+        }
+        if (confidence >= 0.4) {
+            return EMPATHY_TENTATIVE.get(label);
+        }
+        return "여러 감정이 오갔을 듯해요.";
+    }
+
+    private static String pick(List<String> options, int variant) {
+        return options.get(variant % options.size());
+    }
+}
@@ -0,0 +1,39 @@
+package com.chimaenono.dearmind.loadtest;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/loadtest")
+@Tag(name = "Load Test", description = "턴 파이프라인 부하 테스트 API (loadtest.driver.enabled=true일 때만 등록, ADMIN 권한 필요)")
+@ConditionalOnProperty(name = "loadtest.driver.enabled", havingValue = "true")
+public class LoadTestController {
+
+    @Autowired
+    private TurnLoadDriver loadDriver;
+
+    @PostMapping("/run")
+    @Operation(summary = "부하 테스트 실행",
+               description = "시니어 N명의 시작 → 발화 종료 → 감정 → 응답 생성 → 종료 → 일기 흐름을 동시에 실행하고 단계별 지연 백분위를 반환합니다. " +
+                             "시니어 수·턴 수가 상한(기본 200명, 20턴)을 넘으면 400을 반환합니다.")
+    public ResponseEntity<LoadTestReport> run(
+            @Parameter(description = "동시 시니어 수", example = "50") @RequestParam(defaultValue = "10") int seniors,
+            @Parameter(description = "시니어당 턴 수", example = "5") @RequestParam(defaultValue = "3") int turns,
+            @Parameter(description = "대화 질문 ID", example = "1") @RequestParam(defaultValue = "1") long questionId)
+            throws InterruptedException {
+        try {
+            return ResponseEntity.ok(loadDriver.run(seniors, turns, questionId));
+        } catch (IllegalArgumentException e) {
+            // 시니어·턴 수 상한 초과 (loadtest.driver.max-seniors, max-turns)
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.chimaenono.dearmind.loadtest;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 턴 파이프라인 부하 테스트 결과
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "부하 테스트 결과")
+public class LoadTestReport {
+
+    @Schema(description = "동시 시뮬레이션 시니어 수", example = "50")
+    private int seniors;
+
+    @Schema(description = "시니어당 대화 턴 수", example = "5")
+    private int turnsPerSenior;
+
+    @Schema(description = "전체 소요 시간(ms)")
+    private long elapsedMs;
+
+    @Schema(description = "끝까지 완료한 흐름 수 (시작 → 일기 조회)")
+    private int completedFlows;
+
+    @Schema(description = "실패한 흐름 수")
+    private int failedFlows;
+
+    @Schema(description = "초당 완료 흐름 수")
+    private double flowsPerSecond;
+
+    @Schema(description = "초당 API 요청 수")
+    private double requestsPerSecond;
+
+    @Schema(description = "단계별 지연시간 통계 (login, start, speech_end, emotion, generate, end, diary, flow)")
+    private Map<String, StageStats> stages;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "단계별 지연시간 통계(ms)")
+    public static class StageStats {
+        private int count;
+        private int errors;
+        private long p50;
+        private long p95;
+        private long p99;
+        private long max;
+    }
+}
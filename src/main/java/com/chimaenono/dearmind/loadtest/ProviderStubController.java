@@ -0,0 +1,279 @@
+package com.chimaenono.dearmind.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 부하 테스트용 외부 제공자 대역 (OpenAI chat/Whisper, Google TTS, YouTube, Kakao)
+ * 각 서비스의 URL 설정을 이 경로로 바꾸면 비용 없이 전체 턴 파이프라인을 돌릴 수 있습니다.
+ * - openai.api.url=http://localhost:8080/stub/openai/v1
+ * - google.cloud.texttospeech.url=http://localhost:8080/stub/google-tts/v1/text:synthesize
+ *   (google.cloud.texttospeech.access-token=stub 으로 서비스 계정 없이 호출)
+ * - youtube.api.url=http://localhost:8080/stub/youtube/v3
+ * - kakao.auth-url / kakao.api-url=http://localhost:8080/stub/kakao
+ * 지연/실패는 StubLatencyModel 설정을 따릅니다. loadtest.stubs.enabled=true일 때만 등록됩니다.
+ */
+@Slf4j
+@Hidden
+@RestController
+@RequestMapping("/stub")
+@ConditionalOnProperty(name = "loadtest.stubs.enabled", havingValue = "true")
+public class ProviderStubController {
+
+    // 128kbps/44.1kHz MPEG-1 Layer III 무음 프레임 (약 26ms)
+    private static final byte[] SILENT_MP3_FRAME = silentMp3Frame();
+    private static final int MP3_FRAMES_PER_CHAR = 6;
+
+    private static final String STUB_TRANSCRIPT = "어릴 적 고향 집 마당에서 동생들과 뛰어놀던 기억이 나요";
+
+    @Autowired
+    private StubLatencyModel latencyModel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong completionIds = new AtomicLong();
+
+    // ===== OpenAI =====
+
+    @PostMapping("/openai/v1/chat/completions")
+    public ResponseEntity<?> chatCompletions(@RequestBody JsonNode request) throws Exception {
+        if (latencyModel.simulate("chat")) {
+            return rateLimited();
+        }
+        StringBuilder prompt = new StringBuilder();
+        for (JsonNode message : request.path("messages")) {
+            prompt.append(message.path("content").asText("")).append('\n');
+        }
+        String content = cannedContent(prompt.toString());
+        String model = request.path("model").asText("stub");
+        String id = "chatcmpl-stub-" + completionIds.incrementAndGet();
+
+        if (!request.path("stream").asBoolean(false)) {
+            Map<String, Object> message = Map.of("role", "assistant", "content", content);
+            Map<String, Object> body = new HashMap<>();
+            body.put("id", id);
+            body.put("object", "chat.completion");
+            body.put("model", model);
+            body.put("choices", List.of(Map.of("index", 0, "message", message, "finish_reason", "stop")));
+            body.put("usage", usage(prompt.length(), content.length()));
+            return ResponseEntity.ok(body);
+        }
+
+        // 스트리밍: 몇 글자씩 끊어 SSE로 전송 (첫 조각까지의 지연은 위에서 이미 반영)
+        StreamingResponseBody stream = out -> {
+            try {
+                for (int i = 0; i < content.length(); i += 4) {
+                    String piece = content.substring(i, Math.min(content.length(), i + 4));
+                    Map<String, Object> delta = Map.of("content", piece);
+                    Map<String, Object> chunk = Map.of(
+                            "id", id,
+                            "object", "chat.completion.chunk",
+                            "model", model,
+                            "choices", List.of(Map.of("index", 0, "delta", delta)));
+                    out.write(("data: " + objectMapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    Thread.sleep(latencyModel.getStreamChunkMs());
+                }
+                out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(stream);
+    }
+
+    @PostMapping(value = "/openai/v1/audio/transcriptions", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> transcriptions(@RequestParam("file") MultipartFile file) throws Exception {
+        if (latencyModel.simulate("stt")) {
+            return rateLimited();
+        }
+        return ResponseEntity.ok(Map.of("text", STUB_TRANSCRIPT));
+    }
+
+    // ===== Google TTS =====
+
+    @PostMapping("/google-tts/v1/text:synthesize")
+    public ResponseEntity<?> synthesize(@RequestBody JsonNode request) throws Exception {
+        if (latencyModel.simulate("tts")) {
+            return unavailable();
+        }
+        int chars = request.path("input").path("text").asText("").length();
+        int frames = Math.max(1, chars * MP3_FRAMES_PER_CHAR);
+        byte[] audio = new byte[frames * SILENT_MP3_FRAME.length];
+        for (int i = 0; i < frames; i++) {
+            System.arraycopy(SILENT_MP3_FRAME, 0, audio, i * SILENT_MP3_FRAME.length, SILENT_MP3_FRAME.length);
+        }
+        return ResponseEntity.ok(Map.of("audioContent", Base64.getEncoder().encodeToString(audio)));
+    }
+
+    // ===== YouTube =====
+
+    /**
+     * videoId에 검색어를 담아 두어 /videos 검증 단계에서 같은 제목/채널을 돌려줍니다.
+     */
+    @GetMapping("/youtube/v3/search")
+    public ResponseEntity<?> youtubeSearch(@RequestParam("q") String query) throws Exception {
+        if (latencyModel.simulate("youtube")) {
+            return unavailable();
+        }
+        String videoId = Base64.getUrlEncoder().withoutPadding().encodeToString(query.getBytes(StandardCharsets.UTF_8));
+        return ResponseEntity.ok(Map.of("items", List.of(youtubeItem(videoId, query, true))));
+    }
+
+    @GetMapping("/youtube/v3/videos")
+    public ResponseEntity<?> youtubeVideos(@RequestParam("id") String videoId) throws Exception {
+        if (latencyModel.simulate("youtube")) {
+            return unavailable();
+        }
+        String query = new String(Base64.getUrlDecoder().decode(videoId), StandardCharsets.UTF_8);
+        return ResponseEntity.ok(Map.of("items", List.of(youtubeItem(videoId, query, false))));
+    }
+
+    // ===== Kakao =====
+
+    @PostMapping(value = "/kakao/oauth/token", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<?> kakaoToken(@RequestParam("code") String code) throws Exception {
+        if (latencyModel.simulate("kakao")) {
+            return unavailable();
+        }
+        return ResponseEntity.ok(Map.of(
+                "access_token", "stub-" + code,
+                "token_type", "bearer",
+                "expires_in", 21599));
+    }
+
+    @GetMapping("/kakao/v2/user/me")
+    public ResponseEntity<?> kakaoUserInfo(@RequestHeader("Authorization") String authorization) throws Exception {
+        if (latencyModel.simulate("kakao")) {
+            return unavailable();
+        }
+        // 인증 코드가 곧 사용자 식별자 (같은 코드로 다시 로그인하면 같은 사용자)
+        String code = authorization.replace("Bearer ", "").replace("stub-", "");
+        Map<String, Object> body = new HashMap<>();
+        body.put("id", code);
+        body.put("properties", Map.of("nickname", "부하테스트 " + code));
+        body.put("kakao_account", Map.of());
+        return ResponseEntity.ok(body);
+    }
+
+    // ===== 응답 본문 =====
+
+    /**
+     * 프롬프트의 역할 문구로 호출 지점을 구분해 형식에 맞는 응답을 만듭니다.
+     */
+    private String cannedContent(String prompt) throws Exception {
+        boolean diary = prompt.contains("'일기 작가'");
+        boolean music = prompt.contains("'음악 큐레이터'");
+        boolean summary = prompt.contains("'대화 요약가'");
+
+        if (summary && diary && music) {
+            Map<String, Object> bundle = new HashMap<>();
+            bundle.put("summary", cannedSummary());
+            bundle.put("diary", cannedDiary());
+            bundle.put("recommended_music", cannedMusic());
+            return objectMapper.writeValueAsString(bundle);
+        }
+        if (music) {
+            return objectMapper.writeValueAsString(Map.of("recommended_music", cannedMusic()));
+        }
+        if (diary) {
+            return cannedDiary();
+        }
+        if (summary) {
+            return objectMapper.writeValueAsString(cannedSummary());
+        }
+        return cannedTurn();
+    }
+
+    private String cannedTurn() throws Exception {
+        Map<String, Object> turn = new HashMap<>();
+        turn.put("text", "그 시절 이야기를 들으니 저도 반가워요.\n동생들과 함께라 더 즐거우셨겠어요.\n그때 마당에서는 주로 어떤 놀이를 하셨나요?");
+        turn.put("facet_key_used", "activity");
+        turn.put("facet_history", new ArrayList<>(List.of("activity")));
+        turn.put("target_anchor", Map.of("type", "place", "text", "고향 집 마당"));
+        turn.put("memory_fact", "고향 집 마당에서 동생들과 놀았음");
+        return objectMapper.writeValueAsString(turn);
+    }
+
+    private static Map<String, Object> cannedSummary() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("situation", "어린 시절 고향 집 마당에서 동생들과 놀던 기억을 이야기했다.");
+        summary.put("events", List.of("동생들과 마당에서 놀았다", "어머니가 저녁을 부르셨다"));
+        summary.put("anchors", Map.of("people", List.of("동생들"), "place", List.of("고향 집 마당"),
+                "era", "어린 시절", "objects", List.of()));
+        summary.put("highlights", Map.of("best_moment", "동생들과 뛰어놀던 순간", "hard_moment", "", "insight", "가족과 함께한 시간이 소중했다"));
+        summary.put("quotes", List.of());
+        return summary;
+    }
+
+    private static String cannedDiary() {
+        return "고향 집 마당의 기억\n\n오늘은 어릴 적 고향 집 마당을 떠올렸다. 동생들과 해가 질 때까지 뛰어놀았다.\n\n"
+                + "어머니가 저녁을 부르시던 목소리가 아직도 귀에 선하다.\n\n가족과 함께한 그 시간이 참 고마웠다.";
+    }
+
+    private static List<Map<String, String>> cannedMusic() {
+        return List.of(Map.of("title", "고향의 봄", "artist", "이원수", "mood", "따뜻하고 그리운"));
+    }
+
+    private static Map<String, Object> usage(int promptChars, int completionChars) {
+        // 한국어 기준 대략 글자 1~2개당 토큰 1개
+        int promptTokens = Math.max(1, promptChars / 2);
+        int completionTokens = Math.max(1, completionChars / 2);
+        return Map.of(
+                "prompt_tokens", promptTokens,
+                "completion_tokens", completionTokens,
+                "total_tokens", promptTokens + completionTokens);
+    }
+
+    private static Map<String, Object> youtubeItem(String videoId, String query, boolean withId) {
+        // 검색어의 따옴표/부가어를 걷어 제목·채널로 사용 (제목·아티스트 일치 검증 통과용)
+        String cleaned = query.replace("\"", "").replace(" official music", "")
+                .replace(" official", "").replace(" music video", "").trim();
+        Map<String, Object> item = new HashMap<>();
+        if (withId) {
+            item.put("id", Map.of("kind", "youtube#video", "videoId", videoId));
+        } else {
+            item.put("id", videoId);
+        }
+        item.put("snippet", Map.of("title", cleaned + " (Official Audio)", "channelTitle", cleaned));
+        return item;
+    }
+
+    private static ResponseEntity<?> rateLimited() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "1")
+                .body(Map.of("error", Map.of("message", "stub rate limit", "type", "rate_limit_error")));
+    }
+
+    private static ResponseEntity<?> unavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "stub failure"));
+    }
+
+    private static byte[] silentMp3Frame() {
+        byte[] frame = new byte[417];
+        frame[0] = (byte) 0xFF;
+        frame[1] = (byte) 0xFB;
+        frame[2] = (byte) 0x90;
+        frame[3] = (byte) 0xC4;
+        return frame;
+    }
+}
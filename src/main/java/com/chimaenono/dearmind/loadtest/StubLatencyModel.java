@@ -0,0 +1,80 @@
+package com.chimaenono.dearmind.loadtest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 외부 제공자 대역(ProviderStubController)의 지연시간/실패 모델
+ * - 지연: 제공자별 중앙값(ms)과 공통 sigma를 갖는 로그정규 분포 (꼬리 지연 재현)
+ * - 실패: 제공자별 확률로 오류 응답 (OpenAI는 429, 그 외는 503)
+ * 제공자 키: chat, stt, tts, youtube, kakao
+ */
+@Component
+@ConditionalOnProperty(name = "loadtest.stubs.enabled", havingValue = "true")
+public class StubLatencyModel {
+
+    // 제공자별 지연 중앙값 (예: chat=900,stt=700,tts=250,youtube=150,kakao=80)
+    @Value("${loadtest.stubs.latency-ms:chat=900,stt=700,tts=250,youtube=150,kakao=80}")
+    private String latencyConfig;
+
+    // 로그정규 분포의 sigma (0이면 고정 지연, 0.5면 p99가 중앙값의 약 3.2배)
+    @Value("${loadtest.stubs.latency-sigma:0.5}")
+    private double sigma;
+
+    // 제공자별 실패 확률 (예: chat=0.02,tts=0.01)
+    @Value("${loadtest.stubs.failure-rates:}")
+    private String failureConfig;
+
+    // 스트리밍 응답의 토큰 조각 간 간격
+    @Value("${loadtest.stubs.stream-chunk-ms:30}")
+    private long streamChunkMs;
+
+    private final Map<String, Double> medians = new HashMap<>();
+    private final Map<String, Double> failureRates = new HashMap<>();
+
+    @PostConstruct
+    void init() {
+        parseInto(latencyConfig, medians);
+        parseInto(failureConfig, failureRates);
+    }
+
+    /**
+     * 제공자 지연을 한 번 샘플링해 그만큼 대기합니다.
+     * @return 이번 호출을 실패로 응답해야 하면 true
+     */
+    public boolean simulate(String provider) throws InterruptedException {
+        Thread.sleep(sampleLatencyMs(provider));
+        return ThreadLocalRandom.current().nextDouble() < failureRates.getOrDefault(provider, 0.0);
+    }
+
+    public long sampleLatencyMs(String provider) {
+        double median = medians.getOrDefault(provider, 0.0);
+        if (median <= 0) {
+            return 0;
+        }
+        double gaussian = ThreadLocalRandom.current().nextGaussian();
+        return Math.round(median * Math.exp(sigma * gaussian));
+    }
+
+    public long getStreamChunkMs() {
+        return streamChunkMs;
+    }
+
+    private static void parseInto(String config, Map<String, Double> target) {
+        if (config == null || config.isBlank()) {
+            return;
+        }
+        for (String entry : config.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length == 2) {
+                target.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.chimaenono.dearmind.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시니어 N명의 전체 대화 흐름을 HTTP로 동시에 재현하는 부하 드라이버
+ * 로그인 → 대화 시작 → (발화 종료(STT) → 감정 통합 → 응답 생성 → 오디오 수신) × 턴 수 → 대화 종료 → 일기 조회
+ * 외부 제공자는 ProviderStubController로 돌려 두고 실행하는 것을 전제로 합니다.
+ * 시니어마다 가상 스레드 하나를 사용하며, 단계별 지연시간 백분위와 처리량을 보고합니다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "loadtest.driver.enabled", havingValue = "true")
+public class TurnLoadDriver {
+
+    static final String STAGE_LOGIN = "login";
+    static final String STAGE_START = "start";
+    static final String STAGE_SPEECH_END = "speech_end";
+    static final String STAGE_EMOTION = "emotion";
+    static final String STAGE_GENERATE = "generate";
+    static final String STAGE_AUDIO = "audio";
+    static final String STAGE_END = "end";
+    static final String STAGE_DIARY = "diary";
+    static final String STAGE_FLOW = "flow";
+
+    private static final List<String> STAGES = List.of(
+        STAGE_LOGIN, STAGE_START, STAGE_SPEECH_END, STAGE_EMOTION, STAGE_GENERATE, STAGE_AUDIO, STAGE_END, STAGE_DIARY, STAGE_FLOW
+    );
+
+    // 대상 서버 (자기 자신이면 http://localhost:8080)
+    @Value("${loadtest.driver.target-url:http://localhost:8080}")
+    private String targetUrl;
+
+    // 대화 종료 후 일기 완료까지 기다리는 최대 시간
+    @Value("${loadtest.driver.diary-timeout-seconds:180}")
+    private long diaryTimeoutSeconds;
+
+    @Value("${loadtest.driver.diary-poll-ms:1000}")
+    private long diaryPollMs;
+
+    // 턴 사이 사용자가 생각하고 말하는 시간
+    @Value("${loadtest.driver.think-time-ms:0}")
+    private long thinkTimeMs;
+
+    // 한 번에 띄울 수 있는 시니어 수·턴 수 상한 (잘못된 요청이 서버와 외부 제공자를 몰아붙이지 않도록)
+    @Value("${loadtest.driver.max-seniors:200}")
+    private int maxSeniors;
+
+    @Value("${loadtest.driver.max-turns:20}")
+    private int maxTurns;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    /**
+     * 부하 테스트를 실행하고 끝날 때까지 기다려 결과를 반환합니다.
+     */
+    public LoadTestReport run(int seniors, int turnsPerSenior, long questionId) throws InterruptedException {
+        if (seniors < 1 || seniors > maxSeniors) {
+            throw new IllegalArgumentException("시니어 수는 1~" + maxSeniors + " 사이여야 합니다: " + seniors);
+        }
+        if (turnsPerSenior < 1 || turnsPerSenior > maxTurns) {
+            throw new IllegalArgumentException("턴 수는 1~" + maxTurns + " 사이여야 합니다: " + turnsPerSenior);
+        }
+        Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+        for (String stage : STAGES) {
+            latencies.put(stage, new ConcurrentLinkedQueue<>());
+            errors.put(stage, new AtomicInteger());
+        }
+        AtomicInteger completed = new AtomicInteger();
+        AtomicLong requests = new AtomicLong();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        log.info("부하 테스트 시작: seniors={}, turns={}, target={}", seniors, turnsPerSenior, targetUrl);
+        long startNanos = System.nanoTime();
+        CountDownLatch done = new CountDownLatch(seniors);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < seniors; i++) {
+                String kakaoCode = "loadtest-" + runId + "-" + i;
+                executor.submit(() -> {
+                    try {
+                        SeniorSession session = new SeniorSession(latencies, errors, requests);
+                        long flowStart = System.nanoTime();
+                        session.runFlow(kakaoCode, turnsPerSenior, questionId);
+                        latencies.get(STAGE_FLOW).add(elapsedMs(flowStart));
+                        completed.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.get(STAGE_FLOW).incrementAndGet();
+                        log.warn("시뮬레이션 흐름 실패: {}", e.getMessage());
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+        long elapsedMs = elapsedMs(startNanos);
+
+        Map<String, LoadTestReport.StageStats> stages = new LinkedHashMap<>();
+        for (String stage : STAGES) {
+            stages.put(stage, stats(latencies.get(stage), errors.get(stage).get()));
+        }
+        double seconds = Math.max(elapsedMs, 1) / 1000.0;
+        LoadTestReport report = new LoadTestReport(
+                seniors, turnsPerSenior, elapsedMs,
+                completed.get(), seniors - completed.get(),
+                completed.get() / seconds, requests.get() / seconds,
+                stages);
+        log.info("부하 테스트 완료: elapsed={}ms, completed={}/{}, rps={}",
+                elapsedMs, completed.get(), seniors, String.format("%.1f", report.getRequestsPerSecond()));
+        return report;
+    }
+
+    private static LoadTestReport.StageStats stats(ConcurrentLinkedQueue<Long> samples, int errorCount) {
+        long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return new LoadTestReport.StageStats(
+                sorted.length, errorCount,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                sorted.length == 0 ? -1 : sorted[sorted.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 시니어 한 명의 흐름 (가상 스레드 하나에서 순차 실행)
+     */
+    private class SeniorSession {
+
+        private final Map<String, ConcurrentLinkedQueue<Long>> latencies;
+        private final Map<String, AtomicInteger> errors;
+        private final AtomicLong requests;
+        private String token;
+
+        SeniorSession(Map<String, ConcurrentLinkedQueue<Long>> latencies, Map<String, AtomicInteger> errors,
+                      AtomicLong requests) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.requests = requests;
+        }
+
+        void runFlow(String kakaoCode, int turns, long questionId) throws Exception {
+            // 1. 로그인 (Kakao 대역)
+            JsonNode login = timed(STAGE_LOGIN, () ->
+                    send("POST", "/api/auth/kakao/exchange-token?code=" + kakaoCode, null));
+            token = login.path("token").asText();
+
+            // 2. 대화 시작
+            JsonNode start = timed(STAGE_START, () ->
+                    send("POST", "/api/conversations/start", Map.of("questionId", questionId)));
+            long conversationId = start.path("conversationId").asLong();
+            String cameraSessionId = start.path("cameraSessionId").asText();
+            String microphoneSessionId = start.path("microphoneSessionId").asText();
+
+            for (int turn = 0; turn < turns; turn++) {
+                // 3. 발화 시작 → 종료 (STT 대역)
+                Map<String, Object> speech = new LinkedHashMap<>();
+                speech.put("microphoneSessionId", microphoneSessionId);
+                speech.put("cameraSessionId", cameraSessionId);
+                speech.put("conversationId", conversationId);
+                JsonNode speechEnd = timed(STAGE_SPEECH_END, () -> {
+                    send("POST", "/api/microphone/speech/start", speech);
+                    Map<String, Object> end = new LinkedHashMap<>(speech);
+                    end.put("audioData", Base64.getEncoder().encodeToString(new byte[3200]));
+                    return send("POST", "/api/microphone/speech/end", end);
+                });
+                long messageId = speechEnd.path("conversationMessageId").asLong();
+
+                // 4. 표정/말 감정 저장 → 통합
+                timed(STAGE_EMOTION, () -> {
+                    send("POST", "/api/emotion-analysis/facial", facialEmotion(messageId));
+                    send("POST", "/api/emotion-analysis/speech", speechEmotion(messageId));
+                    return send("POST", "/api/emotion-analysis/combine", Map.of("conversationMessageId", messageId));
+                });
+
+                // 5. 응답 생성 (LLM 대역)
+                JsonNode generated = timed(STAGE_GENERATE, () ->
+                        send("POST", "/api/gpt/generate", Map.of("conversationMessageId", messageId)));
+
+                // 6. 응답 오디오 수신 (TTS 대역, 바이너리 스트리밍)
+                String audioUrl = generated.path("audioUrl").asText("");
+                if (!audioUrl.isEmpty()) {
+                    timed(STAGE_AUDIO, () -> fetch(audioUrl));
+                }
+
+                if (thinkTimeMs > 0) {
+                    Thread.sleep(thinkTimeMs);
+                }
+            }
+
+            // 7. 대화 종료 (요약/일기 백그라운드 시작)
+            timed(STAGE_END, () -> send("PUT", "/api/conversations/" + conversationId + "/end", null));
+
+            // 8. 일기 완료까지 폴링 후 조회
+            timed(STAGE_DIARY, () -> {
+                long deadline = System.nanoTime() + Duration.ofSeconds(diaryTimeoutSeconds).toNanos();
+                while (System.nanoTime() < deadline) {
+                    JsonNode status = send("GET", "/api/conversations/" + conversationId + "/processing-status", null);
+                    String processing = status.path("status").asText();
+                    if ("COMPLETED".equals(processing)) {
+                        return send("GET", "/api/conversations/" + conversationId + "/diary", null);
+                    }
+                    if ("ERROR".equals(processing)) {
+                        throw new RuntimeException("일기 생성 실패: conversationId=" + conversationId);
+                    }
+                    Thread.sleep(diaryPollMs);
+                }
+                throw new RuntimeException("일기 생성 대기 시간 초과: conversationId=" + conversationId);
+            });
+        }
+
+        private JsonNode timed(String stage, StageCall call) throws Exception {
+            long startNanos = System.nanoTime();
+            try {
+                JsonNode result = call.run();
+                latencies.get(stage).add(elapsedMs(startNanos));
+                return result;
+            } catch (Exception e) {
+                errors.get(stage).incrementAndGet();
+                throw e;
+            }
+        }
+
+        private JsonNode send(String method, String path, Object body) throws Exception {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(targetUrl + path))
+                    .timeout(Duration.ofSeconds(120))
+                    .header("Content-Type", "application/json");
+            if (token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            HttpRequest.BodyPublisher publisher = body == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+            requests.incrementAndGet();
+            HttpResponse<String> response = httpClient.send(builder.method(method, publisher).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                throw new RuntimeException(method + " " + path + " 실패: status=" + response.statusCode());
+            }
+            String responseBody = response.body();
+            return responseBody == null || responseBody.isBlank()
+                    ? objectMapper.createObjectNode()
+                    : objectMapper.readTree(responseBody);
+        }
+
+        /**
+         * 바이너리 응답을 끝까지 읽고 버립니다 (수신 바이트 수만 반환).
+         */
+        private JsonNode fetch(String path) throws Exception {
+            requests.incrementAndGet();
+            HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder()
+                    .uri(URI.create(targetUrl + path))
+                    .timeout(Duration.ofSeconds(120))
+                    .GET()
+                    .build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() >= 400) {
+                throw new RuntimeException("GET " + path + " 실패: status=" + response.statusCode());
+            }
+            return objectMapper.createObjectNode().put("bytes", response.body().length);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageCall {
+        JsonNode run() throws Exception;
+    }
+
+    private static Map<String, Object> facialEmotion(long messageId) {
+        List<Map<String, Object>> details = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            details.add(Map.of("emotion", "기쁨", "confidence", 0.8, "timestamp", "2025-01-01T00:00:0" + i));
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("finalEmotion", "기쁨");
+        data.put("totalCaptures", 3);
+        data.put("emotionCounts", Map.of("기쁨", 3));
+        data.put("averageConfidence", 0.8);
+        data.put("emotionDetails", details);
+        return Map.of("conversationMessageId", messageId, "facialEmotionData", data);
+    }
+
+    private Map<String, Object> speechEmotion(long messageId) throws Exception {
+        Map<String, Object> probabilities = new LinkedHashMap<>();
+        probabilities.put("기쁨", 0.8);
+        probabilities.put("당황", 0.04);
+        probabilities.put("분노", 0.04);
+        probabilities.put("불안", 0.04);
+        probabilities.put("상처", 0.04);
+        probabilities.put("슬픔", 0.04);
+        String speechData = objectMapper.writeValueAsString(Map.of(
+                "predicted_label", "기쁨", "confidence", 0.8, "all_probabilities", probabilities));
+        return Map.of(
+                "conversationMessageId", messageId,
+                "emotion", "기쁨",
+                "confidence", 0.8,
+                "speechEmotionData", speechData);
+    }
+}
@@ -1,5 +1,6 @@
 package com.chimaenono.dearmind.music;
 
+import com.chimaenono.dearmind.conversation.ConversationSingleFlight;
 import com.chimaenono.dearmind.gpt.GPTService;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +26,9 @@ public class MusicRecommendationService {
     @Autowired
     private VerifiedMusicDatabase verifiedMusicDatabase;
     
+    @Autowired
+    private ConversationSingleFlight singleFlight;
+    
     @Operation(summary = "음악 추천 조회 또는 생성", description = "기존 음악 추천이 있으면 조회하고, 없으면 새로 생성합니다")
     public List<MusicRecommendation> getOrGenerateMusicRecommendations(
             Long conversationId, 
@@ -32,92 +36,128 @@ public class MusicRecommendationService {
             com.chimaenono.dearmind.diary.Summary summary) {
         
         try {
-            // 1. 기존 추천 음악 조회
+            // 동시에 들어온 같은 대화의 요청은 하나의 생성 작업만 실행하고 결과를 공유
+            return singleFlight.run(conversationId, ConversationSingleFlight.STAGE_MUSIC,
+                    () -> generateIfAbsent(conversationId, diaryPlan, summary));
+        } catch (Exception e) {
+            System.err.println("음악 추천 생성 중 오류 발생: " + e.getMessage());
+            e.printStackTrace();
+            return List.of(); // 빈 리스트 반환
+        }
+    }
+    
+    /**
+     * 기존 추천이 없을 때만 GPT/YouTube로 추천을 생성하고 저장합니다.
+     */
+    private List<MusicRecommendation> generateIfAbsent(
+            Long conversationId, 
+            com.chimaenono.dearmind.diary.DiaryPlan diaryPlan, 
+            com.chimaenono.dearmind.diary.Summary summary) throws Exception {
+        
+        // 1. 기존 추천 음악 조회
+        List<MusicRecommendation> existing = musicRecommendationRepository
+            .findByConversationIdOrderByCreatedAtAsc(conversationId);
+        
+        if (!existing.isEmpty()) {
+            System.out.println("기존 음악 추천을 반환합니다. Conversation ID: " + conversationId);
+            return existing; // 이미 추천된 음악이 있으면 반환
+        }
+        
+        System.out.println("새로운 음악 추천을 생성합니다. Conversation ID: " + conversationId);
+        
+        // 2. GPT로 음악 추천 생성 (링크 없이)
+        List<MusicRecommendation> newRecommendations = 
+            gptService.generateMusicRecommendations(diaryPlan, summary);
+        
+        // 3. 검증된 데이터베이스에서 정확한 링크 찾기 및 저장
+        return saveRecommendations(conversationId, newRecommendations);
+    }
+    
+    /**
+     * 일기 번들처럼 다른 경로에서 받은 추천을 저장합니다. 조회 경로(generateIfAbsent)와 같은 single-flight 안에서
+     * 기존 추천이 없을 때만 저장하므로, 링크 검색 중 들어온 일기 조회는 새로 생성하지 않고 이 작업에 합류합니다.
+     */
+    public List<MusicRecommendation> saveRecommendationsIfAbsent(
+            Long conversationId, List<MusicRecommendation> newRecommendations) throws Exception {
+        return singleFlight.run(conversationId, ConversationSingleFlight.STAGE_MUSIC, () -> {
             List<MusicRecommendation> existing = musicRecommendationRepository
                 .findByConversationIdOrderByCreatedAtAsc(conversationId);
-            
             if (!existing.isEmpty()) {
-                System.out.println("기존 음악 추천을 반환합니다. Conversation ID: " + conversationId);
-                return existing; // 이미 추천된 음악이 있으면 반환
+                System.out.println("기존 음악 추천이 있어 번들 추천은 저장하지 않습니다. Conversation ID: " + conversationId);
+                return existing;
             }
+            return saveRecommendations(conversationId, newRecommendations);
+        });
+    }
+    
+    /**
+     * GPT가 추천한 음악(링크 없음)에 검증된 YouTube 링크를 채워 저장합니다.
+     */
+    private List<MusicRecommendation> saveRecommendations(Long conversationId, List<MusicRecommendation> newRecommendations) {
+        for (MusicRecommendation music : newRecommendations) {
+            music.setConversationId(conversationId);
             
-            System.out.println("새로운 음악 추천을 생성합니다. Conversation ID: " + conversationId);
-            
-            // 2. GPT로 음악 추천 생성 (링크 없이)
-            List<MusicRecommendation> newRecommendations = 
-                gptService.generateMusicRecommendations(diaryPlan, summary);
+            // 검증된 데이터베이스에서 정확한 음악 정보 찾기
+            VerifiedMusicDatabase.MusicInfo verifiedMusic = 
+                verifiedMusicDatabase.getVerifiedMusic(music.getTitle(), music.getArtist());
             
-            // 3. 검증된 데이터베이스에서 정확한 링크 찾기 및 저장
-            for (MusicRecommendation music : newRecommendations) {
-                music.setConversationId(conversationId);
-                
-                // 검증된 데이터베이스에서 정확한 음악 정보 찾기
-                VerifiedMusicDatabase.MusicInfo verifiedMusic = 
-                    verifiedMusicDatabase.getVerifiedMusic(music.getTitle(), music.getArtist());
+            if (verifiedMusic != null) {
+                // 검증된 음악 정보 사용
+                music.setYoutubeLink(verifiedMusic.getYoutubeLink());
+                music.setYoutubeVideoId(verifiedMusic.getVideoId());
+                music.setMood(verifiedMusic.getMood()); // 더 정확한 분위기 정보
+                System.out.println("검증된 음악 사용: " + music.getTitle() + " - " + verifiedMusic.getYoutubeLink());
+            } else {
+                // 검증된 데이터베이스에 없으면 제목으로 검색
+                VerifiedMusicDatabase.MusicInfo titleMatch = 
+                    verifiedMusicDatabase.searchByTitle(music.getTitle());
                 
-                if (verifiedMusic != null) {
-                    // 검증된 음악 정보 사용
-                    music.setYoutubeLink(verifiedMusic.getYoutubeLink());
-                    music.setYoutubeVideoId(verifiedMusic.getVideoId());
-                    music.setMood(verifiedMusic.getMood()); // 더 정확한 분위기 정보
-                    System.out.println("검증된 음악 사용: " + music.getTitle() + " - " + verifiedMusic.getYoutubeLink());
+                if (titleMatch != null) {
+                    music.setTitle(titleMatch.getTitle());
+                    music.setArtist(titleMatch.getArtist());
+                    music.setYoutubeLink(titleMatch.getYoutubeLink());
+                    music.setYoutubeVideoId(titleMatch.getVideoId());
+                    music.setMood(titleMatch.getMood());
+                    System.out.println("제목 매칭으로 검증된 음악 사용: " + titleMatch.getTitle() + " - " + titleMatch.getYoutubeLink());
                 } else {
-                    // 검증된 데이터베이스에 없으면 제목으로 검색
-                    VerifiedMusicDatabase.MusicInfo titleMatch = 
-                        verifiedMusicDatabase.searchByTitle(music.getTitle());
+                    // 최종적으로 YouTube 검색 시도
+                    String youtubeLink = youtubeSearchService.searchAndGenerateLink(
+                        music.getTitle(), music.getArtist());
                     
-                    if (titleMatch != null) {
-                        music.setTitle(titleMatch.getTitle());
-                        music.setArtist(titleMatch.getArtist());
-                        music.setYoutubeLink(titleMatch.getYoutubeLink());
-                        music.setYoutubeVideoId(titleMatch.getVideoId());
-                        music.setMood(titleMatch.getMood());
-                        System.out.println("제목 매칭으로 검증된 음악 사용: " + titleMatch.getTitle() + " - " + titleMatch.getYoutubeLink());
+                    if (youtubeLink != null) {
+                        music.setYoutubeLink(youtubeLink);
+                        String videoId = youtubeSearchService.extractVideoId(youtubeLink);
+                        music.setYoutubeVideoId(videoId);
+                        System.out.println("YouTube 검색 성공: " + music.getTitle() + " - " + youtubeLink);
                     } else {
-                        // 최종적으로 YouTube 검색 시도
-                        String youtubeLink = youtubeSearchService.searchAndGenerateLink(
-                            music.getTitle(), music.getArtist());
+                        // 최종 실패 시 검증된 랜덤 음악 사용
+                        List<VerifiedMusicDatabase.MusicInfo> randomMusic = 
+                            verifiedMusicDatabase.getRandomMusicByMood("차분한", 1);
                         
-                        if (youtubeLink != null) {
-                            music.setYoutubeLink(youtubeLink);
-                            String videoId = youtubeSearchService.extractVideoId(youtubeLink);
-                            music.setYoutubeVideoId(videoId);
-                            System.out.println("YouTube 검색 성공: " + music.getTitle() + " - " + youtubeLink);
+                        if (!randomMusic.isEmpty()) {
+                            VerifiedMusicDatabase.MusicInfo fallback = randomMusic.get(0);
+                            music.setTitle(fallback.getTitle());
+                            music.setArtist(fallback.getArtist());
+                            music.setYoutubeLink(fallback.getYoutubeLink());
+                            music.setYoutubeVideoId(fallback.getVideoId());
+                            music.setMood(fallback.getMood());
+                            System.out.println("대체 음악 사용: " + fallback.getTitle() + " - " + fallback.getYoutubeLink());
                         } else {
-                            // 최종 실패 시 검증된 랜덤 음악 사용
-                            List<VerifiedMusicDatabase.MusicInfo> randomMusic = 
-                                verifiedMusicDatabase.getRandomMusicByMood("차분한", 1);
-                            
-                            if (!randomMusic.isEmpty()) {
-                                VerifiedMusicDatabase.MusicInfo fallback = randomMusic.get(0);
-                                music.setTitle(fallback.getTitle());
-                                music.setArtist(fallback.getArtist());
-                                music.setYoutubeLink(fallback.getYoutubeLink());
-                                music.setYoutubeVideoId(fallback.getVideoId());
-                                music.setMood(fallback.getMood());
-                                System.out.println("대체 음악 사용: " + fallback.getTitle() + " - " + fallback.getYoutubeLink());
-                            } else {
-                                // 최종 대체
-                                music.setYoutubeLink("https://www.youtube.com/results?search_query=" + 
-                                    music.getTitle() + "+" + music.getArtist());
-                                music.setYoutubeVideoId(null);
-                                System.out.println("최종 대체 링크 사용: " + music.getTitle());
-                            }
+                            // 최종 대체
+                            music.setYoutubeLink("https://www.youtube.com/results?search_query=" + 
+                                music.getTitle() + "+" + music.getArtist());
+                            music.setYoutubeVideoId(null);
+                            System.out.println("최종 대체 링크 사용: " + music.getTitle());
                         }
                     }
                 }
-                
-                musicRecommendationRepository.save(music);
             }
             
-            System.out.println("음악 추천이 생성되고 저장되었습니다. 개수: " + newRecommendations.size());
-            return newRecommendations;
-            
-        } catch (Exception e) {
-            System.err.println("음악 추천 생성 중 오류 발생: " + e.getMessage());
-            e.printStackTrace();
-            return List.of(); // 빈 리스트 반환
+            musicRecommendationRepository.save(music);
         }
+        
+        System.out.println("음악 추천이 생성되고 저장되었습니다. 개수: " + newRecommendations.size());
+        return newRecommendations;
     }
     
     @Operation(summary = "대화별 음악 추천 조회", description = "특정 대화의 음악 추천 목록을 조회합니다")
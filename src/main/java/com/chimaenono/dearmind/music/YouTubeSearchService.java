@@ -23,7 +23,8 @@ public class YouTubeSearchService {
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
     
-    private static final String YOUTUBE_SEARCH_URL = "https://www.googleapis.com/youtube/v3/search";
+    @Value("${youtube.api.url:https://www.googleapis.com/youtube/v3}")
+    private String apiUrl;
     
     /**
      * 음악 제목과 아티스트로 YouTube에서 검색하여 링크를 생성합니다.
@@ -77,7 +78,7 @@ public class YouTubeSearchService {
         try {
             String encodedQuery = URLEncoder.encode(searchQuery, StandardCharsets.UTF_8);
             String url = String.format("%s?part=snippet&q=%s&type=video&maxResults=%d&videoCategoryId=10&key=%s", 
-                YOUTUBE_SEARCH_URL, encodedQuery, maxResults, apiKey);
+                apiUrl + "/search", encodedQuery, maxResults, apiKey);
             
             // HTTP 요청 헤더 설정
             HttpHeaders headers = new HttpHeaders();
@@ -128,8 +129,8 @@ public class YouTubeSearchService {
      */
     private String getVideoInfo(String videoId) {
         try {
-            String url = String.format("https://www.googleapis.com/youtube/v3/videos?part=snippet&id=%s&key=%s", 
-                videoId, apiKey);
+            String url = String.format("%s/videos?part=snippet&id=%s&key=%s", 
+                apiUrl, videoId, apiKey);
             
             HttpHeaders headers = new HttpHeaders();
             headers.set("Accept", "application/json");
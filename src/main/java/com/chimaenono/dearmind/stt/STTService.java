@@ -1,5 +1,7 @@
 package com.chimaenono.dearmind.stt;
 
+import com.chimaenono.dearmind.gpt.OpenAiRateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,9 +17,15 @@ public class STTService {
     @Value("${openai.api.key:}")
     private String openaiApiKey;
 
-    @Value("${openai.api.url:https://api.openai.com/v1/audio/transcriptions}")
+    @Value("${openai.api.url:https://api.openai.com/v1}")
     private String openaiApiUrl;
 
+    private static final String WHISPER_MODEL = "whisper-1";
+
+    // 대화 턴/요약 등과 같은 OpenAI 한도를 공유 (STT 우선순위)
+    @Autowired
+    private OpenAiRateLimiter rateLimiter;
+
     @Operation(summary = "오디오를 텍스트로 변환", description = "Whisper API를 사용하여 오디오를 텍스트로 변환합니다")
     public STTResponse transcribeAudio(String audioData, String format, String language) {
         long startTime = System.currentTimeMillis();
@@ -48,21 +56,24 @@ public class STTService {
             // 모델 파트
             writer.append("--").append(boundary).append("\r\n");
             writer.append("Content-Disposition: form-data; name=\"model\"\r\n\r\n");
-            writer.append("whisper-1\r\n");
+            writer.append(WHISPER_MODEL).append("\r\n");
             
             // 바운더리 종료
             writer.append("--").append(boundary).append("--\r\n");
             writer.flush();
             
             java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                    .uri(java.net.URI.create("https://api.openai.com/v1/audio/transcriptions"))
+                    .uri(java.net.URI.create(openaiApiUrl + "/audio/transcriptions"))
                     .header("Authorization", "Bearer " + openaiApiKey)
                     .header("Content-Type", "multipart/form-data; boundary=" + boundary)
                     .POST(java.net.http.HttpRequest.BodyPublishers.ofByteArray(baos.toByteArray()))
                     .build();
             
+            // 계정 공용 버킷에서 대화 턴/백그라운드 호출과 STT 등급으로 경쟁한 뒤 Whisper 모델 한도 확보
+            rateLimiter.acquire(WHISPER_MODEL, OpenAiRateLimiter.Priority.STT, null, 0);
             java.net.http.HttpResponse<String> response = client.send(request, 
                     java.net.http.HttpResponse.BodyHandlers.ofString());
+            rateLimiter.observe(WHISPER_MODEL, response.statusCode(), response.headers());
             
             long endTime = System.currentTimeMillis();
             double duration = (endTime - startTime) / 1000.0;
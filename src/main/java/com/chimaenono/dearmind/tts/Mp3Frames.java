@@ -0,0 +1,121 @@
+package com.chimaenono.dearmind.tts;
+
+import java.util.Arrays;
+
+/**
+ * 문장별 MP3를 이어 붙이기 위한 프레임 경계 처리
+ * 파일마다 붙는 ID3v2/ID3v1 태그와 Xing/Info/VBRI 헤더 프레임(재생 시 무음·길이 오표시 원인)을 걷어내고,
+ * 잘린 마지막 프레임을 버려 완전한 오디오 프레임 구간만 남깁니다.
+ * 각 파일의 첫 프레임은 비트 저장소(main_data_begin)를 참조하지 않으므로 파일 경계에서 이어 붙여도 디코딩이 깨지지 않습니다.
+ * MPEG 1/2/2.5 Layer III만 해석하며, 해석할 수 없는 입력은 그대로 돌려줍니다.
+ */
+public final class Mp3Frames {
+
+    // [MPEG1, MPEG2/2.5] Layer III 비트레이트 (kbps), 인덱스 0(free)·15(bad)는 지원하지 않음
+    private static final int[][] BITRATES = {
+        {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+        {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}
+    };
+
+    // [MPEG1, MPEG2, MPEG2.5] 샘플링 레이트 (Hz)
+    private static final int[][] SAMPLE_RATES = {
+        {44100, 48000, 32000},
+        {22050, 24000, 16000},
+        {11025, 12000, 8000}
+    };
+
+    private Mp3Frames() {
+    }
+
+    /**
+     * 태그와 VBR 헤더 프레임을 제외한 연속된 완전한 오디오 프레임 구간을 반환합니다.
+     */
+    public static byte[] audioFrames(byte[] mp3) {
+        int start = skipId3v2(mp3);
+        while (start + 4 <= mp3.length && frameLength(mp3, start) < 0) {
+            start++;
+        }
+        int first = frameLength(mp3, start);
+        if (first < 0 || start + first > mp3.length) {
+            return mp3;
+        }
+        if (isVbrHeaderFrame(mp3, start)) {
+            start += first;
+        }
+
+        int end = start;
+        while (end + 4 <= mp3.length) {
+            int length = frameLength(mp3, end);
+            if (length < 0 || end + length > mp3.length) {
+                break;
+            }
+            end += length;
+        }
+        if (start == 0 && end == mp3.length) {
+            return mp3;
+        }
+        return Arrays.copyOfRange(mp3, start, end);
+    }
+
+    private static int skipId3v2(byte[] mp3) {
+        if (mp3.length < 10 || mp3[0] != 'I' || mp3[1] != 'D' || mp3[2] != '3') {
+            return 0;
+        }
+        // 크기는 7비트씩 나눈 syncsafe 정수, 헤더(10) 제외
+        int size = (mp3[6] & 0x7f) << 21 | (mp3[7] & 0x7f) << 14 | (mp3[8] & 0x7f) << 7 | (mp3[9] & 0x7f);
+        boolean footer = (mp3[5] & 0x10) != 0;
+        return Math.min(mp3.length, 10 + size + (footer ? 10 : 0));
+    }
+
+    /**
+     * offset의 Layer III 프레임 길이 (바이트), 프레임 헤더가 아니면 -1
+     */
+    private static int frameLength(byte[] mp3, int offset) {
+        if (offset + 4 > mp3.length) {
+            return -1;
+        }
+        int b1 = mp3[offset + 1] & 0xff;
+        int b2 = mp3[offset + 2] & 0xff;
+        if ((mp3[offset] & 0xff) != 0xff || (b1 & 0xe0) != 0xe0) {
+            return -1;
+        }
+        int version = (b1 >> 3) & 0x03;   // 0: MPEG2.5, 1: 예약, 2: MPEG2, 3: MPEG1
+        int layer = (b1 >> 1) & 0x03;     // 1: Layer III
+        int bitrateIndex = (b2 >> 4) & 0x0f;
+        int sampleRateIndex = (b2 >> 2) & 0x03;
+        if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return -1;
+        }
+        boolean mpeg1 = version == 3;
+        int bitrate = BITRATES[mpeg1 ? 0 : 1][bitrateIndex] * 1000;
+        int sampleRate = SAMPLE_RATES[mpeg1 ? 0 : version == 2 ? 1 : 2][sampleRateIndex];
+        int padding = (b2 >> 1) & 0x01;
+        return (mpeg1 ? 144 : 72) * bitrate / sampleRate + padding;
+    }
+
+    /**
+     * 인코더가 첫 프레임에 넣는 Xing/Info(LAME) 또는 VBRI 헤더 프레임인지 확인합니다.
+     */
+    private static boolean isVbrHeaderFrame(byte[] mp3, int offset) {
+        int b1 = mp3[offset + 1] & 0xff;
+        int b3 = mp3[offset + 3] & 0xff;
+        boolean mpeg1 = ((b1 >> 3) & 0x03) == 3;
+        boolean mono = ((b3 >> 6) & 0x03) == 3;
+        boolean crc = (b1 & 0x01) == 0;
+        int sideInfo = mpeg1 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+        int xing = offset + 4 + (crc ? 2 : 0) + sideInfo;
+        return tagAt(mp3, xing, "Xing") || tagAt(mp3, xing, "Info") || tagAt(mp3, offset + 36, "VBRI");
+    }
+
+    private static boolean tagAt(byte[] mp3, int offset, String tag) {
+        if (offset + tag.length() > mp3.length) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (mp3[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,8 +1,11 @@
 package com.chimaenono.dearmind.tts;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,8 +14,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/tts")
@@ -23,6 +30,15 @@ public class TTSController {
     @Autowired
     private TTSService ttsService;
 
+    @Autowired
+    private TtsAudioCache audioCache;
+
+    @Autowired
+    private TtsAudioLinks audioLinks;
+
+    @Autowired
+    private TtsLineSynthesizer lineSynthesizer;
+
     @PostMapping("/synthesize")
     @Operation(
         summary = "텍스트를 음성으로 변환",
@@ -64,6 +80,89 @@ public class TTSController {
         }
     }
 
+    @PostMapping(value = "/stream", produces = {"audio/mpeg", "audio/wav", "audio/ogg"})
+    @Operation(
+        summary = "텍스트를 음성으로 변환 (바이너리 스트리밍)",
+        description = "Base64 JSON 대신 오디오 바이트를 청크 단위로 바로 전송합니다 (mp3 → audio/mpeg). 캐시에 있으면 외부 호출 없이 전송합니다. " +
+                      "mp3는 문장 단위로 병렬 합성해 첫 문장부터 순서대로 보냅니다."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "오디오 스트림"),
+        @ApiResponse(responseCode = "400", description = "텍스트 없음")
+    })
+    public ResponseEntity<StreamingResponseBody> streamSpeech(@RequestBody TTSRequest request) {
+        return streamSpeech(request.getText(), request.getVoice(), request.getSpeed(), request.getPitch(),
+                request.getVolume(), request.getFormat());
+    }
+
+    @GetMapping(value = "/stream", produces = {"audio/mpeg", "audio/wav", "audio/ogg"})
+    @Operation(
+        summary = "텍스트를 음성으로 변환 (바이너리 스트리밍, GET)",
+        description = "쿼리 파라미터로 요청하는 바이너리 스트리밍 변환입니다."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "오디오 스트림"),
+        @ApiResponse(responseCode = "400", description = "텍스트 없음")
+    })
+    public ResponseEntity<StreamingResponseBody> streamSpeech(
+        @Parameter(description = "변환할 텍스트", example = "안녕하세요!") @RequestParam String text,
+        @Parameter(description = "음성 이름", example = "ko-KR-Wavenet-A") @RequestParam(required = false) String voice,
+        @Parameter(description = "음성 속도", example = "1.0") @RequestParam(required = false) String speed,
+        @Parameter(description = "음성 톤", example = "0.0") @RequestParam(required = false) String pitch,
+        @Parameter(description = "음성 볼륨", example = "0.0") @RequestParam(required = false) String volume,
+        @Parameter(description = "오디오 포맷", example = "mp3") @RequestParam(required = false) String format
+    ) {
+        if (text == null || text.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TTSService.contentTypeOf(format)))
+                .body(speechBody(text, voice, speed, pitch, volume, format));
+    }
+
+    @GetMapping(value = "/audio/{key}", produces = {"audio/mpeg", "audio/wav", "audio/ogg"})
+    @Operation(
+        summary = "턴 응답 오디오",
+        description = "대화 응답의 audioUrl입니다. 캐시에 있으면 바로, 없으면 문장 단위로 병렬 합성해 첫 문장부터 순서대로 전송합니다."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "오디오 스트림"),
+        @ApiResponse(responseCode = "404", description = "만료되었거나 없는 오디오")
+    })
+    public ResponseEntity<StreamingResponseBody> streamAudio(
+        @Parameter(description = "오디오 토큰 (audioUrl의 마지막 경로)") @PathVariable String key
+    ) {
+        Optional<TtsAudioLinks.Pending> pending = audioLinks.resolve(key);
+        if (pending.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // 합성은 캐시를 먼저 확인하므로 이미 합성된 오디오는 외부 호출 없이 나감
+        TtsAudioLinks.Pending audio = pending.get();
+        StreamingResponseBody body = speechBody(audio.text(), audio.voice(), audio.speed(), audio.pitch(),
+                audio.volume(), audio.format());
+        // 토큰마다 합성 파라미터가 고정이라 같은 URL의 오디오는 바뀌지 않음
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TTSService.contentTypeOf(audio.format())))
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.DAYS).cachePrivate())
+                .body(body);
+    }
+
+    /**
+     * 응답 스레드에서 TTS를 호출하며 합성된 오디오를 바로 쓰는 응답 본문 (여러 문장이면 첫 문장부터 순서대로)
+     */
+    private StreamingResponseBody speechBody(String text, String voice, String speed, String pitch,
+                                             String volume, String format) {
+        return out -> {
+            try {
+                lineSynthesizer.stream(text, voice, speed, pitch, volume, format, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException("TTS 스트리밍 실패: " + e.getMessage(), e);
+            }
+        };
+    }
+
     @PostMapping("/simple")
     @Operation(
         summary = "간단한 TTS 변환",
@@ -115,4 +214,22 @@ public class TTSController {
         response.put("timestamp", System.currentTimeMillis());
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping("/cache/stats")
+    @Operation(
+        summary = "TTS 캐시 현황",
+        description = "메모리/디스크 단계별 항목 수와 사용 바이트, 적중률, 문장 단위 합성의 문장 캐시 적중률을 조회합니다."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "조회 성공",
+            content = @Content(schema = @Schema(implementation = Map.class))
+        )
+    })
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(audioCache.stats());
+        stats.put("lines", lineSynthesizer.stats());
+        return ResponseEntity.ok(stats);
+    }
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.chimaenono.dearmind.tts;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,9 +13,16 @@ import java.net.http.HttpResponse;
 import java.net.URI;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.auth.oauth2.ServiceAccountCredentials;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 @Service
 @Tag(name = "TTS Service", description = "Google Cloud Text-to-Speech 변환 서비스")
@@ -26,8 +34,18 @@ public class TTSService {
     @Value("${google.cloud.texttospeech.credentials-file:}")
     private String credentialsFile;
 
-    private static final String GOOGLE_TTS_URL = "https://texttospeech.googleapis.com/v1/text:synthesize";
+    @Value("${google.cloud.texttospeech.url:https://texttospeech.googleapis.com/v1/text:synthesize}")
+    private String ttsUrl;
+
+    // 고정 액세스 토큰 (로컬 대역 서버 등 서비스 계정 없이 호출할 때만 설정)
+    @Value("${google.cloud.texttospeech.access-token:}")
+    private String staticAccessToken;
+
+    @Autowired
+    private TtsAudioCache audioCache;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
     private String accessToken = null;
     private long tokenExpiryTime = 0;
 
@@ -43,6 +61,21 @@ public class TTSService {
             volume = volume != null ? volume : "0.0";
             format = format != null ? format : "mp3";
             
+            // 같은 텍스트/음성 설정이면 캐시된 오디오를 그대로 사용 (외부 호출 없음)
+            String cacheKey = TtsAudioCache.keyOf(text, voice, speed, pitch, volume, getAudioEncoding(format));
+            Optional<byte[]> cached = audioCache.get(cacheKey);
+            if (cached.isPresent()) {
+                double duration = (System.currentTimeMillis() - startTime) / 1000.0;
+                return new TTSResponse(
+                    Base64.getEncoder().encodeToString(cached.get()),
+                    format,
+                    voice,
+                    duration,
+                    "success",
+                    null
+                );
+            }
+            
             // 액세스 토큰 가져오기
             String accessToken = getAccessToken();
             
@@ -54,7 +87,7 @@ public class TTSService {
             
             // HTTP 요청 생성
             HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(GOOGLE_TTS_URL))
+                    .uri(URI.create(ttsUrl))
                     .header("Content-Type", "application/json")
                     .header("Authorization", "Bearer " + accessToken)
                     .POST(HttpRequest.BodyPublishers.ofString(requestBody))
@@ -73,6 +106,7 @@ public class TTSService {
                 // 성공적인 응답 파싱
                 JsonNode jsonResponse = objectMapper.readTree(response.body());
                 String base64Audio = jsonResponse.get("audioContent").asText();
+                audioCache.put(cacheKey, getAudioEncoding(format), Base64.getDecoder().decode(base64Audio));
                 
                 return new TTSResponse(
                     base64Audio,
@@ -112,6 +146,98 @@ public class TTSService {
         }
     }
 
+    /**
+     * 텍스트를 음성으로 변환해 오디오 바이트를 디코딩되는 대로 out에 씁니다 (Base64 문자열 전체를 힙에 올리지 않음).
+     * Google 응답의 audioContent를 스트리밍 파서로 읽으며 청크 단위로 디코딩·flush하고, 완료되면 캐시에 저장합니다.
+     * 캐시 적중 시에는 외부 호출 없이 캐시된 바이트를 씁니다.
+     */
+    public void streamSpeech(String text, String voice, String speed, String pitch, String volume, String format,
+                             OutputStream out) throws Exception {
+        voice = voice != null ? voice : "ko-KR-Neural2-A";
+        speed = speed != null ? speed : "1.0";
+        pitch = pitch != null ? pitch : "0.0";
+        volume = volume != null ? volume : "0.0";
+        format = format != null ? format : "mp3";
+        
+        String audioEncoding = getAudioEncoding(format);
+        String cacheKey = TtsAudioCache.keyOf(text, voice, speed, pitch, volume, audioEncoding);
+        Optional<byte[]> cached = audioCache.get(cacheKey);
+        if (cached.isPresent()) {
+            out.write(cached.get());
+            out.flush();
+            return;
+        }
+        
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(ttsUrl))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + getAccessToken())
+                .POST(HttpRequest.BodyPublishers.ofString(createRequestBody(text, voice, speed, pitch, volume, format)))
+                .build();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("TTS 변환 실패. Status: " + response.statusCode() + ", Response: "
+                        + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            ByteArrayOutputStream audio = new ByteArrayOutputStream();
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token == JsonToken.FIELD_NAME && "audioContent".equals(parser.currentName())) {
+                        parser.nextToken();
+                        parser.readBinaryValue(new ChunkedAudioOutputStream(out, audio));
+                        out.flush();
+                        audioCache.put(cacheKey, audioEncoding, audio.toByteArray());
+                        return;
+                    }
+                }
+            }
+            throw new RuntimeException("TTS 응답에 audioContent가 없습니다.");
+        }
+    }
+    
+    /**
+     * 디코딩된 청크를 클라이언트로 바로 flush하면서 캐시 저장용 사본을 남기는 출력 스트림
+     */
+    private static class ChunkedAudioOutputStream extends OutputStream {
+        private final OutputStream client;
+        private final ByteArrayOutputStream copy;
+        
+        ChunkedAudioOutputStream(OutputStream client, ByteArrayOutputStream copy) {
+            this.client = client;
+            this.copy = copy;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            client.write(b);
+            copy.write(b);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            client.write(b, off, len);
+            client.flush();
+            copy.write(b, off, len);
+        }
+    }
+    
+    /**
+     * 오디오 포맷의 HTTP Content-Type
+     */
+    public static String contentTypeOf(String format) {
+        switch (format == null ? "mp3" : format.toLowerCase()) {
+            case "wav":
+                return "audio/wav";
+            case "ogg":
+                return "audio/ogg";
+            default:
+                return "audio/mpeg";
+        }
+    }
+
     @Operation(summary = "기본 TTS 변환", description = "기본 설정으로 텍스트를 음성으로 변환합니다")
     public TTSResponse synthesizeSpeech(String text) {
         return synthesizeSpeech(text, "ko-KR-Neural2-A", "1.0", "0.0", "0.0", "mp3");
@@ -133,6 +259,10 @@ public class TTSService {
      * 서비스 계정을 사용하여 액세스 토큰 가져오기
      */
     private String getAccessToken() throws Exception {
+        if (!staticAccessToken.isEmpty()) {
+            return staticAccessToken;
+        }
+        
         // 토큰이 아직 유효한지 확인
         if (accessToken != null && System.currentTimeMillis() < tokenExpiryTime) {
             return accessToken;
@@ -189,7 +319,14 @@ public class TTSService {
      * 오디오 포맷 문자열을 Google Cloud TTS AudioEncoding으로 변환
      */
     private String getAudioEncoding(String format) {
-        switch (format.toLowerCase()) {
+        return audioEncodingOf(format);
+    }
+    
+    /**
+     * 오디오 포맷 문자열의 Google Cloud TTS AudioEncoding (캐시 키 계산용으로 공개)
+     */
+    public static String audioEncodingOf(String format) {
+        switch (format == null ? "mp3" : format.toLowerCase()) {
             case "mp3":
                 return "MP3";
             case "wav":
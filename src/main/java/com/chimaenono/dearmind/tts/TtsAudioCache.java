@@ -0,0 +1,285 @@
+package com.chimaenono.dearmind.tts;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 내용 주소 방식 TTS 오디오 캐시
+ * - 키: (text, voice, rate, pitch, gain, encoding)의 SHA-256 → 같은 조합이면 외부 호출 없이 같은 오디오
+ * - 1단계: 바이트 크기 상한이 있는 메모리 LRU (원본 오디오 바이트 보관)
+ * - 2단계: 디스크 파일 ({dir}/{키 앞 2자리}/{키}.{확장자}), 읽으면 메모리 단계로 승격
+ *   (승격하려면 힙 배열이 필요하고 파일이 수십 KB라 메모리 매핑 없이 한 번에 읽음)
+ *   디스크도 크기 상한을 넘으면 마지막 접근이 오래된 파일부터 삭제
+ * 합성 결과는 텍스트/음성 설정에만 의존하므로 만료 시간은 두지 않습니다.
+ */
+@Slf4j
+@Component
+public class TtsAudioCache {
+
+    @Value("${tts.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tts.cache.memory-max-bytes:67108864}")
+    private long memoryMaxBytes;
+
+    // 비워 두면 디스크 단계를 쓰지 않음
+    @Value("${tts.cache.dir:${java.io.tmpdir}/dearmind-tts-cache}")
+    private String dir;
+
+    @Value("${tts.cache.disk-max-bytes:1073741824}")
+    private long diskMaxBytes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record DiskEntry(Path path, long size, AtomicLong lastAccess) {}
+
+    // 접근 순서 LinkedHashMap (가장 오래 안 쓴 항목이 맨 앞)
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    private final Map<String, DiskEntry> disk = new ConcurrentHashMap<>();
+    private final AtomicLong diskBytes = new AtomicLong();
+    private Path root;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private Counter memoryHitCounter;
+    private Counter diskHitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    void init() {
+        memoryHitCounter = lookupCounter("memory");
+        diskHitCounter = lookupCounter("disk");
+        missCounter = lookupCounter("miss");
+        Gauge.builder("tts.cache.bytes", this, cache -> cache.memoryBytesSnapshot())
+                .description("TTS 캐시 사용 바이트").tag("tier", "memory").register(meterRegistry);
+        Gauge.builder("tts.cache.bytes", diskBytes, AtomicLong::get)
+                .description("TTS 캐시 사용 바이트").tag("tier", "disk").register(meterRegistry);
+
+        if (!enabled || dir == null || dir.isBlank()) {
+            return;
+        }
+        try {
+            root = Path.of(dir);
+            Files.createDirectories(root);
+            loadDiskIndex();
+            log.info("TTS 디스크 캐시: dir={}, entries={}, bytes={}", root, disk.size(), diskBytes.get());
+        } catch (IOException e) {
+            log.warn("TTS 디스크 캐시를 사용할 수 없어 메모리 캐시만 사용합니다: {}", e.getMessage());
+            root = null;
+        }
+    }
+
+    /**
+     * 합성 파라미터로 캐시 키를 계산합니다.
+     */
+    public static String keyOf(String text, String voice, String rate, String pitch, String gain, String encoding) {
+        String keySource = String.join("\u0000", text, voice, rate, pitch, gain, encoding);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(keySource.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("TTS 캐시 키 생성 실패: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 캐시된 오디오를 조회합니다. 메모리 → 디스크 순서로 확인하며, 디스크 적중 시 메모리에 올립니다.
+     */
+    public Optional<byte[]> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        synchronized (memory) {
+            byte[] audio = memory.get(key);
+            if (audio != null) {
+                memoryHits.incrementAndGet();
+                memoryHitCounter.increment();
+                return Optional.of(audio);
+            }
+        }
+
+        DiskEntry entry = disk.get(key);
+        if (entry != null) {
+            try {
+                byte[] audio = Files.readAllBytes(entry.path());
+                entry.lastAccess().set(System.currentTimeMillis());
+                putMemory(key, audio);
+                diskHits.incrementAndGet();
+                diskHitCounter.increment();
+                return Optional.of(audio);
+            } catch (IOException e) {
+                // 외부에서 지워졌거나 손상된 파일은 색인에서 제외
+                log.warn("TTS 디스크 캐시 읽기 실패: key={}, error={}", key, e.getMessage());
+                if (disk.remove(key, entry)) {
+                    diskBytes.addAndGet(-entry.size());
+                }
+            }
+        }
+        misses.incrementAndGet();
+        missCounter.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 합성된 오디오를 메모리와 디스크에 저장합니다. 디스크 쓰기 실패는 무시합니다 (메모리에는 남음).
+     */
+    public void put(String key, String encoding, byte[] audio) {
+        if (!enabled || audio == null || audio.length == 0) {
+            return;
+        }
+        puts.incrementAndGet();
+        putMemory(key, audio);
+        if (root == null || disk.containsKey(key)) {
+            return;
+        }
+        try {
+            Path target = pathOf(key, encoding);
+            Files.createDirectories(target.getParent());
+            // 임시 파일에 쓴 뒤 이동하여 읽는 쪽이 쓰다 만 파일을 보지 않도록 함
+            Path temp = Files.createTempFile(target.getParent(), key, ".tmp");
+            Files.write(temp, audio);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (disk.putIfAbsent(key, new DiskEntry(target, audio.length, new AtomicLong(System.currentTimeMillis()))) == null) {
+                diskBytes.addAndGet(audio.length);
+            }
+            evictDiskIfNeeded();
+        } catch (IOException e) {
+            log.warn("TTS 디스크 캐시 저장 실패: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    public boolean contains(String key) {
+        synchronized (memory) {
+            if (memory.containsKey(key)) {
+                return true;
+            }
+        }
+        return disk.containsKey(key);
+    }
+
+    public Map<String, Object> stats() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (memory) {
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+        }
+        stats.put("memoryMaxBytes", memoryMaxBytes);
+        stats.put("diskEntries", disk.size());
+        stats.put("diskBytes", diskBytes.get());
+        stats.put("diskMaxBytes", diskMaxBytes);
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("puts", puts.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        return stats;
+    }
+
+    private void putMemory(String key, byte[] audio) {
+        if (audio.length > memoryMaxBytes) {
+            return;
+        }
+        synchronized (memory) {
+            byte[] previous = memory.put(key, audio);
+            memoryBytes += audio.length - (previous != null ? previous.length : 0);
+            var iterator = memory.entrySet().iterator();
+            while (memoryBytes > memoryMaxBytes && iterator.hasNext()) {
+                memoryBytes -= iterator.next().getValue().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    private long memoryBytesSnapshot() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    private Path pathOf(String key, String encoding) {
+        return root.resolve(key.substring(0, 2)).resolve(key + "." + extensionOf(encoding));
+    }
+
+    private static String extensionOf(String encoding) {
+        return encoding == null ? "bin" : encoding.toLowerCase();
+    }
+
+    private void loadDiskIndex() throws IOException {
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String name = file.getFileName().toString();
+                int dot = name.indexOf('.');
+                if (name.endsWith(".tmp") || dot != 64) {
+                    return;
+                }
+                try {
+                    long size = Files.size(file);
+                    long lastAccess = Files.getLastModifiedTime(file).toMillis();
+                    disk.put(name.substring(0, dot), new DiskEntry(file, size, new AtomicLong(lastAccess)));
+                    diskBytes.addAndGet(size);
+                } catch (IOException e) {
+                    log.warn("TTS 디스크 캐시 파일 색인 실패: {}", file);
+                }
+            });
+        }
+        evictDiskIfNeeded();
+    }
+
+    private synchronized void evictDiskIfNeeded() {
+        if (diskBytes.get() <= diskMaxBytes) {
+            return;
+        }
+        var oldestFirst = disk.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccess().get()))
+                .toList();
+        for (var entry : oldestFirst) {
+            if (diskBytes.get() <= diskMaxBytes) {
+                break;
+            }
+            if (disk.remove(entry.getKey(), entry.getValue())) {
+                diskBytes.addAndGet(-entry.getValue().size());
+                try {
+                    Files.deleteIfExists(entry.getValue().path());
+                } catch (IOException e) {
+                    log.warn("TTS 디스크 캐시 파일 삭제 실패: {}", entry.getValue().path());
+                }
+            }
+        }
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("tts.cache.requests")
+                .description("TTS 캐시 조회 결과")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
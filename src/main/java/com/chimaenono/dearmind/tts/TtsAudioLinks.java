@@ -0,0 +1,57 @@
+package com.chimaenono.dearmind.tts;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 턴 응답에 넣는 오디오 URL 발급기
+ * 합성 파라미터를 링크마다 새로 만든 무작위 토큰으로 등록하고 /api/tts/audio/{토큰}을 돌려줍니다. 클라이언트가 URL을 열면 그때
+ * 캐시에서 바로 보내거나 문장 단위로 합성하며 첫 문장부터 흘려보냅니다 (TTSController.streamAudio).
+ * 오디오 캐시 키(내용 해시)는 템플릿·첫 인사말처럼 알려진 문장이면 누구나 계산할 수 있으므로 URL에 쓰지 않습니다.
+ * 토큰은 발급받은 응답에서만 알 수 있고, 등록 후 ttl이 지나면 만료됩니다.
+ */
+@Component
+public class TtsAudioLinks {
+
+    public static final String PATH_PREFIX = "/api/tts/audio/";
+
+    @Value("${tts.audio-link.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    /**
+     * 아직 합성하지 않은 오디오의 합성 파라미터
+     */
+    public record Pending(String text, String voice, String speed, String pitch, String volume, String format,
+                          long expiresAtMillis) {}
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * 합성 파라미터를 등록하고 오디오 URL 경로를 반환합니다.
+     */
+    public String register(String text, String voice, String speed, String pitch, String volume, String format) {
+        long now = System.currentTimeMillis();
+        pending.values().removeIf(entry -> entry.expiresAtMillis() < now);
+
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        String token = HexFormat.of().formatHex(nonce);
+        pending.put(token, new Pending(text, voice, speed, pitch, volume, format, now + ttlSeconds * 1000));
+        return PATH_PREFIX + token;
+    }
+
+    public Optional<Pending> resolve(String token) {
+        Pending entry = pending.get(token);
+        if (entry == null || entry.expiresAtMillis() < System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(entry);
+    }
+}
@@ -0,0 +1,96 @@
+package com.chimaenono.dearmind.tts;
+
+import com.chimaenono.dearmind.gpt.TurnTemplateEngine;
+import com.chimaenono.dearmind.question.Question;
+import com.chimaenono.dearmind.question.QuestionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 기동 후 모든 질문 내용과 턴 응답의 고정 문장(격려·확인 문구 등)의 TTS를 미리 합성해 캐시에 채웁니다.
+ * 고정 문장은 문장 단위 합성(TtsLineSynthesizer)이 이어 붙일 때 그대로 적중합니다.
+ * 디스크 캐시에 이미 있는 조합은 건너뛰므로 재기동 시에는 새 질문만 합성합니다.
+ */
+@Slf4j
+@Component
+public class TtsCacheWarmer {
+
+    @Value("${tts.cache.prewarm-enabled:true}")
+    private boolean enabled;
+
+    // 질문을 읽을 때 쓰는 목소리 (기본 TTS 목소리, 턴 응답 목소리)
+    @Value("${tts.cache.prewarm-voices:ko-KR-Neural2-A,ko-KR-Wavenet-A}")
+    private String voicesConfig;
+
+    // 턴 응답 목소리 (GPTController 오디오 URL과 같은 설정)
+    @Value("${tts.cache.line-voice:ko-KR-Wavenet-A}")
+    private String lineVoice;
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private TTSService ttsService;
+
+    @Autowired
+    private TtsAudioCache audioCache;
+
+    @Autowired
+    private TurnTemplateEngine templateEngine;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarmOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofVirtual().name("tts-cache-prewarm").start(this::prewarm);
+    }
+
+    /**
+     * 질문 내용 × 목소리 조합과 턴 응답 고정 문장 중 캐시에 없는 것만 합성합니다.
+     */
+    public void prewarm() {
+        List<String> voices = Arrays.stream(voicesConfig.split(","))
+                .map(String::trim)
+                .filter(voice -> !voice.isEmpty())
+                .toList();
+        int synthesized = 0;
+        int skipped = 0;
+        int failed = 0;
+        try {
+            List<String[]> targets = new ArrayList<>();
+            for (String line : templateEngine.knownLines()) {
+                targets.add(new String[] {line, lineVoice});
+            }
+            for (Question question : questionService.getAllQuestions()) {
+                for (String voice : voices) {
+                    targets.add(new String[] {question.getContent(), voice});
+                }
+            }
+            for (String[] target : targets) {
+                String key = TtsAudioCache.keyOf(target[0], target[1], "1.0", "0.0", "0.0", "MP3");
+                if (audioCache.contains(key)) {
+                    skipped++;
+                    continue;
+                }
+                TTSResponse response = ttsService.synthesizeSpeech(target[0], target[1], "1.0", "0.0", "0.0", "mp3");
+                if (response.isSuccess()) {
+                    synthesized++;
+                } else {
+                    failed++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("TTS 사전 합성 중단: {}", e.getMessage());
+        }
+        log.info("TTS 사전 합성 완료: synthesized={}, skipped={}, failed={}", synthesized, skipped, failed);
+    }
+}
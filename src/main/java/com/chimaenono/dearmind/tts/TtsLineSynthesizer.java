@@ -0,0 +1,241 @@
+package com.chimaenono.dearmind.tts;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 문장 단위 병렬 TTS 합성기
+ * 턴 응답(3~4문장)을 문장 경계에서 나눠 동시에 합성하고, 순서대로 이어 붙여 씁니다.
+ * 1번 문장이 끝나는 즉시 클라이언트로 나가므로 첫 오디오까지의 시간이 짧은 문장 하나의 합성 시간으로 줄어듭니다.
+ * - 문장별 오디오는 각자의 캐시 키로 저장되고 (TTSService.streamSpeech), 전체 응답도 원래 키로 저장됩니다.
+ * - 격려·확인 문구처럼 세션마다 반복되는 문장은 캐시된 프레임을 그대로 쓰고 처음 보는 문장만 합성합니다.
+ *   이어 붙일 때는 문장별 태그/VBR 헤더 프레임을 걷어내 프레임 경계를 맞춥니다 (Mp3Frames).
+ * - MP3만 분할합니다. MP3는 프레임을 이어 붙여도 재생되지만 WAV/OGG는 파일마다 헤더가 있습니다.
+ * - 외부 호출 동시 실행 수는 모든 응답을 합쳐 max-in-flight로 제한합니다.
+ * - 클라이언트가 끊거나 한 문장이 실패하면 남은 문장 작업을 인터럽트하고, 아직 한도를 얻지 못한 작업은 합성하지 않습니다.
+ */
+@Slf4j
+@Component
+public class TtsLineSynthesizer {
+
+    // 문장 끝 문장부호 뒤 공백 또는 줄바꿈에서 분할
+    private static final Pattern LINE_BREAK = Pattern.compile("(?<=[.!?…~。！？])\\s+|\\n+");
+
+    @Value("${tts.line.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tts.line.max-in-flight:8}")
+    private int maxInFlight;
+
+    @Value("${tts.line.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    // 이보다 짧은 조각("네.", "아!")은 앞 문장에 붙여 합성 요청 수를 줄임
+    @Value("${tts.line.min-chars:6}")
+    private int minChars;
+
+    @Autowired
+    private TTSService ttsService;
+
+    @Autowired
+    private TtsAudioCache audioCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private Semaphore bulkhead;
+    private Timer firstAudioTimer;
+
+    private final AtomicLong lineHits = new AtomicLong();
+    private final AtomicLong lineMisses = new AtomicLong();
+    private Counter lineHitCounter;
+    private Counter lineMissCounter;
+
+    @PostConstruct
+    void init() {
+        bulkhead = new Semaphore(maxInFlight, true);
+        firstAudioTimer = Timer.builder("tts.line.first-audio")
+                .description("문장 단위 합성에서 첫 문장 오디오를 쓰기까지 걸린 시간")
+                .register(meterRegistry);
+        lineHitCounter = lineCounter("hit");
+        lineMissCounter = lineCounter("synthesized");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 텍스트를 문장 단위로 나눕니다. min-chars보다 짧은 조각은 앞 문장에 붙입니다.
+     * 문장 안의 연속 공백은 하나로 줄여 같은 문장이 같은 캐시 키를 갖게 합니다.
+     */
+    public List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String part : LINE_BREAK.split(text.trim())) {
+            String line = part.trim().replaceAll("\\s+", " ");
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (!lines.isEmpty() && line.length() < minChars) {
+                lines.set(lines.size() - 1, lines.get(lines.size() - 1) + " " + line);
+            } else {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 텍스트를 합성해 out에 씁니다. 여러 문장이면 병렬로 합성하되 1번 문장부터 순서대로 씁니다.
+     * 한 문장이거나 MP3가 아니면 TTSService.streamSpeech와 같습니다.
+     */
+    public void stream(String text, String voice, String speed, String pitch, String volume, String format,
+                       OutputStream out) throws Exception {
+        voice = voice != null ? voice : "ko-KR-Neural2-A";
+        speed = speed != null ? speed : "1.0";
+        pitch = pitch != null ? pitch : "0.0";
+        volume = volume != null ? volume : "0.0";
+        format = format != null ? format : "mp3";
+
+        String audioEncoding = TTSService.audioEncodingOf(format);
+        List<String> lines = splitLines(text);
+        if (!enabled || !"MP3".equals(audioEncoding) || lines.size() <= 1) {
+            ttsService.streamSpeech(text, voice, speed, pitch, volume, format, out);
+            return;
+        }
+
+        // 전체 응답이 이미 캐시에 있으면 분할하지 않음
+        String cacheKey = TtsAudioCache.keyOf(text, voice, speed, pitch, volume, audioEncoding);
+        Optional<byte[]> cached = audioCache.get(cacheKey);
+        if (cached.isPresent()) {
+            out.write(cached.get());
+            out.flush();
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<Future<byte[]>> futures = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            // 캐시된 문장은 동시 실행 한도를 쓰지 않고 바로 준비
+            Optional<byte[]> cachedLine = audioCache.get(
+                    TtsAudioCache.keyOf(line, voice, speed, pitch, volume, audioEncoding));
+            if (cachedLine.isPresent()) {
+                lineHits.incrementAndGet();
+                lineHitCounter.increment();
+                futures.add(CompletableFuture.completedFuture(cachedLine.get()));
+            } else {
+                lineMisses.incrementAndGet();
+                lineMissCounter.increment();
+                futures.add(synthesizeLineAsync(line, voice, speed, pitch, volume, format, cancelled));
+            }
+        }
+
+        ByteArrayOutputStream audio = new ByteArrayOutputStream();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                byte[] lineAudio = Mp3Frames.audioFrames(join(futures.get(i)));
+                out.write(lineAudio);
+                out.flush();
+                audio.write(lineAudio);
+                if (i == 0) {
+                    firstAudioTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        } catch (Exception e) {
+            // 클라이언트가 끊었거나 한 문장이 실패하면 남은 합성은 버림 (대기·합성 중인 스레드를 인터럽트)
+            cancelled.set(true);
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        audioCache.put(cacheKey, audioEncoding, audio.toByteArray());
+        log.debug("문장 단위 TTS 완료: lines={}, bytes={}, elapsedMs={}", lines.size(), audio.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * 문장 캐시 적중/합성 횟수
+     */
+    public Map<String, Object> stats() {
+        long hits = lineHits.get();
+        long total = hits + lineMisses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("synthesized", lineMisses.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits / total);
+        return stats;
+    }
+
+    private Counter lineCounter(String result) {
+        return Counter.builder("tts.line.requests")
+                .description("문장 단위 합성의 문장 캐시 조회 결과")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * executor.submit으로 제출해 cancel(true)가 작업 스레드를 인터럽트하도록 합니다
+     * (CompletableFuture.cancel은 실행 중인 supplyAsync 작업을 멈추지 않음).
+     */
+    private Future<byte[]> synthesizeLineAsync(String line, String voice, String speed, String pitch,
+                                               String volume, String format, AtomicBoolean cancelled) {
+        return executor.submit(() -> {
+            if (cancelled.get()) {
+                throw new CancellationException("응답 스트림이 취소됨");
+            }
+            if (!bulkhead.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("TTS 동시 합성 한도 초과 (max-in-flight=" + maxInFlight + ")");
+            }
+            try {
+                // 한도를 기다리는 사이 취소됐으면 외부 호출 없이 반납
+                if (cancelled.get()) {
+                    throw new CancellationException("응답 스트림이 취소됨");
+                }
+                ByteArrayOutputStream lineAudio = new ByteArrayOutputStream();
+                ttsService.streamSpeech(line, voice, speed, pitch, volume, format, lineAudio);
+                return lineAudio.toByteArray();
+            } finally {
+                bulkhead.release();
+            }
+        });
+    }
+
+    private static byte[] join(Future<byte[]> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -25,8 +25,11 @@ public class KakaoAuthService {
     @Value("${security.oauth2.client.registration.kakao.client-secret}")
     private String clientSecret;
 
-    private static final String KAKAO_TOKEN_URL = "https://kauth.kakao.com/oauth/token";
-    private static final String KAKAO_USER_INFO_URL = "https://kapi.kakao.com/v2/user/me";
+    @Value("${kakao.auth-url:https://kauth.kakao.com}")
+    private String kakaoAuthUrl;
+
+    @Value("${kakao.api-url:https://kapi.kakao.com}")
+    private String kakaoApiUrl;
 
     /**
      * 카카오 로그인 처리 (사용자 생성 또는 업데이트)
@@ -75,7 +78,7 @@ public class KakaoAuthService {
         params.add("redirect_uri", redirectUri); // 컨트롤러로부터 받은 redirectUri 사용
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(KAKAO_TOKEN_URL, request, Map.class);
+            ResponseEntity<Map> response = restTemplate.postForEntity(kakaoAuthUrl + "/oauth/token", request, Map.class);
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> tokenData = (Map<String, Object>) response.getBody();
                 return (String) tokenData.get("access_token");
@@ -99,7 +102,7 @@ public class KakaoAuthService {
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         HttpEntity<String> request = new HttpEntity<>(headers);
         try {
-            ResponseEntity<Map> response = restTemplate.exchange(KAKAO_USER_INFO_URL, HttpMethod.GET, request, Map.class);
+            ResponseEntity<Map> response = restTemplate.exchange(kakaoApiUrl + "/v2/user/me", HttpMethod.GET, request, Map.class);
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 Map<String, Object> userData = (Map<String, Object>) response.getBody();
                 log.info("카카오 사용자 정보 조회 성공");
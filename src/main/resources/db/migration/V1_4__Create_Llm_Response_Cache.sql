@@ -0,0 +1,11 @@
+-- LLM 응답 캐시 테이블 생성 (요약/음악 추천 등 결정적 호출 재사용)
+CREATE TABLE llm_response_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    call_site VARCHAR(255) NOT NULL,
+    model VARCHAR(255) NOT NULL,
+    content TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    
+    INDEX idx_llm_response_cache_expires_at (expires_at)
+);
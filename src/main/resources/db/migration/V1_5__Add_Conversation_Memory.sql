@@ -0,0 +1,2 @@
+-- 대화 턴 프롬프트용 요약 메모리 컬럼 추가 (앵커/다룬 facet/핵심 사실)
+ALTER TABLE conversations ADD COLUMN memory JSON NULL;
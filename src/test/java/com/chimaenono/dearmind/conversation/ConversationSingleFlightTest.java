@@ -0,0 +1,139 @@
+package com.chimaenono.dearmind.conversation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversationSingleFlightTest {
+
+	private final ConversationSingleFlight singleFlight = new ConversationSingleFlight();
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void coalescesConcurrentCallsForSameKey() throws Exception {
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> singleFlight.run(1L, ConversationSingleFlight.STAGE_SUMMARY, () -> {
+			calls.incrementAndGet();
+			started.countDown();
+			release.await();
+			return "요약";
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<String> follower = joinWhileInFlight(1L, ConversationSingleFlight.STAGE_SUMMARY, () -> {
+			calls.incrementAndGet();
+			return "두 번째 요약";
+		});
+		release.countDown();
+
+		assertEquals("요약", leader.get(5, TimeUnit.SECONDS));
+		assertEquals("요약", follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void propagatesExceptionToJoinedCallers() throws Exception {
+		IllegalStateException failure = new IllegalStateException("요약 실패");
+		Future<Object> follower = failLeaderWith(failure);
+
+		ExecutionException thrown = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+		assertSame(failure, thrown.getCause());
+	}
+
+	@Test
+	void propagatesErrorToJoinedCallers() throws Exception {
+		OutOfMemoryError failure = new OutOfMemoryError("테스트");
+		Future<Object> follower = failLeaderWith(failure);
+
+		// Error도 전달되지 않으면 합류한 호출이 시간 초과로 끝남
+		ExecutionException thrown = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+		assertSame(failure, thrown.getCause());
+	}
+
+	@Test
+	void runsAgainAfterPreviousCallFinished() throws Exception {
+		assertThrows(IllegalStateException.class, () -> singleFlight.run(1L, ConversationSingleFlight.STAGE_DIARY, () -> {
+			throw new IllegalStateException("실패");
+		}));
+
+		assertEquals("일기", singleFlight.run(1L, ConversationSingleFlight.STAGE_DIARY, () -> "일기"));
+	}
+
+	@Test
+	void doesNotCoalesceDifferentStagesOrConversations() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> summary = executor.submit(() -> singleFlight.run(1L, ConversationSingleFlight.STAGE_SUMMARY, () -> {
+			release.await();
+			return "요약";
+		}));
+
+		assertEquals("음악", singleFlight.run(1L, ConversationSingleFlight.STAGE_MUSIC, () -> "음악"));
+		assertEquals("다른 대화 요약", singleFlight.run(2L, ConversationSingleFlight.STAGE_SUMMARY, () -> "다른 대화 요약"));
+		release.countDown();
+		assertEquals("요약", summary.get(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * 선행 호출이 진행 중일 때 합류한 뒤, 선행 호출을 failure로 끝냅니다.
+	 */
+	private Future<Object> failLeaderWith(Throwable failure) throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<Object> leader = executor.submit(() -> singleFlight.run(1L, ConversationSingleFlight.STAGE_SUMMARY, () -> {
+			started.countDown();
+			release.await();
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			throw (Exception) failure;
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<Object> follower = joinWhileInFlight(1L, ConversationSingleFlight.STAGE_SUMMARY, () -> "실행되면 안 됨");
+		release.countDown();
+
+		ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+		assertSame(failure, leaderError.getCause());
+		return follower;
+	}
+
+	/**
+	 * 별도 스레드에서 run을 호출하고, 그 스레드가 진행 중인 작업의 결과를 기다리기 시작할 때까지 대기합니다.
+	 */
+	private <T> Future<T> joinWhileInFlight(Long conversationId, String stage, Callable<T> work) throws Exception {
+		Thread[] caller = new Thread[1];
+		CountDownLatch submitted = new CountDownLatch(1);
+		Future<T> future = executor.submit(() -> {
+			caller[0] = Thread.currentThread();
+			submitted.countDown();
+			return singleFlight.run(conversationId, stage, work);
+		});
+		assertTrue(submitted.await(5, TimeUnit.SECONDS));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (caller[0].getState() != Thread.State.WAITING) {
+			assertTrue(System.nanoTime() < deadline, "합류한 호출이 대기 상태가 되지 않았습니다");
+			Thread.sleep(1);
+		}
+		return future;
+	}
+}
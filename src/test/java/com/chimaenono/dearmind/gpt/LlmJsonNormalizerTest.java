@@ -0,0 +1,102 @@
+package com.chimaenono.dearmind.gpt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LlmJsonNormalizerTest {
+
+	private LlmJsonNormalizer normalizer;
+
+	@BeforeEach
+	void setUp() {
+		normalizer = new LlmJsonNormalizer();
+		ReflectionTestUtils.setField(normalizer, "templateEngine", new TurnTemplateEngine());
+		ReflectionTestUtils.setField(normalizer, "meterRegistry", new SimpleMeterRegistry());
+	}
+
+	@Test
+	void extractsObjectFromFenceAndSurroundingProse() {
+		String raw = "다음은 결과입니다.\n```json\n{\"text\": \"안녕하세요 {반가워요}\"}\n```\n감사합니다.";
+
+		assertEquals("{\"text\": \"안녕하세요 {반가워요}\"}", LlmJsonNormalizer.extractJson(raw));
+	}
+
+	@Test
+	void closesTruncatedStringAndBrackets() {
+		assertEquals("{\"text\":\"안녕하세요\"}", LlmJsonNormalizer.extractJson("{\"text\":\"안녕하세요"));
+		assertEquals("{\"a\":[1,{\"b\":\"c\"}]}", LlmJsonNormalizer.extractJson("{\"a\":[1,{\"b\":\"c"));
+	}
+
+	@Test
+	void keepsEscapedQuoteInsideTruncatedString() {
+		assertEquals("{\"text\":\"그가 \\\"안녕\\\" 하고\"}",
+				LlmJsonNormalizer.extractJson("{\"text\":\"그가 \\\"안녕\\\" 하고"));
+	}
+
+	@Test
+	void normalizesLenientJsonToStandardJson() {
+		String raw = "```json\n{'summary': '산책', // 주석\n \"keywords\": [\"공원\", \"봄\",],}\n```";
+
+		assertEquals("{\"summary\":\"산책\",\"keywords\":[\"공원\",\"봄\"]}", normalizer.normalizeJson(raw));
+	}
+
+	@Test
+	void normalizeJsonReturnsRawWhenUnparsable() {
+		assertEquals("요약할 수 없습니다.", normalizer.normalizeJson("요약할 수 없습니다."));
+	}
+
+	@Test
+	void repairsTruncatedTurnResponse() {
+		String raw = "```json\n{\"text\": \"그때 참 좋으셨겠어요.\", \"facet_key_used\": \"wh";
+
+		Map<String, Object> turn = normalizer.normalizeTurn(raw, 2, 1, List.of("who"));
+
+		assertNotNull(turn);
+		assertEquals("그때 참 좋으셨겠어요.", turn.get("text"));
+		// 잘린 "wh"는 rule_step 1의 키가 아니므로 facet_history에 없는 첫 키로 교체
+		assertEquals("where", turn.get("facet_key_used"));
+		assertEquals(List.of("who", "where"), turn.get("facet_history"));
+		assertEquals(3, turn.get("next_step_index"));
+	}
+
+	@Test
+	void usesProseWithoutBracesAsText() {
+		Map<String, Object> turn = normalizer.normalizeTurn("그 시절 이야기를 더 들려주세요.", 1, 1, List.of());
+
+		assertNotNull(turn);
+		assertEquals("그 시절 이야기를 더 들려주세요.", turn.get("text"));
+		assertEquals("where", turn.get("facet_key_used"));
+	}
+
+	@Test
+	void rejectsBrokenJsonInsteadOfSpeakingIt() {
+		assertNull(normalizer.normalizeTurn("```json\n{\"text\": ", 1, 1, List.of()));
+		assertNull(normalizer.normalizeTurn("{\"facet_key_used\": \"where\"}", 1, 1, List.of()));
+	}
+
+	@Test
+	void keepsValidAnchorOnlyOnFirstStep() {
+		String raw = "{\"text\": \"고향 이야기네요.\", \"target_anchor\": {\"type\": \"place\", \"text\": \"고향 마을\"}}";
+
+		assertEquals(Map.of("type", "place", "text", "고향 마을"),
+				normalizer.normalizeTurn(raw, 1, 1, List.of()).get("target_anchor"));
+		assertFalse(normalizer.normalizeTurn(raw, 2, 1, List.of("where")).containsKey("target_anchor"));
+	}
+
+	@Test
+	void dropsAnchorWithUnknownType() {
+		String raw = "{\"text\": \"고향 이야기네요.\", \"target_anchor\": {\"type\": \"smell\", \"text\": \"고향 냄새\"}}";
+
+		assertFalse(normalizer.normalizeTurn(raw, 1, 1, List.of()).containsKey("target_anchor"));
+	}
+}
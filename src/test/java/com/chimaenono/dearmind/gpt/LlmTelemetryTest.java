@@ -0,0 +1,124 @@
+package com.chimaenono.dearmind.gpt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LlmTelemetryTest {
+
+	@Test
+	void concurrentReservationsNeverExceedDailyBudget() throws Exception {
+		LlmTelemetry telemetry = telemetry(1000, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < 50; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					try {
+						telemetry.reserveBudget(request(null, 100));
+						return true;
+					} catch (LlmBudgetExceededException e) {
+						return false;
+					}
+				}));
+			}
+			start.countDown();
+			int reserved = 0;
+			for (Future<Boolean> result : results) {
+				reserved += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+			}
+
+			assertEquals(10, reserved);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void settlesReservationToActualUsage() {
+		LlmTelemetry telemetry = telemetry(250, 0);
+		LlmTelemetry.BudgetReservation reservation = telemetry.reserveBudget(request(null, 100));
+
+		telemetry.settleBudget(reservation, response(20, 10));
+
+		// 30 + 100 + 100 = 230
+		telemetry.reserveBudget(request(null, 100));
+		telemetry.reserveBudget(request(null, 100));
+		assertThrows(LlmBudgetExceededException.class, () -> telemetry.reserveBudget(request(null, 100)));
+	}
+
+	@Test
+	void releasesReservationWhenCallFails() {
+		LlmTelemetry telemetry = telemetry(100, 0);
+		LlmTelemetry.BudgetReservation reservation = telemetry.reserveBudget(request(null, 100));
+
+		telemetry.settleBudget(reservation, null);
+
+		telemetry.reserveBudget(request(null, 100));
+	}
+
+	@Test
+	void keepsEstimateWhenResponseHasNoUsage() {
+		LlmTelemetry telemetry = telemetry(150, 0);
+		LlmTelemetry.BudgetReservation reservation = telemetry.reserveBudget(request(null, 100));
+
+		telemetry.settleBudget(reservation, new GPTResponse());
+
+		assertThrows(LlmBudgetExceededException.class, () -> telemetry.reserveBudget(request(null, 100)));
+	}
+
+	@Test
+	void userRejectionDoesNotChargeDailyBudget() {
+		LlmTelemetry telemetry = telemetry(200, 100);
+		telemetry.reserveBudget(request(1L, 100));
+
+		assertThrows(LlmBudgetExceededException.class, () -> telemetry.reserveBudget(request(1L, 100)));
+
+		telemetry.reserveBudget(request(2L, 100));
+	}
+
+	private static LlmTelemetry telemetry(long dailyBudget, long userDailyBudget) {
+		LlmTelemetry telemetry = new LlmTelemetry();
+		ReflectionTestUtils.setField(telemetry, "dailyTokenBudget", dailyBudget);
+		ReflectionTestUtils.setField(telemetry, "userDailyTokenBudget", userDailyBudget);
+		ReflectionTestUtils.setField(telemetry, "meterRegistry", new SimpleMeterRegistry());
+		// 추정치가 max_tokens와 같도록 프롬프트 토큰은 0으로 셈
+		ReflectionTestUtils.setField(telemetry, "tokenizer", new LlmTokenizer() {
+			@Override
+			public int countPromptTokens(GPTRequest request) {
+				return 0;
+			}
+		});
+		return telemetry;
+	}
+
+	private static GPTRequest request(Long userId, int maxTokens) {
+		GPTRequest request = new GPTRequest();
+		request.setModel("gpt-4o-mini");
+		request.setMax_tokens(maxTokens);
+		request.setCallContext(LlmCallContext.of(LlmCallContext.SUMMARY, userId));
+		return request;
+	}
+
+	private static GPTResponse response(int promptTokens, int completionTokens) {
+		GPTResponse.GPTUsage usage = new GPTResponse.GPTUsage();
+		usage.setPromptTokens(promptTokens);
+		usage.setCompletionTokens(completionTokens);
+		GPTResponse response = new GPTResponse();
+		response.setUsage(usage);
+		return response;
+	}
+}
@@ -0,0 +1,138 @@
+package com.chimaenono.dearmind.gpt;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenAiRateLimiterTest {
+
+	private static final String MODEL = "gpt-4o-mini";
+	private static final String OTHER_MODEL = "gpt-4";
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void refundsSharedPermitWhenModelBucketTimesOut() throws Exception {
+		OpenAiRateLimiter limiter = limiter(MODEL + "=1:0", 2, 8, 100);
+		limiter.acquire(MODEL, OpenAiRateLimiter.Priority.INTERACTIVE, 1L, 0);
+
+		assertThrows(LlmSaturatedException.class,
+				() -> limiter.acquire(MODEL, OpenAiRateLimiter.Priority.INTERACTIVE, 1L, 0));
+
+		assertEquals(1L, snapshot(limiter, "shared").get("availableRequests"));
+		limiter.acquire(OTHER_MODEL, OpenAiRateLimiter.Priority.INTERACTIVE, 2L, 0);
+	}
+
+	@Test
+	void refundsModelPermitWhenSharedBucketIsEmpty() throws Exception {
+		OpenAiRateLimiter limiter = limiter(MODEL + "=10:0", 1, 8, 100);
+		limiter.acquire(OTHER_MODEL, OpenAiRateLimiter.Priority.INTERACTIVE, 1L, 0);
+
+		assertFalse(limiter.tryAcquire(MODEL, 0));
+
+		assertEquals(10L, snapshot(limiter, MODEL).get("availableRequests"));
+	}
+
+	@Test
+	void oversizedHeadRequestDoesNotBlockLowerPriority() throws Exception {
+		OpenAiRateLimiter limiter = limiter(MODEL + "=0:1000", 0, 8, 5000);
+		limiter.acquire(MODEL, OpenAiRateLimiter.Priority.INTERACTIVE, 1L, 900);
+		Future<?> oversized = submit(limiter, OpenAiRateLimiter.Priority.INTERACTIVE, 1L, 1000);
+		awaitQueued(limiter, 1, 0);
+
+		// 남은 100토큰에 맞는 하위 등급 요청은 맞지 않는 상위 등급 요청 뒤에서 기다리지 않음
+		limiter.acquire(MODEL, OpenAiRateLimiter.Priority.BACKGROUND, 2L, 50);
+
+		assertFalse(oversized.isDone());
+		assertEquals(1, queued(limiter).get("interactive"));
+	}
+
+	@Test
+	void starvationGuardServesBackgroundAfterConfiguredGrants() throws Exception {
+		OpenAiRateLimiter limiter = limiter(MODEL + "=0:300", 0, 2, 5000);
+		queueBehindPause(limiter);
+
+		// 정지가 풀리면 300토큰으로 3건 허가: 대화 턴 2건 뒤 밀린 백그라운드 1건
+		awaitQueued(limiter, 2, 0);
+	}
+
+	@Test
+	void interactiveTakesAllCapacityBelowStarvationGuard() throws Exception {
+		OpenAiRateLimiter limiter = limiter(MODEL + "=0:300", 0, 100, 5000);
+		queueBehindPause(limiter);
+
+		awaitQueued(limiter, 1, 1);
+	}
+
+	/**
+	 * 429로 버킷을 잠시 멈춘 사이 대화 턴 4건(100토큰씩)과 백그라운드 1건을 대기열에 넣습니다.
+	 */
+	private void queueBehindPause(OpenAiRateLimiter limiter) throws Exception {
+		limiter.observe(MODEL, 429, HttpHeaders.of(Map.of("retry-after-ms", List.of("1000")), (name, value) -> true));
+		for (long userId = 1; userId <= 4; userId++) {
+			submit(limiter, OpenAiRateLimiter.Priority.INTERACTIVE, userId, 100);
+		}
+		submit(limiter, OpenAiRateLimiter.Priority.BACKGROUND, 5L, 100);
+		awaitQueued(limiter, 4, 1);
+	}
+
+	private Future<?> submit(OpenAiRateLimiter limiter, OpenAiRateLimiter.Priority priority, Long userId, long tokens) {
+		return executor.submit(() -> {
+			limiter.acquire(MODEL, priority, userId, tokens);
+			return null;
+		});
+	}
+
+	private static void awaitQueued(OpenAiRateLimiter limiter, int interactive, int background) throws Exception {
+		Map<String, Integer> expected = Map.of("interactive", interactive, "stt", 0, "background", background);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!expected.equals(queued(limiter))) {
+			assertTrue(System.nanoTime() < deadline, "대기열 " + expected + " / 실제 " + queued(limiter));
+			Thread.sleep(5);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Integer> queued(OpenAiRateLimiter limiter) {
+		return (Map<String, Integer>) snapshot(limiter, MODEL).get("queued");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> snapshot(OpenAiRateLimiter limiter, String bucket) {
+		return (Map<String, Object>) limiter.stats().get(bucket);
+	}
+
+	private static OpenAiRateLimiter limiter(String modelLimits, long sharedRpm, int starvationGuard, long timeoutMs) {
+		OpenAiRateLimiter limiter = new OpenAiRateLimiter();
+		ReflectionTestUtils.setField(limiter, "defaultRpm", 500L);
+		ReflectionTestUtils.setField(limiter, "defaultTpm", 200_000L);
+		ReflectionTestUtils.setField(limiter, "modelLimitsConfig", modelLimits);
+		ReflectionTestUtils.setField(limiter, "sharedRpm", sharedRpm);
+		ReflectionTestUtils.setField(limiter, "starvationGuard", starvationGuard);
+		ReflectionTestUtils.setField(limiter, "interactiveTimeoutMs", timeoutMs);
+		ReflectionTestUtils.setField(limiter, "sttTimeoutMs", timeoutMs);
+		ReflectionTestUtils.setField(limiter, "backgroundTimeoutMs", timeoutMs);
+		ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+		limiter.parseModelLimits();
+		return limiter;
+	}
+}
@@ -0,0 +1,111 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PromptTemplateTest {
+
+	@Test
+	void rendersTypedSlots() throws Exception {
+		PromptTemplate template = PromptTemplate.parse("test", 1, "{{name}}님, {{age:int}}세, 계획: {{plan:json}}");
+
+		assertEquals("김순자님, 78세, 계획: {\"a\":1}",
+				template.render(Map.of("name", "김순자", "age", 78, "plan", "{\"a\":1}")));
+		assertEquals("김순자님, 78세, 계획: {\"a\":1}",
+				template.render(Map.of("name", "김순자", "age", 78L, "plan", new ObjectMapper().readTree("{\"a\":1}"))));
+	}
+
+	@Test
+	void collectsSlotsInOrderIncludingSections() {
+		PromptTemplate template = PromptTemplate.parse("test", 1, "{{a}} {{#b}}{{c:int}}{{/b}} {{a}} {{d:json}}");
+
+		Map<String, PromptTemplate.SlotType> expected = new LinkedHashMap<>();
+		expected.put("a", PromptTemplate.SlotType.TEXT);
+		expected.put("c", PromptTemplate.SlotType.INT);
+		expected.put("d", PromptTemplate.SlotType.JSON);
+		assertEquals(expected, template.getSlots());
+		assertEquals("test@v1", template.getId());
+	}
+
+	@Test
+	void returnsSourceWhenNoTags() {
+		PromptTemplate template = PromptTemplate.parse("rules", 2, "규칙 1\n규칙 2");
+
+		assertEquals("규칙 1\n규칙 2", template.render(Map.of()));
+	}
+
+	@Test
+	void rendersSectionOnlyWhenValuePresent() {
+		PromptTemplate template = PromptTemplate.parse("test", 1, "시작{{#memory}} 기억: {{memory}}{{/memory}} 끝");
+
+		assertEquals("시작 기억: 산책 끝", template.render(Map.of("memory", "산책")));
+		assertEquals("시작 끝", template.render(Map.of("memory", " ")));
+		assertEquals("시작 끝", template.render(Map.of()));
+	}
+
+	@Test
+	void rendersInvertedSectionOnlyWhenValueAbsent() {
+		PromptTemplate template = PromptTemplate.parse("test", 1, "{{^facts}}없음{{/facts}}{{#facts}}있음{{/facts}}");
+
+		assertEquals("없음", template.render(Map.of("facts", List.of())));
+		assertEquals("있음", template.render(Map.of("facts", List.of("고향"))));
+		assertEquals("없음", template.render(Map.of("facts", false)));
+		assertEquals("있음", template.render(Map.of("facts", Map.of("k", "v"))));
+	}
+
+	@Test
+	void removesLinesHoldingOnlySectionTags() {
+		String source = "첫 줄\n  {{#anchor}}\n앵커: {{anchor}}\n  {{/anchor}}\n끝 줄";
+		PromptTemplate template = PromptTemplate.parse("test", 1, source);
+
+		assertEquals("첫 줄\n앵커: 고향\n끝 줄", template.render(Map.of("anchor", "고향")));
+		assertEquals("첫 줄\n끝 줄", template.render(Map.of()));
+	}
+
+	@Test
+	void rendersNestedSections() {
+		PromptTemplate template = PromptTemplate.parse("test", 1, "{{#a}}A{{#b}}B{{/b}}{{^b}}-{{/b}}{{/a}}");
+
+		Map<String, Object> values = new HashMap<>();
+		values.put("a", true);
+		assertEquals("A-", template.render(values));
+		values.put("b", "값");
+		assertEquals("AB", template.render(values));
+	}
+
+	@Test
+	void rejectsMissingOrMistypedSlotValues() {
+		PromptTemplate template = PromptTemplate.parse("test", 1, "{{name}} {{age:int}} {{plan:json}}");
+
+		assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("age", 1, "plan", "{}")));
+		assertThrows(IllegalArgumentException.class,
+				() -> template.render(Map.of("name", "김", "age", "78", "plan", "{}")));
+		assertThrows(IllegalArgumentException.class,
+				() -> template.render(Map.of("name", "김", "age", 78, "plan", Map.of("a", 1))));
+	}
+
+	@Test
+	void doesNotRequireSlotsInClosedSection() {
+		PromptTemplate template = PromptTemplate.parse("test", 1, "{{#memory}}{{memory}} / {{detail}}{{/memory}}끝");
+
+		assertEquals("끝", template.render(Map.of()));
+	}
+
+	@Test
+	void rejectsSyntaxErrors() {
+		assertThrows(IllegalArgumentException.class, () -> PromptTemplate.parse("test", 1, "{{name"));
+		assertThrows(IllegalArgumentException.class, () -> PromptTemplate.parse("test", 1, "{{#a}}본문"));
+		assertThrows(IllegalArgumentException.class, () -> PromptTemplate.parse("test", 1, "{{#a}}본문{{/b}}"));
+		assertThrows(IllegalArgumentException.class, () -> PromptTemplate.parse("test", 1, "{{name:date}}"));
+		assertThrows(IllegalArgumentException.class, () -> PromptTemplate.parse("test", 1, "{{Name}}"));
+		assertThrows(IllegalArgumentException.class, () -> PromptTemplate.parse("test", 1, "{{a}} {{a:int}}"));
+	}
+}
@@ -0,0 +1,95 @@
+package com.chimaenono.dearmind.gpt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TurnResponseStreamParserTest {
+
+	private final List<String> deltas = new ArrayList<>();
+	private final List<String> completed = new ArrayList<>();
+	private TurnResponseStreamParser parser;
+
+	@BeforeEach
+	void setUp() {
+		parser = new TurnResponseStreamParser(deltas::add, completed::add);
+	}
+
+	@Test
+	void decodesEscapeSplitAcrossChunks() {
+		feed("{\"text\": \"그가 \\", "\"안녕\\", "\" 하고 \\", "n웃었어요\"}");
+
+		assertEquals("그가 \"안녕\" 하고 \n웃었어요", parser.getText());
+		assertEquals(List.of("그가 \"안녕\" 하고 \n웃었어요"), completed);
+	}
+
+	@Test
+	void decodesUnicodeEscapeSplitAcrossChunks() {
+		// U+AC00 = 가, U+B098 = 나
+		feed("{\"text\": \"\\u", "AC", "00\\uB0", "98다\"}");
+
+		assertEquals("가나다", parser.getText());
+		assertEquals(List.of("가", "나다"), deltas);
+	}
+
+	@Test
+	void ignoresFenceAndTextOutsideObject() {
+		feed("다음은 응답입니다.\n```json\n{\"text\": \"안녕하세요\"", ", \"facet_key_used\": \"where\"}\n```\n{\"text\": \"무시\"}");
+
+		assertEquals("안녕하세요", parser.getText());
+		assertEquals(List.of("안녕하세요"), completed);
+		assertEquals(List.of("안녕하세요"), deltas);
+	}
+
+	@Test
+	void findsTextWhenNotFirstKey() {
+		feed("{\"facet_key_used\": \"text\", \"facet_history\": [\"text\", \"who\"], ", "\"text\": \"누구와 함께였나요?\"}");
+
+		assertEquals("누구와 함께였나요?", parser.getText());
+		assertEquals(List.of("누구와 함께였나요?"), completed);
+	}
+
+	@Test
+	void ignoresNestedTextKey() {
+		feed("{\"target_anchor\": {\"type\": \"place\", \"text\": \"고향\"}, ",
+				"\"text\": \"고향 이야기 더 들려주세요.\", \"extra\": {\"text\": \"무시\"}}");
+
+		assertEquals("고향 이야기 더 들려주세요.", parser.getText());
+		assertEquals(List.of("고향 이야기 더 들려주세요."), completed);
+	}
+
+	@Test
+	void completesTextBeforeRemainingFieldsArrive() {
+		feed("{\"text\": \"그때 ", "참 좋으셨겠어요.\", \"facet_");
+
+		assertTrue(parser.isTextComplete());
+		assertEquals(List.of("그때 ", "참 좋으셨겠어요."), deltas);
+		assertEquals(List.of("그때 참 좋으셨겠어요."), completed);
+
+		feed("history\": [\"where\"], \"text\": \"두 번째\"}");
+
+		assertEquals("그때 참 좋으셨겠어요.", parser.getText());
+		assertEquals(1, completed.size());
+	}
+
+	@Test
+	void reportsPartialTextWhenStreamStops() {
+		feed("```json\n{\"text\": \"그 시절", "");
+
+		assertFalse(parser.isTextComplete());
+		assertEquals("그 시절", parser.getText());
+		assertTrue(completed.isEmpty());
+	}
+
+	private void feed(String... chunks) {
+		for (String chunk : chunks) {
+			parser.feed(chunk);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.chimaenono.dearmind.gpt;
+
+import com.chimaenono.dearmind.question.QuestionService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TurnTemplateEngineTest {
+
+	private final TurnTemplateEngine engine = new TurnTemplateEngine();
+
+	@Test
+	void omitsAnchorWhenAnswerHasNoAnchorWord() {
+		Map<String, Object> response = engine.render("중립", 0.8, 1, 1, List.of(), "글쎄요, 잘 모르겠어요.", null);
+
+		assertFalse(response.containsKey("target_anchor"));
+		assertFalse(((String) response.get("text")).contains("이야기에서"));
+	}
+
+	@Test
+	void neverTurnsSeededQuestionIntoAnchorText() {
+		// 사용자가 질문을 그대로 되뇌어도 앵커는 질문 문장이 아니라 그 안의 한 단어
+		for (String question : QuestionService.SEED_QUESTIONS) {
+			Map<String, String> anchor = engine.deriveAnchor(question);
+			if (anchor == null) {
+				continue;
+			}
+			String text = anchor.get("text");
+			assertFalse(text.contains(" ") || text.contains("?") || text.length() > 12, question + " → " + text);
+			assertTrue(question.contains(text), question + " → " + text);
+		}
+	}
+
+	@Test
+	void buildsAnchorFromUserAnswerToSeededQuestion() {
+		Map<String, String> answers = Map.of(
+			"어디서 자라셨어요?", "저는 충청도 고향 마을에서 자랐어요.",
+			"가족 여행 간 적 있으세요? 기억나는 건요?", "설악산으로 여행 갔던 게 기억나요.",
+			"기억에 남는 선생님이 있으세요?", "초등학교 담임 선생님이 생각나요.",
+			"반려동물 키워본 적 있으세요?", "마당에서 강아지를 키웠지요."
+		);
+		Map<String, Map<String, String>> expected = Map.of(
+			"어디서 자라셨어요?", Map.of("type", "place", "text", "고향"),
+			"가족 여행 간 적 있으세요? 기억나는 건요?", Map.of("type", "event", "text", "여행"),
+			"기억에 남는 선생님이 있으세요?", Map.of("type", "place", "text", "초등학교"),
+			"반려동물 키워본 적 있으세요?", Map.of("type", "place", "text", "마당")
+		);
+		for (Map.Entry<String, String> answer : answers.entrySet()) {
+			assertTrue(QuestionService.SEED_QUESTIONS.contains(answer.getKey()), answer.getKey());
+
+			Map<String, Object> response = engine.render("기쁨", 0.8, 1, 1, List.of(), answer.getValue(), null);
+
+			assertEquals(expected.get(answer.getKey()), response.get("target_anchor"), answer.getKey());
+		}
+	}
+
+	@Test
+	void keepsWordsEndingLikeParticles() {
+		assertEquals(Map.of("type", "place", "text", "마을"), engine.deriveAnchor("마을 잔치가 열렸어요"));
+		assertEquals(Map.of("type", "person", "text", "어머니"), engine.deriveAnchor("어머니께서 해주신 밥"));
+	}
+
+	@Test
+	void ignoresGenericAndPartialWords() {
+		assertNull(engine.deriveAnchor("그 시절엔 다 그랬죠"));
+		assertNull(engine.deriveAnchor("아침마다 산책을 했어요"));
+		assertEquals(Map.of("type", "timepoint", "text", "학창시절"), engine.deriveAnchor("학창시절이 그리워요"));
+		assertNull(engine.deriveAnchor(" "));
+		assertNull(engine.deriveAnchor(null));
+	}
+
+	@Test
+	void usesStoredAnchorInLaterQuestionsOnly() {
+		Map<String, String> anchor = Map.of("type", "place", "text", "고향");
+
+		Map<String, Object> response = engine.render("슬픔", 0.8, 2, 1, List.of("where"), "잘 모르겠어요.", anchor);
+
+		assertTrue(((String) response.get("text")).contains("고향 이야기에서, "));
+		assertFalse(response.containsKey("target_anchor"));
+	}
+}
@@ -0,0 +1,127 @@
+package com.chimaenono.dearmind.tts;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class Mp3FramesTest {
+
+	// MPEG1 Layer III, 128kbps, 44.1kHz, CRC 없음, 스테레오 → 144 * 128000 / 44100 = 417바이트
+	private static final int FRAME_LENGTH = 417;
+
+	// 스테레오 MPEG1 사이드 정보(32바이트) 뒤, Xing/Info 태그 위치
+	private static final int VBR_TAG_OFFSET = 4 + 32;
+
+	@Test
+	void returnsInputWhenOnlyAudioFrames() {
+		byte[] mp3 = concat(frame(1), frame(2), frame(3));
+
+		assertSame(mp3, Mp3Frames.audioFrames(mp3));
+	}
+
+	@Test
+	void stripsId3v2Tag() {
+		byte[] audio = concat(frame(1), frame(2));
+
+		assertArrayEquals(audio, Mp3Frames.audioFrames(concat(id3v2(300), audio)));
+	}
+
+	@Test
+	void stripsId3v1TagAtEnd() {
+		byte[] audio = concat(frame(1), frame(2));
+		byte[] id3v1 = new byte[128];
+		System.arraycopy("TAG".getBytes(StandardCharsets.US_ASCII), 0, id3v1, 0, 3);
+
+		assertArrayEquals(audio, Mp3Frames.audioFrames(concat(audio, id3v1)));
+	}
+
+	@Test
+	void stripsXingHeaderFrame() {
+		byte[] audio = concat(frame(1), frame(2));
+
+		assertArrayEquals(audio, Mp3Frames.audioFrames(concat(vbrHeaderFrame("Xing"), audio)));
+	}
+
+	@Test
+	void stripsInfoHeaderFrameAfterId3v2() {
+		byte[] audio = concat(frame(1), frame(2));
+
+		assertArrayEquals(audio, Mp3Frames.audioFrames(concat(id3v2(64), vbrHeaderFrame("Info"), audio)));
+	}
+
+	@Test
+	void dropsTruncatedLastFrame() {
+		byte[] audio = concat(frame(1), frame(2));
+		byte[] truncated = Arrays.copyOf(frame(3), FRAME_LENGTH / 2);
+
+		assertArrayEquals(audio, Mp3Frames.audioFrames(concat(audio, truncated)));
+	}
+
+	@Test
+	void keepsFramesAcrossAllStrippedParts() {
+		byte[] audio = concat(frame(1), frame(2), frame(3));
+		byte[] mp3 = concat(id3v2(32), vbrHeaderFrame("Xing"), audio, Arrays.copyOf(frame(4), 10));
+
+		assertArrayEquals(audio, Mp3Frames.audioFrames(mp3));
+	}
+
+	@Test
+	void returnsNonMp3InputUnchanged() {
+		byte[] wav = "RIFF....WAVEfmt ".getBytes(StandardCharsets.US_ASCII);
+
+		assertSame(wav, Mp3Frames.audioFrames(wav));
+	}
+
+	@Test
+	void returnsInputWhenFirstFrameIsTruncated() {
+		byte[] truncated = Arrays.copyOf(frame(1), 100);
+
+		assertSame(truncated, Mp3Frames.audioFrames(truncated));
+	}
+
+	private static byte[] frame(int fill) {
+		byte[] frame = new byte[FRAME_LENGTH];
+		Arrays.fill(frame, (byte) fill);
+		frame[0] = (byte) 0xff;
+		frame[1] = (byte) 0xfb;
+		frame[2] = (byte) 0x90;
+		frame[3] = (byte) 0x00;
+		return frame;
+	}
+
+	private static byte[] vbrHeaderFrame(String tag) {
+		byte[] frame = frame(0);
+		byte[] tagBytes = tag.getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(tagBytes, 0, frame, VBR_TAG_OFFSET, tagBytes.length);
+		return frame;
+	}
+
+	private static byte[] id3v2(int size) {
+		byte[] tag = new byte[10 + size];
+		tag[0] = 'I';
+		tag[1] = 'D';
+		tag[2] = '3';
+		tag[3] = 4;
+		tag[6] = (byte) ((size >> 21) & 0x7f);
+		tag[7] = (byte) ((size >> 14) & 0x7f);
+		tag[8] = (byte) ((size >> 7) & 0x7f);
+		tag[9] = (byte) (size & 0x7f);
+		// 태그 본문에 프레임 동기 패턴이 있어도 건너뛰어야 함
+		tag[10] = (byte) 0xff;
+		tag[11] = (byte) 0xfb;
+		return tag;
+	}
+
+	private static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			out.writeBytes(part);
+		}
+		return out.toByteArray();
+	}
+}